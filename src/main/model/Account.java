@@ -3,31 +3,94 @@ package model;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.time.Clock;
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /*
- * A representation of a list of assets in a user's account.
+ * A representation of a list of assets in a user's account. The numeric state of both
+ * active and removed assets is kept in a columnar AssetBook, in the order they were added.
+ * Assets presently in the account are also indexed by name and by maturity date.
+ * Assets loaded lazily from an AssetSource are only created when they are first used; their
+ * names are only indexed when an asset is first looked up by name.
  */
 
 public class Account implements Writeable {
-    List<Asset> account;
-    List<Asset> assetsRemoved;
+    AssetList account;
+    AssetList assetsRemoved;
+    Map<String, Integer> assetsByName; // slots, or null until names loaded lazily are indexed
+    AssetBook book;
+    Clock clock;
+    boolean parallelValuation;
     String name;
 
     // EFFECTS: creates a new empty account without assets
     public Account(String name) {
-        account = new ArrayList<>();
-        assetsRemoved = new ArrayList<>();
+        book = new AssetBook();
+        account = new AssetList(book);
+        assetsRemoved = new AssetList(book);
+        assetsByName = new HashMap<>();
+        book.indexMaturities();
+        clock = Clock.systemDefaultZone();
         this.name = name;
     }
 
     // MODIFIES: this
-    // EFFECTS: add the given asset to the account
+    // EFFECTS: sets the clock that valuations of this account read "today" from
+    public void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sets whether refreshes and total gains of large books are computed in parallel
+    public void setParallelValuation(boolean parallelValuation) {
+        this.parallelValuation = parallelValuation;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sets the listener told about every later change to the assets of this account;
+    // null stops notifications
+    public void setMutationListener(MutationListener listener) {
+        book.listener = listener;
+    }
+
+    // EFFECTS: returns a valuation context dated today according to this account's clock
+    public ValuationContext newValuationContext() {
+        return new ValuationContext(clock);
+    }
+
+    // MODIFIES: this, asset
+    // EFFECTS: add the given asset to the account; moves its state into the account's book
     public void addAsset(Asset asset) {
+        asset.moveTo(book);
+        added(asset);
+    }
+
+    // REQUIRES: termToMaturity > 0, interestBasisPoints > 0, principalCents >= 0
+    // MODIFIES: this
+    // EFFECTS: adds a new active asset with the given fields and no withdrawals to the account as addAsset
+    // does, creating its state straight in the account's book, with its maturity date calculated, and
+    // returns it
+    public Asset addNewAsset(String name, int termToMaturity, int interestBasisPoints, long principalCents,
+                             long investEpochDay) {
+        Asset asset = new Asset(book, name, termToMaturity, interestBasisPoints, principalCents, investEpochDay);
+        added(asset);
+        return asset;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: puts the given asset, whose state is in the account's book, in the account and tells the
+    // event log and the mutation listener, if any
+    private void added(Asset asset) {
         account.add(asset);
-        EventLog.getInstance().logEvent(new Event(asset.getName() + " added to account."));
+        indexName(asset);
+        EventLog.getInstance().logEvent(new Event(Event.Type.ASSET_ADDED, asset.getName()));
+        if (book.listener != null) {
+            book.listener.assetAdded(asset);
+        }
     }
 
     // REQUIRES: asset.getActivatedStatus == false or asset.getPrincipal == 0
@@ -36,10 +99,138 @@ public class Account implements Writeable {
     // adds the removed asset to the assetRemoved list;
     // deactivates the given asset
     public void removeAsset(Asset asset) {
+        asset.moveTo(book);
         account.remove(asset);
+        if (assetsByName != null && Integer.valueOf(asset.getSlot()).equals(assetsByName.get(asset.getName()))) {
+            assetsByName.remove(asset.getName());
+            reindexName(asset.getName());
+        }
         assetsRemoved.add(asset);
-        asset.deActivate();
-        EventLog.getInstance().logEvent(new Event(asset.getName() + " removed from account."));
+        book.markRemoved(asset.getSlot());
+        EventLog.getInstance().logEvent(new Event(Event.Type.ASSET_REMOVED, asset.getName()));
+        if (book.listener != null) {
+            book.listener.assetRemoved(asset);
+        }
+    }
+
+    // MODIFIES: this, active, removed
+    // EFFECTS: adds the given active assets to the account and the given removed assets to the removed
+    // assets, in order, with the same result as adding each active asset and then adding and removing
+    // each removed one; sizes the collections once, leaves the ordered indexes to be rebuilt once when
+    // next used and logs one event for the whole load
+    public void bulkLoad(List<Asset> active, List<Asset> removed) {
+        book.beginBulk(active.size() + removed.size());
+        account.ensureCapacity(account.size() + active.size());
+        assetsRemoved.ensureCapacity(assetsRemoved.size() + removed.size());
+        for (Asset asset : active) {
+            asset.moveTo(book);
+            account.add(asset);
+            indexName(asset);
+        }
+        for (Asset asset : removed) {
+            asset.moveTo(book);
+            assetsRemoved.add(asset);
+            book.markRemoved(asset.getSlot());
+        }
+        EventLog.getInstance().logEvent(new Event(Event.Type.ASSETS_LOADED, active.size() + removed.size()));
+        notifyBulkLoad(active, removed);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns a loader adding assets to this account one at a time, each created straight in
+    // the book of the account, with room made for the given number of assets; the load must be finished
+    // before the account is used otherwise
+    public AccountLoader loader(int expected) {
+        return new AccountLoader(this, expected);
+    }
+
+    // REQUIRES: no assets were loaded lazily into this account before
+    // MODIFIES: this
+    // EFFECTS: adds the assets in the given source to the account, or to the removed assets if they
+    // were removed, with the same result as bulkLoad; reads only their numeric fields now and creates
+    // each asset from the source when it is first used
+    public void lazyLoad(AssetSource source) {
+        int activeBefore = account.size();
+        int removedBefore = assetsRemoved.size();
+        book.beginBulk(source.size());
+        int first = book.addFrom(source);
+        for (int i = 0; i < source.size(); i++) {
+            (source.isRemoved(i) ? assetsRemoved : account).addSlot(first + i);
+        }
+        assetsByName = null;
+        EventLog.getInstance().logEvent(new Event(Event.Type.ASSETS_LOADED, source.size()));
+        notifyBulkLoad(account.subList(activeBefore, account.size()),
+                assetsRemoved.subList(removedBefore, assetsRemoved.size()));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: indexes the given asset, presently in the account, by name unless names are not indexed yet
+    void indexName(Asset asset) {
+        if (assetsByName != null) {
+            assetsByName.put(asset.getName(), asset.getSlot());
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: indexes the given name to the last asset presently in the account that has it, if any, as
+    // slotsByName would; for a name that another asset had been indexed to, since names may repeat
+    private void reindexName(String name) {
+        for (int i = account.size() - 1; i >= 0; i--) {
+            int slot = account.slotAt(i);
+            if (book.nameOf(slot).equals(name)) {
+                assetsByName.put(name, slot);
+                return;
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the slots of the assets presently in the account by name, indexing the names of
+    // assets loaded lazily first if needed
+    private Map<String, Integer> slotsByName() {
+        if (assetsByName == null) {
+            assetsByName = new HashMap<>(account.size() * 2);
+            for (int i = 0; i < account.size(); i++) {
+                int slot = account.slotAt(i);
+                assetsByName.put(book.nameOf(slot), slot);
+            }
+        }
+        return assetsByName;
+    }
+
+    // EFFECTS: tells the mutation listener, if any, about the assets loaded by bulkLoad
+    void notifyBulkLoad(List<Asset> active, List<Asset> removed) {
+        if (book.listener != null) {
+            for (Asset asset : active) {
+                book.listener.assetAdded(asset);
+            }
+            for (Asset asset : removed) {
+                book.listener.assetAdded(asset);
+                book.listener.assetRemoved(asset);
+            }
+        }
+    }
+
+    // MODIFIES: this, asset
+    // EFFECTS: removes the asset with the given name from the account as in removeAsset and returns it;
+    // returns null and does nothing if there is no such asset in the account
+    public Asset removeByName(String name) {
+        Asset asset = findByName(name);
+        if (asset != null) {
+            removeAsset(asset);
+        }
+        return asset;
+    }
+
+    // EFFECTS: returns the asset presently in the account with the given name, or null if there is none
+    public Asset findByName(String name) {
+        Integer slot = slotsByName().get(name);
+        return slot == null ? null : book.view(slot);
+    }
+
+    // EFFECTS: returns true if an asset presently in the account has the given name
+    public boolean containsName(String name) {
+        return slotsByName().containsKey(name);
     }
 
     // EFFECTS: returns the current number of assets in the account
@@ -49,58 +240,60 @@ public class Account implements Writeable {
 
     // EFFECTS: returns the number of active assets in the account
     public int numActiveAssets() {
-        int result = 0;
-        for (Asset a : account) {
-            if (a.getActivatedStatus()) {
-                result += 1;
-            }
-        }
-        return result;
+        return book.countActive();
     }
 
     // MODIFIES: all Assets in Account, assetsRemoved
     // EFFECTS: refresh the status and total gain of all assets in the account and removed assets
     public void refresh() {
-        if (!account.isEmpty()) {
-            for (Asset a : account) {
-                a.refreshStatus();
-                a.refreshTotalGain();
-                a.calculateDaysHeld();
-            }
-        }
-        if (!assetsRemoved.isEmpty()) {
-            for (Asset a : assetsRemoved) {
-                a.refreshStatus();
-                a.refreshTotalGain();
-                a.calculateDaysHeld();
-            }
-        }
+        refresh(newValuationContext());
+    }
+
+    // MODIFIES: all Assets in Account, assetsRemoved
+    // EFFECTS: refresh the status and total gain of all assets in the account and removed assets
+    // as of the context date
+    public void refresh(ValuationContext context) {
+        book.refresh(context, parallelValuation);
+    }
+
+    // MODIFIES: all Assets in Account
+    // EFFECTS: deactivates the assets in the account that have expired or have no principal
+    // as of the context date
+    public void refreshStatus(ValuationContext context) {
+        book.refreshStatus(context);
+    }
+
+    // EFFECTS: returns the assets presently in the account maturing from the given start date
+    // to the given end date (both inclusive), in order of maturity date
+    public List<Asset> maturingBetween(LocalDate start, LocalDate end) {
+        return book.maturingBetween(start.toEpochDay(), end.toEpochDay());
+    }
+
+    // REQUIRES: bucketDays > 0, numBuckets >= 0
+    // EFFECTS: returns numBuckets consecutive buckets of bucketDays days starting on the given date,
+    // with the number and total principal of assets presently in the account maturing in each
+    public List<MaturityBucket> maturityCalendar(LocalDate start, int bucketDays, int numBuckets) {
+        return book.maturityCalendar(start.toEpochDay(), bucketDays, numBuckets);
     }
 
     // EFFECTS: returns the total interest gain
     public double getTotalGain() {
-        double gain = 0;
-        if (!account.isEmpty()) {
-            for (Asset a : account) {
-                gain = gain + a.getTotalGain();
-            }
-        }
-        if (!assetsRemoved.isEmpty()) {
-            for (Asset a : assetsRemoved) {
-                gain = gain + a.getTotalGain();
-            }
-        }
-        return gain;
+        return Money.toDollars(book.sumTotalGain(parallelValuation));
     }
 
     // EFFECTS: returns names of top 3 assets
     public List<String> getTop3AssetsName() {
-        List<String> top3 = new ArrayList<>();
-        List<Asset> top3Assets = top3Assets();
-        for (Asset asset: top3Assets) {
-            top3.add(asset.getName());
+        return getTopAssetsName(3);
+    }
+
+    // REQUIRES: k >= 0
+    // EFFECTS: returns names of the top k assets by total gain
+    public List<String> getTopAssetsName(int k) {
+        List<String> names = new ArrayList<>();
+        for (Asset asset : topK(k, RankingMetric.TOTAL_GAIN)) {
+            names.add(asset.getName());
         }
-        return top3;
+        return names;
     }
 
     // EFFECTS: returns the top three assets with the highest interests return
@@ -108,56 +301,34 @@ public class Account implements Writeable {
     //    assets into account) in the order of first, second, and third place;
     //    the later added asset ranks higher if there is a tie
     public List<Asset> top3Assets() {
-        if (account.size() < 3) {
-            return top3AssetsSpecial();
-        }
-        Asset temp = new Asset("base", 0, 0, 0);
-        Asset first = account.get(0);
-        Asset second = temp;
-        Asset third = temp;
-        for (int i = 1; i < account.size(); i++) {
-            double gain = getGainforAsset(i);
-            if (gain > first.getTotalGain()) {
-                third = second;
-                second = first;
-                first = account.get(i);
-            } else if (gain >= second.getTotalGain()) {
-                third = second;
-                second = account.get(i);
-            } else if (gain >= third.getTotalGain()) {
-                third = account.get(i);
-            }
-        }
-        Asset[] result = new Asset[]{first, second, third};
-        return Arrays.asList(result);
+        return topK(3, RankingMetric.TOTAL_GAIN);
     }
 
-    // EFFECTS: returns the top three assets with the highest interests return
-    // when the account has less than 3 assets
-    private List<Asset> top3AssetsSpecial() {
-        List<Asset> top3 = new ArrayList<>();
-
-        if (!account.isEmpty()) {
-            if (account.size() == 1) {
-                top3.add(account.get(0));
-            } else {
-                Asset asset1 = account.get(0);
-                Asset asset2 = account.get(1);
-                if (asset1.getTotalGain() >= asset2.getTotalGain()) {
-                    top3.add(asset1);
-                    top3.add(asset2);
-                } else {
-                    top3.add(asset2);
-                    top3.add(asset1);
-                }
-            }
-        }
-        return top3;
+    // REQUIRES: k >= 0
+    // EFFECTS: returns the top k assets presently in the account by the given metric as of
+    //    the last refresh, from highest to lowest; the later added asset ranks higher if there is a tie
+    public List<Asset> topK(int k, RankingMetric metric) {
+        return book.topK(k, metric);
+    }
+
+    // REQUIRES: 0 <= index < numAssets()
+    // EFFECTS: returns the name of the asset at the given index of the account, without creating
+    // the asset if it was loaded lazily
+    public String nameAt(int index) {
+        return book.nameOf(account.slotAt(index));
+    }
+
+    // EFFECTS: returns a cursor over the valuation of every asset in the account and then every removed
+    // asset as of the last refresh, without creating the assets that were loaded lazily
+    public ValuationCursor valuations() {
+        return new ValuationCursor(book, account, assetsRemoved);
     }
 
-    // EFFECTS: gets the total gain of the asset at index i in the account
-    private double getGainforAsset(int i) {
-        return account.get(i).getTotalGain();
+    // EFFECTS: returns every asset in the account and then every removed asset, each in the order of its
+    // list, as a source that reads them from the book without creating the assets that were loaded lazily;
+    // the source follows later changes to the account
+    public AssetSource asSource() {
+        return new AccountSource(book, account, assetsRemoved);
     }
 
     // EFFECTS: returns the list of assets in the account in the order they were added
@@ -174,11 +345,15 @@ public class Account implements Writeable {
         return name;
     }
 
+    public void setName(String name) {
+        this.name = name;
+    }
+
     // EFFECTS: returns all the names of removed assets in the order they were removed
     public List<String> getNamesAssetsRemoved() {
         List<String> names = new ArrayList<>();
-        for (Asset a : assetsRemoved) {
-            names.add(a.getName());
+        for (int i = 0; i < assetsRemoved.size(); i++) {
+            names.add(book.nameOf(assetsRemoved.slotAt(i)));
         }
         return names;
     }
@@ -188,7 +363,7 @@ public class Account implements Writeable {
         JSONObject json = new JSONObject();
         json.put("user_name", name);
         json.put("accounts", accountsToJson());
-        EventLog.getInstance().logEvent(new Event("Changes saved to file."));
+        EventLog.getInstance().logEvent(new Event(Event.Type.CHANGES_SAVED, null));
         return json;
     }
 
@@ -0,0 +1,69 @@
+package model;
+
+import java.util.List;
+
+/*
+ * Loads assets into an account one at a time as a reader comes to them, creating the state of each
+ * straight in a new slot of the account's book rather than in a book of its own that is then copied.
+ * The result is the same as a bulkLoad of the assets in the order they were added: the ordered
+ * indexes are rebuilt when next used, one event is logged and the mutation listener is told about
+ * the assets once the load is finished, so withdrawals added to an asset before then are included.
+ */
+
+public class AccountLoader {
+    private final Account account;
+    private final int activeBefore;
+    private final int removedBefore;
+
+    // EFFECTS: starts loading into the given account, with room made for the given number of assets
+    AccountLoader(Account account, int expected) {
+        this.account = account;
+        this.activeBefore = account.account.size();
+        this.removedBefore = account.assetsRemoved.size();
+        account.book.beginBulk(expected);
+    }
+
+    // REQUIRES: termToMaturity > 0, interestBasisPoints > 0, principalCents >= 0, and the load is not finished
+    // MODIFIES: this
+    // EFFECTS: adds a new active asset with the given fields and no withdrawals to the account, or to the
+    // removed assets if removed is true, with its maturity date calculated, and returns it
+    public Asset add(String name, int termToMaturity, int interestBasisPoints, long principalCents,
+                     long investEpochDay, boolean removed) {
+        Asset asset = new Asset(account.book, name, termToMaturity, interestBasisPoints, principalCents,
+                investEpochDay);
+        if (removed) {
+            account.assetsRemoved.add(asset);
+            account.book.markRemoved(asset.getSlot());
+        } else {
+            account.account.add(asset);
+            account.indexName(asset);
+        }
+        return asset;
+    }
+
+    // REQUIRES: the last count assets added were added as active, and the load is not finished
+    // MODIFIES: this
+    // EFFECTS: moves the last count assets added to the removed assets, in order, as if they had been
+    // added as removed, for a reader that only learns whether they were removed after reading them; the
+    // names are indexed again when next looked up, since a moved asset may hide one of the same name
+    public void removeLast(int count) {
+        AssetList active = account.account;
+        int from = active.size() - count;
+        for (int i = from; i < active.size(); i++) {
+            account.assetsRemoved.addSlot(active.slotAt(i));
+            account.book.markRemoved(active.slotAt(i));
+        }
+        active.subList(from, active.size()).clear();
+        account.assetsByName = null;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: logs one event for the assets loaded and tells the mutation listener, if any, about them;
+    // the ordered indexes of the account are rebuilt when next used
+    public void finish() {
+        List<Asset> active = account.account.subList(activeBefore, account.account.size());
+        List<Asset> removed = account.assetsRemoved.subList(removedBefore, account.assetsRemoved.size());
+        EventLog.getInstance().logEvent(new Event(Event.Type.ASSETS_LOADED, active.size() + removed.size()));
+        account.notifyBulkLoad(active, removed);
+    }
+}
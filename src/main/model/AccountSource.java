@@ -0,0 +1,76 @@
+package model;
+
+/*
+ * The assets of an account seen as a source, the assets presently in the account first and then
+ * the removed ones, each in the order of its list. Every field is read from the book, and the name
+ * and withdrawals of an asset loaded lazily that has not been used yet from the source it was loaded
+ * from, so reading the whole account this way creates no assets.
+ */
+
+class AccountSource implements AssetSource {
+    private final AssetBook book;
+    private final AssetList account;
+    private final AssetList removed;
+
+    // EFFECTS: creates a source over the given assets and removed assets of the given book
+    AccountSource(AssetBook book, AssetList account, AssetList removed) {
+        this.book = book;
+        this.account = account;
+        this.removed = removed;
+    }
+
+    // EFFECTS: returns the slot of the i-th asset
+    private int slot(int i) {
+        return i < account.size() ? account.slotAt(i) : removed.slotAt(i - account.size());
+    }
+
+    @Override
+    public int size() {
+        return account.size() + removed.size();
+    }
+
+    @Override
+    public boolean isRemoved(int i) {
+        return i >= account.size();
+    }
+
+    @Override
+    public long getPrincipalCents(int i) {
+        return book.principal[slot(i)];
+    }
+
+    @Override
+    public int getInterestBasisPoints(int i) {
+        return book.interestRate[slot(i)];
+    }
+
+    @Override
+    public int getTermToMaturity(int i) {
+        return book.termToMaturity[slot(i)];
+    }
+
+    @Override
+    public long getInvestEpochDay(int i) {
+        return book.investDay[slot(i)];
+    }
+
+    @Override
+    public String getName(int i) {
+        return book.nameOf(slot(i));
+    }
+
+    @Override
+    public int getWithdrawalCount(int i) {
+        return book.withdrawalCountOf(slot(i));
+    }
+
+    @Override
+    public long getWithdrawalCents(int i, int k) {
+        return book.withdrawalCentsOf(slot(i), k);
+    }
+
+    @Override
+    public long getWithdrawalEpochDay(int i, int k) {
+        return book.withdrawalDayOf(slot(i), k);
+    }
+}
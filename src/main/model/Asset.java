@@ -3,83 +3,132 @@ package model;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
-import java.text.DecimalFormat;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
-import java.lang.Math;
 import java.util.ArrayList;
 import java.util.List;
 
 /*
  * A representation of an asset that has a fixed interest rate, fixed maturity term,
  * and the principal (amount invested) which can be withdrawn before maturity with
- * foreseen interest loss.
+ * foreseen interest loss. The numeric state of an asset lives in a slot of an AssetBook;
+ * the asset itself only holds its name and withdrawals. Amounts are kept in cents and the
+ * rate in basis points; the getters convert them back to dollars and decimal rates.
  */
 
 public class Asset implements Writeable {
-    private static final int DAYS_IN_YEAR = 365;
-    private static final DecimalFormat df = new DecimalFormat("0.0000");
-
     private String name;
-    private LocalDate investDate;
-    private LocalDate maturityDate;
-    private double principal; // in CAD
-    private int daysHeld;
-    private double fullReturn;
-    private boolean isActive;
-    private int termToMaturity; // in days
-    private double interestRate; // annually, in percentage
-    private double totalGain;
     private List<Withdrawal> withdrawList;
+    private AssetBook book;
+    private int slot;
 
     // REQUIRES: termToMaturity > 0, interestRate > 0 and <=2 decimal places, principal > 0 and <= 2 decimal places
     // EFFECTS: constructs a new active asset with the given term to maturity, interest rate,
     // initial principal, zero days held, zero full return, zero total gain,
     // the investment date and maturity date set to today, and an empty list of withdrawal
     public Asset(String name, int termToMaturity, double interestRate, double principal) {
+        this(name, termToMaturity, interestRate, principal, ValuationContext.now());
+    }
+
+    // REQUIRES: termToMaturity > 0, interestRate > 0 and <=2 decimal places, principal > 0 and <= 2 decimal places
+    // EFFECTS: constructs a new active asset as in the constructor above, with the investment date
+    // and maturity date set to the date of the given context
+    public Asset(String name, int termToMaturity, double interestRate, double principal,
+                 ValuationContext context) {
+        this(new AssetBook(1), name, termToMaturity, Money.percentToBasisPoints(interestRate),
+                Money.toCents(principal), context.getEpochDay());
+        book.setMaturityDay(slot, context.getEpochDay());
+    }
+
+    // REQUIRES: termToMaturity > 0, interestBasisPoints > 0, principalCents >= 0
+    // MODIFIES: book
+    // EFFECTS: constructs a new active asset with the given fields and an empty list of withdrawals, its
+    // state in a new slot of the given book and its maturity date calculated from the investment date
+    Asset(AssetBook book, String name, int termToMaturity, int interestBasisPoints, long principalCents,
+          long investEpochDay) {
         this.name = name;
-        this.termToMaturity = termToMaturity;
-        double interestRateInDecimal = interestRate / 100;
-        this.interestRate = Double.parseDouble(df.format(interestRateInDecimal));
-        this.principal = principal;
-
-        daysHeld = 0;
-        fullReturn = 0;
-        isActive = true;
-        totalGain = 0.0;
-        investDate = investDate.now();
-        maturityDate = investDate.now();
+        this.book = book;
+        slot = book.add(this);
+
+        book.termToMaturity[slot] = termToMaturity;
+        book.interestRate[slot] = interestBasisPoints;
+        book.principal[slot] = principalCents;
+        book.active[slot] = true;
+        book.investDay[slot] = investEpochDay;
+        book.setMaturityDay(slot, investEpochDay + termToMaturity);
         withdrawList = new ArrayList<>();
     }
 
+    // REQUIRES: the given slot of the given book holds the state of the asset
+    // MODIFIES: withdrawList
+    // EFFECTS: constructs a view onto the given slot of the given book with the given name and withdrawals
+    Asset(String name, List<Withdrawal> withdrawList, AssetBook book, int slot) {
+        this.name = name;
+        this.withdrawList = withdrawList;
+        this.book = book;
+        this.slot = slot;
+        for (Withdrawal w : withdrawList) {
+            w.setOwner(this);
+        }
+    }
+
+    // MODIFIES: this, target
+    // EFFECTS: moves the state of this asset into a new slot of the given book and
+    // makes this asset a view onto it; does nothing if it already lives in that book
+    void moveTo(AssetBook target) {
+        if (book != target) {
+            slot = target.copyFrom(book, slot, this);
+            book = target;
+        }
+    }
+
+    // EFFECTS: returns the book holding the state of this asset
+    AssetBook getBook() {
+        return book;
+    }
+
+    // EFFECTS: returns the slot of this asset in its book
+    int getSlot() {
+        return slot;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: marks this asset for revaluation on the next refresh of its book
+    void markDirty() {
+        book.markDirty(slot);
+    }
+
     // MODIFIES: this
     // EFFECTS: updates and returns the days that the asset has been held
     public int calculateDaysHeld() {
-        LocalDate currentDate = LocalDate.now();
-        daysHeld = (int) ChronoUnit.DAYS.between(investDate, currentDate);
-        return daysHeld;
+        return calculateDaysHeld(ValuationContext.now());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: updates and returns the days that the asset has been held as of the context date
+    public int calculateDaysHeld(ValuationContext context) {
+        book.daysHeld[slot] = (int) (context.getEpochDay() - book.investDay[slot]);
+        return book.daysHeld[slot];
     }
 
     // MODIFIES: this
     // EFFECTS: updates and returns period-to-date interest with the current principal
     public double calculateFullReturn() {
-        fullReturn = calculateReturn(termToMaturity, principal);
-        return fullReturn;
+        book.fullReturn[slot] = calculateReturn(getTermToMaturity(), book.principal[slot]);
+        return getFullReturn();
     }
 
     // MODIFIES: this
     // EFFECTS: updates and returns the date of maturity
     public LocalDate calculateMaturityDate() {
-        maturityDate = investDate.plusDays(termToMaturity);
-        return maturityDate;
+        markDirty();
+        book.setMaturityDay(slot, book.investDay[slot] + getTermToMaturity());
+        return getMaturityDate();
     }
 
     // REQUIRES: days > 0, amount > 0
-    // Effects: returns the interest return for the given days and the given amount
-    private double calculateReturn(int days, double amount) {
-        double dailyInterestRate = interestRate / DAYS_IN_YEAR;
-        double interest = amount * dailyInterestRate * days;
-        return Math.round(interest * 100) / 100.0;
+    // Effects: returns the interest return in cents for the given days and the given amount in cents
+    private long calculateReturn(int days, long amount) {
+        return Money.interest(book.interestRate[slot], days, amount);
     }
 
     // REQUIRES: principal > 0; 0 < amount <= principal; getActiveStatus == true
@@ -87,55 +136,109 @@ public class Asset implements Writeable {
     // EFFECTS: adds the withdrawal attempt to the list of withdrawal;
     // decreases principal by the given amount; deactivates the asset if the principal becomes 0
     public void withdrawEarly(double amount) {
-        Withdrawal newWithdrawal = new Withdrawal(amount);
-        withdrawList.add(newWithdrawal);
-        principal -= amount;
-        if (getPrincipal() == 0) {
+        withdrawEarly(amount, ValuationContext.now());
+    }
+
+    // REQUIRES: principal > 0; 0 < amount <= principal; getActiveStatus == true
+    // MODIFIES: this
+    // EFFECTS: same as withdrawEarly(amount), with the withdrawal dated on the context date
+    public void withdrawEarly(double amount, ValuationContext context) {
+        Withdrawal newWithdrawal = new Withdrawal(amount, context.getDate());
+        addWithdrawal(newWithdrawal);
+        book.principal[slot] -= newWithdrawal.getAmountCents();
+        if (book.principal[slot] == 0) {
             deActivate();
         }
+        EventLog.getInstance().logEvent(new Event(Event.Type.ASSET_WITHDRAWN, name));
+        if (book.listener != null) {
+            book.listener.withdrawn(this, newWithdrawal);
+        }
+    }
+
+    // MODIFIES: this, withdrawal
+    // EFFECTS: records a past withdrawal on this asset without changing the principal
+    public void addWithdrawal(Withdrawal withdrawal) {
+        withdrawal.setOwner(this);
+        withdrawList.add(withdrawal);
+        book.withdrawalInterest[slot] += calculateWithdrawalInterest(withdrawal);
+        markDirty();
     }
 
     // MODIFIES: this
     // EFFECTS: updates the possible total interests gain to "today";
     // if it is expired, uses the total gain got before
     public void refreshTotalGain() {
-        double result;
-        if (isExpired()) {
-            result = calculateFullReturn();
+        refreshTotalGain(ValuationContext.now());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: updates the possible total interests gain as of the context date;
+    // if it is expired, uses the total gain got before
+    public void refreshTotalGain(ValuationContext context) {
+        long result;
+        if (isExpired(context)) {
+            calculateFullReturn();
+            result = book.fullReturn[slot];
         } else {
-            result = calculateCurrentGain(principal);
+            result = calculateCurrentGain(book.principal[slot], context);
         }
-        for (Withdrawal w : getWithdrawList()) {
-            int days = (int) ChronoUnit.DAYS.between(investDate, w.getDate());
-            result += calculateReturn(days, w.getAmount());
+        book.setTotalGain(slot, result + book.withdrawalInterest[slot]);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: recomputes the cached interest earned by all withdrawals from the withdrawal list;
+    // marks this asset for revaluation
+    void recalculateWithdrawalInterest() {
+        long result = 0;
+        for (Withdrawal w : withdrawList) {
+            result += calculateWithdrawalInterest(w);
         }
-        totalGain = result;
+        book.withdrawalInterest[slot] = result;
+        markDirty();
+    }
+
+    // EFFECTS: returns the interest in cents earned by the withdrawn amount up to its withdrawal date
+    private long calculateWithdrawalInterest(Withdrawal w) {
+        int days = (int) (w.getDate().toEpochDay() - book.investDay[slot]);
+        return calculateReturn(days, w.getAmountCents());
     }
 
     // REQUIRES: getActiveStatus == true
-    // EFFECTS: returns the interest to today (exclude the principal);
-    private double calculateCurrentGain(double amount) {
-        int days = calculateDaysHeld();
+    // EFFECTS: returns the interest in cents to the context date (exclude the principal);
+    private long calculateCurrentGain(long amount, ValuationContext context) {
+        int days = calculateDaysHeld(context);
         return calculateReturn(days, amount);
     }
 
     // EFFECTS: returns the potential loss if withdraw "today" before maturity
     public double calculatePotentialLoss(double amount) {
-        return calculateReturn(termToMaturity, amount) - calculateCurrentGain(amount);
+        return calculatePotentialLoss(amount, ValuationContext.now());
+    }
+
+    // EFFECTS: returns the potential loss if withdraw on the context date before maturity
+    public double calculatePotentialLoss(double amount, ValuationContext context) {
+        long cents = Money.toCents(amount);
+        return Money.toDollars(calculateReturn(getTermToMaturity(), cents) - calculateCurrentGain(cents, context));
     }
 
     // MODIFIES: this
     // EFFECTS: deactivates the asset if the asset has expired
     public void refreshStatus() {
-        if (isExpired() || principal == 0) {
+        refreshStatus(ValuationContext.now());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: deactivates the asset if the asset has expired as of the context date
+    public void refreshStatus(ValuationContext context) {
+        if (isExpired(context) || book.principal[slot] == 0) {
             deActivate();
         }
     }
 
     // EFFECTS: returns true if the asset has expired (strictly passed the maturity date)
-    private boolean isExpired() {
-        LocalDate currentDate = LocalDate.now();
-        return currentDate.isAfter(maturityDate);
+    // as of the context date
+    private boolean isExpired(ValuationContext context) {
+        return context.getEpochDay() > book.maturityDay[slot];
     }
 
     // REQUIRES: 1 <= month <= 12, day takes integers from 1 to 28/29/30/31 based on the month
@@ -143,12 +246,18 @@ public class Asset implements Writeable {
     // EFFECTS: sets the investment date to given month, day, year;
     // updates the maturity date accordingly
     public void setInvestDate(int month, int day, int year) {
-        this.investDate = LocalDate.of(year, month, day);
-        this.maturityDate = calculateMaturityDate();
+        book.investDay[slot] = LocalDate.of(year, month, day).toEpochDay();
+        calculateMaturityDate();
+        if (!withdrawList.isEmpty()) {
+            recalculateWithdrawalInterest();
+        }
+        if (book.listener != null) {
+            book.listener.investDateSet(this);
+        }
     }
 
     public void deActivate() {
-        this.isActive = false;
+        book.active[slot] = false;
     }
 
     public String getName() {
@@ -156,39 +265,51 @@ public class Asset implements Writeable {
     }
 
     public double getPrincipal() {
-        return principal;
+        return Money.toDollars(book.principal[slot]);
+    }
+
+    public long getPrincipalCents() {
+        return book.principal[slot];
     }
 
     public double getTotalGain() {
-        return totalGain;
+        return Money.toDollars(book.totalGain[slot]);
     }
 
     public int getTermToMaturity() {
-        return termToMaturity;
+        return book.termToMaturity[slot];
     }
 
     public double getInterestRate() {
-        return interestRate;
+        return Money.basisPointsToDecimal(book.interestRate[slot]);
+    }
+
+    public int getInterestBasisPoints() {
+        return book.interestRate[slot];
     }
 
     public boolean getActivatedStatus() {
-        return isActive;
+        return book.active[slot];
     }
 
     public int getDaysHeld() {
-        return daysHeld;
+        return book.daysHeld[slot];
     }
 
     public double getFullReturn() {
-        return fullReturn;
+        return Money.toDollars(book.fullReturn[slot]);
     }
 
     public LocalDate getInvestDate() {
-        return investDate;
+        return LocalDate.ofEpochDay(book.investDay[slot]);
+    }
+
+    public long getInvestEpochDay() {
+        return book.investDay[slot];
     }
 
     public LocalDate getMaturityDate() {
-        return maturityDate;
+        return LocalDate.ofEpochDay(book.maturityDay[slot]);
     }
 
     public List<Withdrawal> getWithdrawList() {
@@ -206,10 +327,10 @@ public class Asset implements Writeable {
     // EFFECTS: returns fields as JSON Array
     private JSONObject fieldsToJson() {
         JSONObject features = new JSONObject();
-        features.put("interestRate", interestRate);
-        features.put("termToMaturity", termToMaturity);
-        features.put("investDate", investDate);
-        features.put("principal", principal);
+        features.put("interestRate", getInterestRate());
+        features.put("termToMaturity", getTermToMaturity());
+        features.put("investDate", getInvestDate());
+        features.put("principal", getPrincipal());
         features.put("withdrawList", withdrawListToJson());
         return features;
     }
@@ -0,0 +1,663 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/*
+ * A columnar store of the numeric state of assets. Each asset occupies one slot, and its
+ * principal, rate, term, dates and gains are kept in parallel primitive arrays so that
+ * account-wide passes run as tight loops over the columns. An Asset is a view onto a slot.
+ * Slots whose inputs change are marked dirty, so a refresh on the same valuation date only
+ * revalues the dirty slots; a new valuation date revalues every slot.
+ * Slots can also be filled from an AssetSource without creating their assets; the asset of such
+ * a slot is created from the source when the slot is first viewed, and the interest earned by its
+ * withdrawals is only read from the source on the first refresh, so filling the slots reads no more
+ * of the source than the numeric fields. The maturity index is a sorted primitive array of keys
+ * that is built the first time a status refresh or a maturity query needs it, and dropped by a
+ * bulk load rather than rebuilt, so loading many assets creates no objects per asset.
+ */
+
+public class AssetBook {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final long NEVER_VALUED = Long.MIN_VALUE;
+    private static final long UNREAD_INTEREST = Long.MIN_VALUE;
+    static final int PARALLEL_THRESHOLD = 8192;
+
+    private int size;
+    private Asset[] views;
+    private boolean[] dirty;
+    private int[] dirtySlots;
+    private int dirtyCount;
+    private long valuedDay;
+    private TreeSet<Integer> gainIndex;
+    private SortedKeys maturityIndex;
+    private boolean indexingMaturities;
+    private long statusFromDay;
+    private AssetSource source;
+    private int sourceBase;
+    private boolean interestUnread;
+    MutationListener listener;
+    long[] principal; // in cents of CAD
+    int[] interestRate; // annually, in basis points
+    int[] termToMaturity; // in days
+    long[] investDay; // epoch day
+    long[] maturityDay; // epoch day
+    int[] daysHeld;
+    long[] fullReturn; // in cents
+    long[] totalGain; // in cents
+    long[] withdrawalInterest; // in cents, earned by past withdrawals
+    boolean[] active;
+    boolean[] removed;
+
+    // EFFECTS: creates an empty book with a default capacity
+    public AssetBook() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    // REQUIRES: capacity > 0
+    // EFFECTS: creates an empty book with room for the given number of assets
+    public AssetBook(int capacity) {
+        views = new Asset[capacity];
+        dirty = new boolean[capacity];
+        dirtySlots = new int[capacity];
+        valuedDay = NEVER_VALUED;
+        statusFromDay = NEVER_VALUED;
+        principal = new long[capacity];
+        interestRate = new int[capacity];
+        termToMaturity = new int[capacity];
+        investDay = new long[capacity];
+        maturityDay = new long[capacity];
+        daysHeld = new int[capacity];
+        fullReturn = new long[capacity];
+        totalGain = new long[capacity];
+        withdrawalInterest = new long[capacity];
+        active = new boolean[capacity];
+        removed = new boolean[capacity];
+    }
+
+    // MODIFIES: this
+    // EFFECTS: allocates a new slot for the given view and returns its index;
+    // the slot starts dirty with all numeric fields at zero
+    int add(Asset view) {
+        ensureCapacity(size + 1);
+        views[size] = view;
+        markDirty(size);
+        if (gainIndex != null) {
+            gainIndex.add(size);
+        }
+        if (maturityIndex != null) {
+            maturityIndex.add(maturityKey(maturityDay[size], size));
+        }
+        return size++;
+    }
+
+    // REQUIRES: no slots of this book were filled from a source before
+    // MODIFIES: this
+    // EFFECTS: adds a slot for each asset in the source, filled from its numeric fields, without
+    // creating the assets, and returns the first of the new slots
+    int addFrom(AssetSource source) {
+        this.source = source;
+        sourceBase = size;
+        ensureCapacity(size + source.size());
+        for (int i = 0; i < source.size(); i++) {
+            int slot = add(null);
+            principal[slot] = source.getPrincipalCents(i);
+            interestRate[slot] = source.getInterestBasisPoints(i);
+            termToMaturity[slot] = source.getTermToMaturity(i);
+            investDay[slot] = source.getInvestEpochDay(i);
+            setMaturityDay(slot, investDay[slot] + termToMaturity[slot]);
+            withdrawalInterest[slot] = UNREAD_INTEREST;
+            active[slot] = true;
+            if (source.isRemoved(i)) {
+                markRemoved(slot);
+            }
+        }
+        interestUnread = source.size() > 0;
+        return sourceBase;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the interest earned by the withdrawals of every slot filled from the source
+    // whose interest has not been read yet
+    private void readWithdrawalInterest() {
+        if (interestUnread) {
+            for (int slot = sourceBase; slot < sourceBase + source.size(); slot++) {
+                withdrawalInterestOf(slot);
+            }
+            interestUnread = false;
+        }
+    }
+
+    // REQUIRES: 0 <= slot < size()
+    // MODIFIES: this
+    // EFFECTS: returns the interest in cents earned by the past withdrawals from the asset of the
+    // given slot, reading it from the source first if the slot was filled from one and it is unread
+    long withdrawalInterestOf(int slot) {
+        if (withdrawalInterest[slot] == UNREAD_INTEREST) {
+            withdrawalInterest[slot] = sourcedWithdrawalInterest(slot);
+        }
+        return withdrawalInterest[slot];
+    }
+
+    // EFFECTS: returns the interest in cents earned by the withdrawals in the source from the asset
+    // of the given slot, as Asset computes it from its withdrawal list
+    private long sourcedWithdrawalInterest(int slot) {
+        int i = slot - sourceBase;
+        long result = 0;
+        for (int k = 0; k < source.getWithdrawalCount(i); k++) {
+            int days = (int) (source.getWithdrawalEpochDay(i, k) - investDay[slot]);
+            result += Money.interest(interestRate[slot], days, source.getWithdrawalCents(i, k));
+        }
+        return result;
+    }
+
+    // EFFECTS: returns a new asset viewing the given slot, with the name and withdrawals of its
+    // asset in the source
+    private Asset createFromSource(int slot) {
+        int i = slot - sourceBase;
+        List<Withdrawal> withdrawals = new ArrayList<>(source.getWithdrawalCount(i));
+        for (int k = 0; k < source.getWithdrawalCount(i); k++) {
+            withdrawals.add(new Withdrawal(Money.toDollars(source.getWithdrawalCents(i, k)),
+                    LocalDate.ofEpochDay(source.getWithdrawalEpochDay(i, k))));
+        }
+        withdrawalInterestOf(slot);
+        return new Asset(source.getName(i), withdrawals, this, slot);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: starts keeping the slots that are not removed ordered by maturity date, so that a status
+    // refresh only visits the slots that matured since the last one; the index is built when first needed
+    void indexMaturities() {
+        indexingMaturities = true;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the keys of the slots that are not removed ordered by maturity date, building
+    // them first if they were dropped or never built; a status refresh after a build visits every key
+    private SortedKeys maturityIndex() {
+        if (maturityIndex == null) {
+            long[] keys = new long[size];
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                if (!removed[i]) {
+                    keys[n++] = maturityKey(maturityDay[i], i);
+                }
+            }
+            maturityIndex = new SortedKeys(keys, n);
+            statusFromDay = NEVER_VALUED;
+        }
+        return maturityIndex;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: makes room for the given number of further slots and drops the ordered indexes, so that
+    // a bulk load does not update them once per slot; they are built again when next used
+    void beginBulk(int extra) {
+        ensureCapacity(size + extra);
+        maturityIndex = null;
+        gainIndex = null;
+    }
+
+    // EFFECTS: returns the key of a slot in the maturity index, ordering by maturity day then slot
+    private static long maturityKey(long day, int slot) {
+        return (day << 32) | slot;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: marks the given slot as needing revaluation on the next refresh
+    void markDirty(int slot) {
+        if (!dirty[slot]) {
+            dirty[slot] = true;
+            dirtySlots[dirtyCount++] = slot;
+        }
+    }
+
+
+    // MODIFIES: this
+    // EFFECTS: copies the state in slot of the given book into a new slot of this book
+    // and returns the new slot
+    int copyFrom(AssetBook other, int slot, Asset view) {
+        int i = add(view);
+        principal[i] = other.principal[slot];
+        interestRate[i] = other.interestRate[slot];
+        termToMaturity[i] = other.termToMaturity[slot];
+        investDay[i] = other.investDay[slot];
+        setMaturityDay(i, other.maturityDay[slot]);
+        daysHeld[i] = other.daysHeld[slot];
+        fullReturn[i] = other.fullReturn[slot];
+        withdrawalInterest[i] = other.withdrawalInterestOf(slot);
+        setTotalGain(i, other.totalGain[slot]);
+        active[i] = other.active[slot];
+        if (other.removed[slot]) {
+            markRemoved(i);
+        }
+        return i;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: grows the columns so that at least the given number of slots fit
+    private void ensureCapacity(int capacity) {
+        if (capacity <= views.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, views.length * 2);
+        views = Arrays.copyOf(views, newCapacity);
+        dirty = Arrays.copyOf(dirty, newCapacity);
+        dirtySlots = Arrays.copyOf(dirtySlots, newCapacity);
+        principal = Arrays.copyOf(principal, newCapacity);
+        interestRate = Arrays.copyOf(interestRate, newCapacity);
+        termToMaturity = Arrays.copyOf(termToMaturity, newCapacity);
+        investDay = Arrays.copyOf(investDay, newCapacity);
+        maturityDay = Arrays.copyOf(maturityDay, newCapacity);
+        daysHeld = Arrays.copyOf(daysHeld, newCapacity);
+        fullReturn = Arrays.copyOf(fullReturn, newCapacity);
+        totalGain = Arrays.copyOf(totalGain, newCapacity);
+        withdrawalInterest = Arrays.copyOf(withdrawalInterest, newCapacity);
+        active = Arrays.copyOf(active, newCapacity);
+        removed = Arrays.copyOf(removed, newCapacity);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: marks the asset in the given slot as removed and deactivates it
+    void markRemoved(int slot) {
+        if (gainIndex != null) {
+            gainIndex.remove(slot);
+        }
+        if (maturityIndex != null) {
+            maturityIndex.remove(maturityKey(maturityDay[slot], slot));
+        }
+        removed[slot] = true;
+        active[slot] = false;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sets the maturity day of the given slot, keeping the maturity index in order;
+    // a slot moved to a day whose status was already refreshed is checked again on the next refresh
+    void setMaturityDay(int slot, long day) {
+        if (maturityIndex != null && !removed[slot]) {
+            maturityIndex.remove(maturityKey(maturityDay[slot], slot));
+            maturityIndex.add(maturityKey(day, slot));
+            statusFromDay = Math.min(statusFromDay, day);
+        }
+        maturityDay[slot] = day;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sets the total gain of the given slot, keeping the gain index in order
+    void setTotalGain(int slot, long gain) {
+        if (gainIndex != null && !removed[slot]) {
+            gainIndex.remove(slot);
+            totalGain[slot] = gain;
+            gainIndex.add(slot);
+        } else {
+            totalGain[slot] = gain;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: refreshes the status, total gain and days held as of the context date;
+    // revalues every slot if the date differs from the last refresh, otherwise only the dirty slots
+    public void refresh(ValuationContext context) {
+        refresh(context, false);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: same as refresh(context); if parallel is true and the book is large, a revaluation
+    // of every slot is split into fork/join tasks on the common pool
+    public void refresh(ValuationContext context, boolean parallel) {
+        long today = context.getEpochDay();
+        readWithdrawalInterest();
+        refreshStatus(context);
+        if (today != valuedDay) {
+            if (parallel && size >= PARALLEL_THRESHOLD) {
+                gainIndex = null;
+                ForkJoinPool.commonPool().invoke(new RefreshTask(0, size, today));
+            } else {
+                refreshRange(0, size, today);
+            }
+            valuedDay = today;
+        } else {
+            for (int j = 0; j < dirtyCount; j++) {
+                refreshSlot(dirtySlots[j], today);
+            }
+        }
+        for (int j = 0; j < dirtyCount; j++) {
+            dirty[dirtySlots[j]] = false;
+        }
+        dirtyCount = 0;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: deactivates the slots that have expired or have no principal as of the context date;
+    // with a maturity index, only visits the slots that matured since the last status refresh
+    // and the dirty slots
+    public void refreshStatus(ValuationContext context) {
+        long today = context.getEpochDay();
+        if (!indexingMaturities) {
+            for (int i = 0; i < size; i++) {
+                refreshSlotStatus(i, today);
+            }
+            return;
+        }
+        SortedKeys index = maturityIndex();
+        if (statusFromDay < today) {
+            long from = statusFromDay == NEVER_VALUED ? Long.MIN_VALUE : maturityKey(statusFromDay, 0);
+            int end = index.ceiling(maturityKey(today, 0));
+            for (int k = index.ceiling(from); k < end; k++) {
+                active[(int) index.get(k)] = false;
+            }
+            statusFromDay = today;
+        }
+        for (int j = 0; j < dirtyCount; j++) {
+            refreshSlotStatus(dirtySlots[j], today);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: deactivates the given slot if it has expired or has no principal as of the given epoch day
+    private void refreshSlotStatus(int i, long today) {
+        if (today > maturityDay[i] || principal[i] == 0) {
+            active[i] = false;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: refreshes the slots from start (inclusive) to end (exclusive) as of the given epoch day
+    private void refreshRange(int start, int end, long today) {
+        for (int i = start; i < end; i++) {
+            refreshSlot(i, today);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: refreshes the total gain and days held of the given slot as of the given epoch day
+    private void refreshSlot(int i, long today) {
+        int days = (int) (today - investDay[i]);
+        boolean expired = today > maturityDay[i];
+        long gain;
+        if (expired) {
+            fullReturn[i] = Money.interest(interestRate[i], termToMaturity[i], principal[i]);
+            gain = fullReturn[i];
+        } else {
+            gain = Money.interest(interestRate[i], days, principal[i]);
+        }
+        setTotalGain(i, gain + withdrawalInterest[i]);
+        daysHeld[i] = days;
+    }
+
+    // REQUIRES: fromDay <= toDay
+    // EFFECTS: returns the assets that are not removed and mature from fromDay to toDay (both inclusive,
+    // in epoch days), in order of maturity date
+    public List<Asset> maturingBetween(long fromDay, long toDay) {
+        List<Asset> result = new ArrayList<>();
+        SortedKeys index = maturityIndex();
+        int end = index.ceiling(maturityKey(toDay + 1, 0));
+        for (int k = index.ceiling(maturityKey(fromDay, 0)); k < end; k++) {
+            result.add(view((int) index.get(k)));
+        }
+        return result;
+    }
+
+    // REQUIRES: bucketDays > 0, numBuckets >= 0
+    // EFFECTS: returns numBuckets consecutive buckets of bucketDays days each starting on fromDay (in epoch
+    // days), each with the number and total principal of assets that are not removed and mature within it
+    public List<MaturityBucket> maturityCalendar(long fromDay, int bucketDays, int numBuckets) {
+        List<MaturityBucket> result = new ArrayList<>(numBuckets);
+        SortedKeys index = maturityIndex();
+        for (int b = 0; b < numBuckets; b++) {
+            long start = fromDay + (long) b * bucketDays;
+            long end = start + bucketDays - 1;
+            int from = index.ceiling(maturityKey(start, 0));
+            int to = index.ceiling(maturityKey(end + 1, 0));
+            long principalSum = 0;
+            for (int k = from; k < to; k++) {
+                principalSum += principal[(int) index.get(k)];
+            }
+            int count = to - from;
+            result.add(new MaturityBucket(LocalDate.ofEpochDay(start), LocalDate.ofEpochDay(end), count,
+                    principalSum));
+        }
+        return result;
+    }
+
+    // EFFECTS: returns the number of slots waiting to be revalued
+    public int numDirty() {
+        return dirtyCount;
+    }
+
+    // EFFECTS: returns the sum of total gains in cents of all slots, including removed ones
+    public long sumTotalGain() {
+        return sumTotalGain(false);
+    }
+
+    // EFFECTS: same as sumTotalGain(); if parallel is true and the book is large, the sum is split
+    // into fork/join tasks on the common pool. Gains are whole cents, so the result is exact and
+    // does not depend on how the slots are split.
+    public long sumTotalGain(boolean parallel) {
+        if (parallel && size >= PARALLEL_THRESHOLD) {
+            return ForkJoinPool.commonPool().invoke(new SumTask(0, size));
+        }
+        return sumRange(0, size);
+    }
+
+    // EFFECTS: returns the sum of total gains in cents of the slots from start (inclusive) to end (exclusive)
+    private long sumRange(int start, int end) {
+        long gain = 0;
+        for (int i = start; i < end; i++) {
+            gain += totalGain[i];
+        }
+        return gain;
+    }
+
+    // EFFECTS: returns the number of slots that are active and not removed
+    public int countActive() {
+        int result = 0;
+        for (int i = 0; i < size; i++) {
+            if (active[i] && !removed[i]) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    // REQUIRES: k >= 0
+    // EFFECTS: returns the k assets that are not removed with the highest value of the metric,
+    // from highest to lowest; the later added asset ranks higher if there is a tie
+    public List<Asset> topK(int k, RankingMetric metric) {
+        if (metric == RankingMetric.TOTAL_GAIN) {
+            return topKFromIndex(k);
+        }
+        return topKFromHeap(k, metric);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the top k assets by total gain from the gain index, building it on first use
+    private List<Asset> topKFromIndex(int k) {
+        if (gainIndex == null) {
+            gainIndex = new TreeSet<>(ranking(RankingMetric.TOTAL_GAIN).reversed());
+            for (int i = 0; i < size; i++) {
+                if (!removed[i]) {
+                    gainIndex.add(i);
+                }
+            }
+        }
+        List<Asset> result = new ArrayList<>(Math.min(k, gainIndex.size()));
+        for (int i : gainIndex) {
+            if (result.size() == k) {
+                break;
+            }
+            result.add(view(i));
+        }
+        return result;
+    }
+
+    // EFFECTS: returns the top k assets by the metric using a bounded heap over all slots
+    private List<Asset> topKFromHeap(int k, RankingMetric metric) {
+        List<Asset> result = new ArrayList<>();
+        if (k == 0) {
+            return result;
+        }
+        Comparator<Integer> ranking = ranking(metric);
+        PriorityQueue<Integer> heap = new PriorityQueue<>(k, ranking);
+        for (int i = 0; i < size; i++) {
+            if (removed[i]) {
+                continue;
+            }
+            if (heap.size() < k) {
+                heap.add(i);
+            } else if (ranking.compare(i, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(i);
+            }
+        }
+        while (!heap.isEmpty()) {
+            result.add(view(heap.poll()));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    // EFFECTS: returns an ordering of slots from lowest to highest value of the metric,
+    // with the earlier added slot lower if there is a tie
+    private Comparator<Integer> ranking(RankingMetric metric) {
+        return (a, b) -> {
+            int result = Long.compare(metricOf(a, metric), metricOf(b, metric));
+            return result != 0 ? result : Integer.compare(a, b);
+        };
+    }
+
+    // EFFECTS: returns the value of the metric for the given slot as of the last refresh,
+    // in cents for amounts and basis points for rates
+    long metricOf(int slot, RankingMetric metric) {
+        switch (metric) {
+            case INTEREST_RATE:
+                return interestRate[slot];
+            case PRINCIPAL:
+                return principal[slot];
+            case POTENTIAL_LOSS:
+                return Money.interest(interestRate[slot], termToMaturity[slot], principal[slot])
+                        - Money.interest(interestRate[slot], daysHeld[slot], principal[slot]);
+            default:
+                return totalGain[slot];
+        }
+    }
+
+    // EFFECTS: returns the number of slots in the book
+    public int size() {
+        return size;
+    }
+
+    // REQUIRES: 0 <= slot < size()
+    // MODIFIES: this
+    // EFFECTS: returns the asset viewing the given slot, creating it from the source if the slot
+    // was filled from one and has not been viewed before
+    public Asset view(int slot) {
+        if (views[slot] == null && source != null) {
+            views[slot] = createFromSource(slot);
+        }
+        return views[slot];
+    }
+
+    // REQUIRES: 0 <= slot < size()
+    // EFFECTS: returns the name of the asset in the given slot, without creating the asset
+    public String nameOf(int slot) {
+        return views[slot] != null ? views[slot].getName() : source.getName(slot - sourceBase);
+    }
+
+    // REQUIRES: 0 <= slot < size()
+    // EFFECTS: returns the number of withdrawals from the asset in the given slot, without creating the asset
+    public int withdrawalCountOf(int slot) {
+        return views[slot] != null ? views[slot].getWithdrawList().size()
+                : source.getWithdrawalCount(slot - sourceBase);
+    }
+
+    // REQUIRES: 0 <= slot < size(), 0 <= k < withdrawalCountOf(slot)
+    // EFFECTS: returns the amount in cents of the k-th withdrawal from the asset in the given slot,
+    // without creating the asset
+    public long withdrawalCentsOf(int slot, int k) {
+        return views[slot] != null ? views[slot].getWithdrawList().get(k).getAmountCents()
+                : source.getWithdrawalCents(slot - sourceBase, k);
+    }
+
+    // REQUIRES: 0 <= slot < size(), 0 <= k < withdrawalCountOf(slot)
+    // EFFECTS: returns the date as an epoch day of the k-th withdrawal from the asset in the given slot,
+    // without creating the asset
+    public long withdrawalDayOf(int slot, int k) {
+        return views[slot] != null ? views[slot].getWithdrawList().get(k).getDate().toEpochDay()
+                : source.getWithdrawalEpochDay(slot - sourceBase, k);
+    }
+
+    // REQUIRES: 0 <= slot < size()
+    // EFFECTS: returns true if the asset in the given slot has been removed from its account
+    public boolean isRemoved(int slot) {
+        return removed[slot];
+    }
+
+    // REQUIRES: 0 <= slot < size()
+    // EFFECTS: returns the total gain in cents of the asset in the given slot
+    public long getTotalGain(int slot) {
+        return totalGain[slot];
+    }
+
+    // Represents a task that refreshes a range of slots, splitting it in half until it is small
+    private class RefreshTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private int start;
+        private int end;
+        private long today;
+
+        // EFFECTS: creates a task refreshing the slots from start (inclusive) to end (exclusive)
+        RefreshTask(int start, int end, long today) {
+            this.start = start;
+            this.end = end;
+            this.today = today;
+        }
+
+        // MODIFIES: AssetBook.this
+        // EFFECTS: refreshes the range directly if it is small, otherwise forks two halves
+        @Override
+        protected void compute() {
+            if (end - start <= PARALLEL_THRESHOLD) {
+                refreshRange(start, end, today);
+            } else {
+                int mid = (start + end) >>> 1;
+                invokeAll(new RefreshTask(start, mid, today), new RefreshTask(mid, end, today));
+            }
+        }
+    }
+
+    // Represents a task that sums the total gains of a range of slots
+    private class SumTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+        private int start;
+        private int end;
+
+        // EFFECTS: creates a task summing the slots from start (inclusive) to end (exclusive)
+        SumTask(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        // EFFECTS: sums the range directly if it is small, otherwise forks two halves and adds them
+        @Override
+        protected Long compute() {
+            if (end - start <= PARALLEL_THRESHOLD) {
+                return sumRange(start, end);
+            }
+            int mid = (start + end) >>> 1;
+            SumTask left = new SumTask(start, mid);
+            left.fork();
+            long right = new SumTask(mid, end).compute();
+            return left.join() + right;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/*
+ * A list of assets kept as the slots they occupy in one book. An asset is looked up in the
+ * book when it is read from the list, so the assets of slots loaded lazily are only created
+ * once they are read.
+ */
+
+class AssetList extends AbstractList<Asset> implements RandomAccess {
+    private final AssetBook book;
+    private int[] slots = new int[16];
+    private int size;
+
+    // EFFECTS: creates an empty list of assets in the given book
+    AssetList(AssetBook book) {
+        this.book = book;
+    }
+
+    @Override
+    public Asset get(int index) {
+        return book.view(slotAt(index));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // REQUIRES: asset lives in the book of this list
+    // MODIFIES: this
+    // EFFECTS: inserts the given asset at the given index
+    @Override
+    public void add(int index, Asset asset) {
+        Objects.checkIndex(index, size + 1);
+        ensureCapacity(size + 1);
+        System.arraycopy(slots, index, slots, index + 1, size - index);
+        slots[index] = asset.getSlot();
+        size++;
+        modCount++;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: removes the asset at the given index and returns it
+    @Override
+    public Asset remove(int index) {
+        Asset asset = get(index);
+        System.arraycopy(slots, index + 1, slots, index, size - index - 1);
+        size--;
+        modCount++;
+        return asset;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: removes the first occurrence of the given asset, if any, and returns true if it was found
+    @Override
+    public boolean remove(Object o) {
+        int index = indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: removes the assets from fromIndex (inclusive) to toIndex (exclusive) in one move
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        System.arraycopy(slots, toIndex, slots, fromIndex, size - toIndex);
+        size -= toIndex - fromIndex;
+        modCount++;
+    }
+
+    // EFFECTS: returns the index of the first occurrence of the given asset, or -1 if there is none;
+    // compares slots, so the assets of other slots are not created
+    @Override
+    public int indexOf(Object o) {
+        if (o instanceof Asset && ((Asset) o).getBook() == book) {
+            int slot = ((Asset) o).getSlot();
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends the asset in the given slot of the book, without looking it up
+    void addSlot(int slot) {
+        ensureCapacity(size + 1);
+        slots[size++] = slot;
+        modCount++;
+    }
+
+    // EFFECTS: returns the slot of the asset at the given index
+    int slotAt(int index) {
+        Objects.checkIndex(index, size);
+        return slots[index];
+    }
+
+    // MODIFIES: this
+    // EFFECTS: grows the list so that at least the given number of assets fit
+    void ensureCapacity(int capacity) {
+        if (capacity > slots.length) {
+            slots = Arrays.copyOf(slots, Math.max(capacity, slots.length * 2));
+        }
+    }
+}
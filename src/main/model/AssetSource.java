@@ -0,0 +1,39 @@
+package model;
+
+/*
+ * Represents a store of assets that an account can load lazily: the numeric fields of every
+ * asset are read when the account is loaded, but an Asset with its name and withdrawals is
+ * only created when it is first used. The assets are numbered from 0.
+ */
+
+public interface AssetSource {
+    // EFFECTS: returns the number of assets in the store
+    int size();
+
+    // EFFECTS: returns true if the i-th asset has been removed from its account
+    boolean isRemoved(int i);
+
+    // EFFECTS: returns the principal of the i-th asset in cents
+    long getPrincipalCents(int i);
+
+    // EFFECTS: returns the annual interest rate of the i-th asset in basis points
+    int getInterestBasisPoints(int i);
+
+    // EFFECTS: returns the term to maturity of the i-th asset in days
+    int getTermToMaturity(int i);
+
+    // EFFECTS: returns the investment date of the i-th asset as an epoch day
+    long getInvestEpochDay(int i);
+
+    // EFFECTS: returns the name of the i-th asset
+    String getName(int i);
+
+    // EFFECTS: returns the number of withdrawals from the i-th asset
+    int getWithdrawalCount(int i);
+
+    // EFFECTS: returns the amount in cents of the k-th withdrawal from the i-th asset
+    long getWithdrawalCents(int i, int k);
+
+    // EFFECTS: returns the date of the k-th withdrawal from the i-th asset as an epoch day
+    long getWithdrawalEpochDay(int i, int k);
+}
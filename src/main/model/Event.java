@@ -1,15 +1,63 @@
 package model;
 
-import java.util.Calendar;
 import java.util.Date;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 
 /**
  * Represents an asset management event.
+ * An event keeps its type, the time it was logged in nanoseconds since the epoch
+ * and a reference to its argument; the description is only formatted when it is
+ * first asked for, so logging an event does not build any strings.
  */
 public class Event {
     private static final int HASH_CONSTANT = 13;
-    private Date dateLogged;
+    private static final long BASE_EPOCH_NANOS = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+    private static final long BASE_NANO_TIME = System.nanoTime();
+
+    /**
+     * The kinds of events, each with the pattern its description is formatted from.
+     * The argument of an event about an asset is the name of the asset.
+     */
+    public enum Type {
+        MESSAGE("%s", false),
+        ASSET_ADDED("%s added to account.", true),
+        ASSET_REMOVED("%s removed from account.", true),
+        ASSET_WITHDRAWN("Early withdrawal from %s.", true),
+        CHANGES_SAVED("Changes saved to file.", false),
+        ASSETS_LOADED("%s assets loaded into account.", false),
+        LOG_CLEARED("Event log cleared.", false);
+
+        private final String pattern;
+        private final boolean aboutAsset;
+
+        Type(String pattern, boolean aboutAsset) {
+            this.pattern = pattern;
+            this.aboutAsset = aboutAsset;
+        }
+
+        /**
+         * Tells whether events of this type are about an asset.
+         * @return  true if the argument of events of this type is an asset name
+         */
+        public boolean isAboutAsset() {
+            return aboutAsset;
+        }
+
+        /**
+         * Formats the description of an event of this type.
+         * @param arg  the argument of the event
+         * @return  the description of the event
+         */
+        String format(Object arg) {
+            return String.format(pattern, arg);
+        }
+    }
+
+    private final Type type;
+    private final long epochNanos;
+    private final Object arg;
     private String description;
 
     /**
@@ -18,26 +66,69 @@ public class Event {
      * @param description  a description of the event
      */
     public Event(String description) {
-        dateLogged = Calendar.getInstance().getTime();
+        this(Type.MESSAGE, description);
         this.description = description;
     }
 
+    /**
+     * Creates an event of the given type about the given argument
+     * and the current date/time stamp.
+     * @param type  the type of the event
+     * @param arg   the argument the description is formatted with
+     */
+    public Event(Type type, Object arg) {
+        this.type = type;
+        this.epochNanos = BASE_EPOCH_NANOS + (System.nanoTime() - BASE_NANO_TIME);
+        this.arg = arg;
+    }
+
+    /**
+     * Gets the type of this event.
+     * @return  the type of the event
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the argument the description of this event is formatted with.
+     * @return  the argument of the event
+     */
+    public Object getArgument() {
+        return arg;
+    }
+
+    /**
+     * Gets the time this event was logged.
+     * @return  the time of the event in nanoseconds since the epoch
+     */
+    public long getEpochNanos() {
+        return epochNanos;
+    }
+
     /**
      * Gets the date of this event (includes time).
      * @return  the date of the event
      */
     public Date getDate() {
-        return dateLogged;
+        return new Date(getEpochMillis());
     }
 
     /**
-     * Gets the description of this event.
+     * Gets the description of this event, formatting it on first use.
      * @return  the description of the event
      */
     public String getDescription() {
+        if (description == null) {
+            description = type.format(arg);
+        }
         return description;
     }
 
+    private long getEpochMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(epochNanos);
+    }
+
     @Override
     public boolean equals(Object other) {
         if (other == null) {
@@ -50,17 +141,22 @@ public class Event {
 
         Event otherEvent = (Event) other;
 
-        return (this.dateLogged.equals(otherEvent.dateLogged)
-                && this.description.equals(otherEvent.description));
+        if (this.getEpochMillis() != otherEvent.getEpochMillis()) {
+            return false;
+        }
+        if (this.type == otherEvent.type && Objects.equals(this.arg, otherEvent.arg)) {
+            return true;
+        }
+        return this.getDescription().equals(otherEvent.getDescription());
     }
 
     @Override
     public int hashCode() {
-        return (HASH_CONSTANT * dateLogged.hashCode() + description.hashCode());
+        return (HASH_CONSTANT * getDate().hashCode() + getDescription().hashCode());
     }
 
     @Override
     public String toString() {
-        return dateLogged.toString() + "\n" + description;
+        return getDate().toString() + "\n" + getDescription();
     }
 }
@@ -0,0 +1,168 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Delivers the events logged to the EventLog to subscribers, asynchronously and in batches.
+ * Logging an event only adds it to a lock-free queue; a single daemon thread drains the queue
+ * and hands everything that has built up since its last pass to each subscriber as one batch,
+ * so a burst of changes costs a subscriber one call and a slow subscriber never holds up the
+ * thread that made the change.
+ * We use the Singleton Design Pattern so that every part of the system sees the same bus.
+ */
+public class EventBus {
+    public static final int MAX_BATCH = 1024;
+
+    private final Queue<Event> queue = new ConcurrentLinkedQueue<>();
+    private final List<EventSubscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private volatile Thread dispatcher;
+    private volatile boolean waiting;
+
+    /**
+     * Prevent external construction.
+     * (Singleton Design Pattern).
+     */
+    private EventBus() {
+    }
+
+    /**
+     * Holds the only EventBus in the system.
+     * (Singleton Design Pattern)
+     */
+    private static class Holder {
+        private static final EventBus THE_BUS = new EventBus();
+    }
+
+    /**
+     * Gets instance of EventBus.
+     * (Singleton Design Pattern)
+     *
+     * @return instance of EventBus
+     */
+    public static EventBus getInstance() {
+        return Holder.THE_BUS;
+    }
+
+    /**
+     * Adds a subscriber that is given every event published from now on,
+     * starting the dispatching thread if it is not running.
+     *
+     * @param subscriber the subscriber to add
+     */
+    public synchronized void subscribe(EventSubscriber subscriber) {
+        subscribers.add(subscriber);
+        if (dispatcher == null) {
+            Thread thread = new Thread(this::dispatchLoop, "event-bus");
+            thread.setDaemon(true);
+            dispatcher = thread;
+            thread.start();
+        }
+    }
+
+    /**
+     * Removes a subscriber; it may still be given a batch that is being dispatched.
+     *
+     * @param subscriber the subscriber to remove
+     */
+    public void unsubscribe(EventSubscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * Queues the event for the subscribers without waiting for them.
+     * Does nothing if there are no subscribers.
+     *
+     * @param e the event to publish
+     */
+    public void publish(Event e) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        queue.offer(e);
+        if (waiting) {
+            LockSupport.unpark(dispatcher);
+        }
+    }
+
+    /**
+     * Gets the number of batches dispatched so far.
+     *
+     * @return the number of batches dispatched
+     */
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    /**
+     * Gets the number of times a subscriber threw while handling a batch.
+     *
+     * @return the number of failed deliveries
+     */
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    /**
+     * Waits for events and dispatches them in batches until the program exits.
+     */
+    private void dispatchLoop() {
+        while (true) {
+            awaitEvents();
+            dispatch(drainBatch());
+        }
+    }
+
+    /**
+     * Removes up to MAX_BATCH events from the queue.
+     *
+     * @return the removed events, oldest first
+     */
+    private List<Event> drainBatch() {
+        List<Event> batch = new ArrayList<>();
+        Event e = queue.poll();
+        while (e != null) {
+            batch.add(e);
+            e = batch.size() < MAX_BATCH ? queue.poll() : null;
+        }
+        return Collections.unmodifiableList(batch);
+    }
+
+    /**
+     * Parks the dispatching thread until the queue is not empty. The queue is checked again
+     * after announcing the wait, so an event published in between is never missed.
+     */
+    private void awaitEvents() {
+        while (queue.isEmpty()) {
+            waiting = true;
+            if (queue.isEmpty()) {
+                LockSupport.park(this);
+            }
+            waiting = false;
+        }
+    }
+
+    /**
+     * Gives the batch to every subscriber; a subscriber that throws is counted and skipped.
+     *
+     * @param batch the events to dispatch
+     */
+    private void dispatch(List<Event> batch) {
+        for (EventSubscriber subscriber : subscribers) {
+            try {
+                subscriber.onEvents(batch);
+            } catch (RuntimeException ex) {
+                failures.increment();
+            }
+        }
+        batches.increment();
+    }
+}
@@ -0,0 +1,299 @@
+package model;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A queryable store of events kept in timestamp order, with secondary indexes by event type
+ * and by asset name, for audit queries such as "all withdrawals from an asset between two
+ * instants" or "the last ten saves". Each index is a series of parallel arrays sorted by time,
+ * so a range scan starts with a binary search and then reads the index sequentially. Scans are
+ * read in pages through cursors that remember the last event they returned, so paging stays
+ * correct while events keep arriving.
+ * Subscribe an index to the EventBus to keep it up to date with the EventLog; the index that
+ * the application queries is subscribed when it is first got, which the application does at startup.
+ */
+public class EventIndex implements EventSubscriber {
+    private static final Series EMPTY = new Series();
+    private final Series all = new Series();
+    private final Map<Event.Type, Series> byType = new EnumMap<>(Event.Type.class);
+    private final Map<Object, Series> byAsset = new HashMap<>();
+    private long nextId;
+
+    /**
+     * Holds the index the application queries.
+     * (Singleton Design Pattern)
+     */
+    private static class Holder {
+        private static final EventIndex THE_INDEX = subscribed(new EventIndex());
+    }
+
+    /**
+     * Gets the index the application queries, subscribing it to the EventBus the first time,
+     * so that it holds every event logged from then on.
+     *
+     * @return the index of the events logged
+     */
+    public static EventIndex getInstance() {
+        return Holder.THE_INDEX;
+    }
+
+    /**
+     * Subscribes the index to the EventBus.
+     *
+     * @param index the index to subscribe
+     * @return the index
+     */
+    private static EventIndex subscribed(EventIndex index) {
+        EventBus.getInstance().subscribe(index);
+        return index;
+    }
+
+    /**
+     * Adds the events to the index.
+     *
+     * @param events the events to add
+     */
+    @Override
+    public void onEvents(List<Event> events) {
+        addAll(events);
+    }
+
+    /**
+     * Adds the events to the index.
+     *
+     * @param events the events to add
+     */
+    public synchronized void addAll(Iterable<Event> events) {
+        for (Event e : events) {
+            add(e);
+        }
+    }
+
+    /**
+     * Adds the event to the index.
+     *
+     * @param e the event to add
+     */
+    public synchronized void add(Event e) {
+        long id = nextId++;
+        all.add(e, id);
+        byType.computeIfAbsent(e.getType(), t -> new Series()).add(e, id);
+        if (e.getType().isAboutAsset() && e.getArgument() != null) {
+            byAsset.computeIfAbsent(e.getArgument(), a -> new Series()).add(e, id);
+        }
+    }
+
+    /**
+     * Gets the number of events in the index.
+     *
+     * @return the number of events
+     */
+    public synchronized int size() {
+        return all.size;
+    }
+
+    /**
+     * Scans the events logged from (inclusive) to (exclusive) the given instants.
+     *
+     * @param from the start of the range
+     * @param to   the end of the range
+     * @return a cursor over the events in the range, oldest first
+     */
+    public Cursor scan(Instant from, Instant to) {
+        return new Cursor(() -> all, null, toNanos(from), toNanos(to));
+    }
+
+    /**
+     * Scans the events of the given type logged from (inclusive) to (exclusive) the given instants.
+     *
+     * @param type the type of the events
+     * @param from the start of the range
+     * @param to   the end of the range
+     * @return a cursor over the events in the range, oldest first
+     */
+    public Cursor scan(Event.Type type, Instant from, Instant to) {
+        return new Cursor(() -> seriesOf(byType, type), null, toNanos(from), toNanos(to));
+    }
+
+    /**
+     * Scans the events of the given type about the named asset logged from (inclusive)
+     * to (exclusive) the given instants.
+     *
+     * @param assetName the name of the asset
+     * @param type      the type of the events, or null for events of every type
+     * @param from      the start of the range
+     * @param to        the end of the range
+     * @return a cursor over the events in the range, oldest first
+     */
+    public Cursor scanAsset(String assetName, Event.Type type, Instant from, Instant to) {
+        return new Cursor(() -> seriesOf(byAsset, assetName), type, toNanos(from), toNanos(to));
+    }
+
+    /**
+     * Gets the last events of the given type.
+     *
+     * @param type the type of the events
+     * @param n    the most events to return
+     * @return up to n of the latest events of the type, oldest first
+     */
+    public synchronized List<Event> last(Event.Type type, int n) {
+        Series series = seriesOf(byType, type);
+        int start = Math.max(0, series.size - n);
+        return Collections.unmodifiableList(Arrays.asList(Arrays.copyOfRange(series.events, start, series.size)));
+    }
+
+    /**
+     * Gets the series for the key without adding one to the index, so that queries never grow it.
+     *
+     * @param map the index to look in
+     * @param key the key of the series
+     * @param <K> the type of the keys of the index
+     * @return the series for the key, or a shared empty series if no event has the key
+     */
+    private synchronized <K> Series seriesOf(Map<K, Series> map, K key) {
+        Series series = map.get(key);
+        return series != null ? series : EMPTY;
+    }
+
+    /**
+     * Converts an instant to nanoseconds since the epoch, saturating at the bounds of a long.
+     *
+     * @param instant the instant to convert
+     * @return the nanoseconds since the epoch
+     */
+    private static long toNanos(Instant instant) {
+        long seconds = instant.getEpochSecond();
+        if (seconds >= TimeUnit.NANOSECONDS.toSeconds(Long.MAX_VALUE)) {
+            return Long.MAX_VALUE;
+        } else if (seconds <= TimeUnit.NANOSECONDS.toSeconds(Long.MIN_VALUE)) {
+            return Long.MIN_VALUE;
+        }
+        return TimeUnit.SECONDS.toNanos(seconds) + instant.getNano();
+    }
+
+    /**
+     * Events sorted by time, then by the order they were added to the index, in parallel arrays.
+     */
+    private static class Series {
+        private long[] times = new long[16];
+        private long[] ids = new long[16];
+        private Event[] events = new Event[16];
+        private int size;
+
+        /**
+         * Inserts the event after every event logged at or before its time; it is an append
+         * unless the event was logged before events that were added ahead of it.
+         *
+         * @param e  the event to add
+         * @param id the order the event was added to the index, greater than every id in the series
+         */
+        void add(Event e, long id) {
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+                events = Arrays.copyOf(events, size * 2);
+            }
+            long time = e.getEpochNanos();
+            int pos = size == 0 || times[size - 1] <= time ? size : firstAfter(time, Long.MAX_VALUE);
+            System.arraycopy(times, pos, times, pos + 1, size - pos);
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            System.arraycopy(events, pos, events, pos + 1, size - pos);
+            times[pos] = time;
+            ids[pos] = id;
+            events[pos] = e;
+            size++;
+        }
+
+        /**
+         * Finds the first event that sorts after the given time and id, by binary search.
+         *
+         * @param time the time to search for
+         * @param id   the id to search for among events at that time
+         * @return the position of the first later event, or size if there is none
+         */
+        int firstAfter(long time, long id) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (times[mid] < time || (times[mid] == time && ids[mid] <= id)) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+
+    /**
+     * Reads the events of a series in a time range in pages. A cursor resumes after the last
+     * event it examined, so events added to the series while it is paged through are returned
+     * if, and only if, they sort after that event. The series is looked up again on every page,
+     * so a cursor opened before any event had its key sees the events that arrive later.
+     */
+    public class Cursor {
+        private final Supplier<Series> lookup;
+        private final Event.Type type;
+        private final long to;
+        private long lastTime;
+        private long lastId;
+
+        /**
+         * Creates a cursor positioned before the first event of the range.
+         *
+         * @param lookup looks up the series to read
+         * @param type   the type of the events to return, or null for every type
+         * @param from   the start of the range, in nanoseconds since the epoch
+         * @param to     the end of the range (exclusive), in nanoseconds since the epoch
+         */
+        Cursor(Supplier<Series> lookup, Event.Type type, long from, long to) {
+            this.lookup = lookup;
+            this.type = type;
+            this.to = to;
+            this.lastTime = from;
+            this.lastId = -1;
+        }
+
+        /**
+         * Reads the next page of events.
+         *
+         * @param limit the most events to return
+         * @return the next events in the range, oldest first; empty when the range is exhausted
+         */
+        public List<Event> next(int limit) {
+            List<Event> page = new ArrayList<>(Math.min(limit, 64));
+            synchronized (EventIndex.this) {
+                Series series = lookup.get();
+                int i = series.firstAfter(lastTime, lastId);
+                while (i < series.size && series.times[i] < to && page.size() < limit) {
+                    if (type == null || series.events[i].getType() == type) {
+                        page.add(series.events[i]);
+                    }
+                    lastTime = series.times[i];
+                    lastId = series.ids[i];
+                    i++;
+                }
+            }
+            return page;
+        }
+
+        /**
+         * Reads the rest of the events in the range.
+         *
+         * @return the remaining events in the range, oldest first
+         */
+        public List<Event> toList() {
+            return next(Integer.MAX_VALUE);
+        }
+    }
+}
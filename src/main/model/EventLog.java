@@ -1,28 +1,76 @@
 package model;
 
-import java.util.ArrayList;
-import java.util.Collection;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
 
 /**
  * Represents a log of asset management events.
  * We use the Singleton Design Pattern to ensure that there is only
  * one EventLog in the system and that the system has global access
  * to the single instance of the EventLog.
+ * The events are kept in a fixed-capacity ring buffer that many threads
+ * can log to without locks. When the ring is full, the overflow policy
+ * decides whether the oldest event is dropped, the logging thread waits,
+ * or the oldest event is spilled to a file. Iteration is weakly consistent:
+ * it never throws ConcurrentModificationException and may or may not
+ * see events logged while it runs.
  */
 public class EventLog implements Iterable<Event> {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    public static final String DEFAULT_SPILL_FILE = "./data/eventlog.spill";
+    private static final int SPILL_BATCH = 256;
+    private static final int SPIN_LIMIT = 100;
+    private static final int MAX_PARK_DOUBLINGS = 10;
+    private static final long MIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
     /**
-     * the only EventLog in the system (Singleton Design Pattern)
+     * What logEvent does when the ring is full.
      */
-    private static EventLog theLog;
-    private Collection<Event> events;
+    public enum OverflowPolicy {
+        DROP_OLDEST,
+        BLOCK,
+        SPILL_TO_DISK
+    }
+
+    private volatile Ring ring;
+    private volatile OverflowPolicy policy;
+    private volatile Path spillFile;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private BufferedWriter spillWriter;
+    private int unflushedSpills;
 
     /**
      * Prevent external construction.
      * (Singleton Design Pattern).
      */
     private EventLog() {
-        events = new ArrayList<Event>();
+        ring = new Ring(DEFAULT_CAPACITY);
+        policy = OverflowPolicy.DROP_OLDEST;
+        spillFile = Paths.get(DEFAULT_SPILL_FILE);
+    }
+
+    /**
+     * Holds the only EventLog in the system; created on first use
+     * by the class loader, which makes it safe across threads.
+     * (Singleton Design Pattern)
+     */
+    private static class Holder {
+        private static final EventLog THE_LOG = new EventLog();
     }
 
     /**
@@ -33,32 +81,363 @@ public class EventLog implements Iterable<Event> {
      * @return instance of EventLog
      */
     public static EventLog getInstance() {
-        if (theLog == null) {
-            theLog = new EventLog();
-        }
+        return Holder.THE_LOG;
+    }
 
-        return theLog;
+    /**
+     * Replaces the ring with an empty one of the given capacity and sets the
+     * overflow policy. Events in the old ring are discarded. Meant to be called
+     * at startup, before other threads log events.
+     *
+     * @param capacity the number of events kept, rounded up to a power of two
+     * @param policy   what to do when the ring is full
+     */
+    public void configure(int capacity, OverflowPolicy policy) {
+        this.ring = new Ring(capacity);
+        this.policy = policy;
     }
 
     /**
-     * Adds an event to the event log.
+     * Sets the file that events are appended to under the SPILL_TO_DISK policy.
+     *
+     * @param spillFile the file to append spilled events to
+     */
+    public synchronized void setSpillFile(Path spillFile) {
+        closeSpillFile();
+        this.spillFile = spillFile;
+    }
+
+    /**
+     * Adds an event to the event log and publishes it on the event bus.
      *
      * @param e the event to be added
      */
     public void logEvent(Event e) {
-        events.add(e);
+        Ring current = ring;
+        int attempts = 0;
+        while (!current.offer(e)) {
+            handleOverflow(current, attempts++);
+        }
+        EventBus.getInstance().publish(e);
+    }
+
+    /**
+     * Makes room in the full ring according to the overflow policy,
+     * or waits for room under the BLOCK policy.
+     *
+     * @param current  the ring that is full
+     * @param attempts the number of times the event was already refused
+     */
+    private void handleOverflow(Ring current, int attempts) {
+        if (policy == OverflowPolicy.BLOCK) {
+            backOff(attempts);
+            return;
+        }
+        Event oldest = current.poll();
+        if (oldest == null) {
+            backOff(attempts);
+        } else if (policy == OverflowPolicy.SPILL_TO_DISK && spill(oldest)) {
+            spilled.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Waits before trying the full ring again: spins for the first attempts, then parks
+     * for a time that doubles with each attempt up to a bound, so a stalled consumer
+     * does not keep the logging threads busy.
+     *
+     * @param attempts the number of times the event was already refused
+     */
+    private static void backOff(int attempts) {
+        if (attempts < SPIN_LIMIT) {
+            Thread.onSpinWait();
+        } else {
+            int doublings = Math.min(attempts - SPIN_LIMIT, MAX_PARK_DOUBLINGS);
+            LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, MIN_PARK_NANOS << doublings));
+        }
+    }
+
+    /**
+     * Appends the event to the spill file through a writer kept open between events,
+     * flushing it once every SPILL_BATCH events.
+     *
+     * @param e the event to spill
+     * @return true if the event was written, false if the file could not be written
+     */
+    private synchronized boolean spill(Event e) {
+        try {
+            if (spillWriter == null) {
+                spillWriter = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            spillWriter.write(e.toString());
+            spillWriter.newLine();
+            spillWriter.newLine();
+            if (++unflushedSpills >= SPILL_BATCH) {
+                flushSpillFile();
+            }
+            return true;
+        } catch (IOException ex) {
+            closeSpillFile();
+            return false;
+        }
+    }
+
+    /**
+     * Writes out the events spilled since the last flush.
+     *
+     * @return true if they were written, false if the file could not be written
+     */
+    public synchronized boolean flushSpillFile() {
+        unflushedSpills = 0;
+        try {
+            if (spillWriter != null) {
+                spillWriter.flush();
+            }
+            return true;
+        } catch (IOException ex) {
+            closeSpillFile();
+            return false;
+        }
+    }
+
+    /**
+     * Writes out the spilled events and closes the spill file; it is opened again
+     * when the next event is spilled.
+     */
+    public synchronized void closeSpillFile() {
+        unflushedSpills = 0;
+        try {
+            if (spillWriter != null) {
+                spillWriter.close();
+            }
+        } catch (IOException ex) {
+            // the events that could not be written are lost, as when spilling fails
+        } finally {
+            spillWriter = null;
+        }
+    }
+
+    /**
+     * Removes the events in the log from oldest to newest and passes them to the sink.
+     *
+     * @param sink receives each removed event
+     * @return the number of events removed
+     */
+    public int drainTo(Consumer<? super Event> sink) {
+        Ring current = ring;
+        int count = 0;
+        for (Event e = current.poll(); e != null; e = current.poll()) {
+            sink.accept(e);
+            count++;
+        }
+        flushSpillFile();
+        return count;
     }
 
     /**
      * Clears the event log and logs the event.
      */
     public void clear() {
-        events.clear();
-        logEvent(new Event("Event log cleared."));
+        drainTo(e -> { });
+        logEvent(new Event(Event.Type.LOG_CLEARED, null));
+    }
+
+    /**
+     * Gets the number of events dropped because the log was full.
+     *
+     * @return the number of dropped events
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Gets the number of events spilled to the spill file because the log was full.
+     *
+     * @return the number of spilled events
+     */
+    public long getSpilledCount() {
+        return spilled.sum();
+    }
+
+    /**
+     * Gets the number of events presently held in the log.
+     *
+     * @return the number of events in the ring
+     */
+    public int size() {
+        return ring.size();
     }
 
     @Override
     public Iterator<Event> iterator() {
-        return events.iterator();
+        return ring.iterator();
+    }
+
+    /**
+     * A bounded multi-producer, multi-consumer ring of events. Each cell has a
+     * sequence number telling whether it is free for the producer at a position
+     * or holds the event published at that position, so producers and consumers
+     * claim cells with compare-and-set on the tail and head counters only.
+     */
+    private static class Ring {
+        private final int mask;
+        private final Event[] events;
+        private final AtomicLongArray sequences;
+        private final AtomicLong head = new AtomicLong();
+        private final AtomicLong tail = new AtomicLong();
+
+        /**
+         * Creates an empty ring.
+         *
+         * @param capacity the minimum number of cells, rounded up to a power of two
+         */
+        Ring(int capacity) {
+            int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+            mask = size - 1;
+            events = new Event[size];
+            sequences = new AtomicLongArray(size);
+            for (int i = 0; i < size; i++) {
+                sequences.set(i, i);
+            }
+        }
+
+        /**
+         * Adds the event at the tail.
+         *
+         * @param e the event to add
+         * @return false if the ring is full
+         */
+        boolean offer(Event e) {
+            while (true) {
+                long pos = tail.get();
+                int i = (int) (pos & mask);
+                long diff = sequences.get(i) - pos;
+                if (diff == 0) {
+                    if (tail.compareAndSet(pos, pos + 1)) {
+                        events[i] = e;
+                        sequences.set(i, pos + 1);
+                        return true;
+                    }
+                } else if (diff < 0) {
+                    return false;
+                }
+            }
+        }
+
+        /**
+         * Removes the event at the head.
+         *
+         * @return the oldest event, or null if the ring is empty or its oldest
+         *         event is still being published
+         */
+        Event poll() {
+            while (true) {
+                long pos = head.get();
+                int i = (int) (pos & mask);
+                long diff = sequences.get(i) - (pos + 1);
+                if (diff == 0) {
+                    if (head.compareAndSet(pos, pos + 1)) {
+                        Event e = events[i];
+                        events[i] = null;
+                        sequences.set(i, pos + mask + 1);
+                        return e;
+                    }
+                } else if (diff < 0) {
+                    return null;
+                }
+            }
+        }
+
+        /**
+         * Gets the number of events between the head and the tail.
+         *
+         * @return the number of events in the ring
+         */
+        int size() {
+            return (int) Math.max(0, tail.get() - head.get());
+        }
+
+        /**
+         * Reads the event published at the given position without removing it.
+         *
+         * @param pos the position to read
+         * @return the event, or null if the position is not published or has been reused
+         */
+        Event peek(long pos) {
+            int i = (int) (pos & mask);
+            if (sequences.get(i) != pos + 1) {
+                return null;
+            }
+            Event e = events[i];
+            return sequences.get(i) == pos + 1 ? e : null;
+        }
+
+        /**
+         * Creates a weakly consistent iterator over the events from the head to the tail
+         * as of its creation, skipping events that are removed before they are reached.
+         *
+         * @return an iterator over the events in the ring
+         */
+        Iterator<Event> iterator() {
+            return new RingIterator(this, head.get(), tail.get());
+        }
+    }
+
+    /**
+     * A weakly consistent iterator over a range of positions in a ring.
+     */
+    private static class RingIterator implements Iterator<Event> {
+        private final Ring ring;
+        private final long end;
+        private long pos;
+        private Event next;
+
+        /**
+         * Creates an iterator over the positions from start (inclusive) to end (exclusive).
+         *
+         * @param ring  the ring to read
+         * @param start the first position
+         * @param end   the position after the last one
+         */
+        RingIterator(Ring ring, long start, long end) {
+            this.ring = ring;
+            this.pos = start;
+            this.end = end;
+            this.next = advance();
+        }
+
+        /**
+         * Finds the next event still held in the ring.
+         *
+         * @return the next event, or null if there is none
+         */
+        private Event advance() {
+            while (pos < end) {
+                Event e = ring.peek(pos++);
+                if (e != null) {
+                    return e;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Event next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Event result = next;
+            next = advance();
+            return result;
+        }
     }
 }
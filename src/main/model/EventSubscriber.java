@@ -0,0 +1,13 @@
+package model;
+
+import java.util.List;
+
+/*
+ * Represents a class that is given the events logged to the event log, in batches,
+ * on the dispatching thread of the event bus.
+ */
+
+public interface EventSubscriber {
+    // EFFECTS: handles the given events, in the order they were logged; must not modify the list
+    void onEvents(List<Event> events);
+}
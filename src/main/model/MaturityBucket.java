@@ -0,0 +1,39 @@
+package model;
+
+import java.time.LocalDate;
+
+/*
+ * A summary of the assets in an account that mature within a range of dates.
+ */
+
+public class MaturityBucket {
+    private LocalDate start;
+    private LocalDate end;
+    private int count;
+    private long principal; // in cents
+
+    // EFFECTS: creates a bucket for the dates from start to end (both inclusive) with the given
+    // number of maturing assets and their total principal in cents
+    public MaturityBucket(LocalDate start, LocalDate end, int count, long principal) {
+        this.start = start;
+        this.end = end;
+        this.count = count;
+        this.principal = principal;
+    }
+
+    public LocalDate getStart() {
+        return start;
+    }
+
+    public LocalDate getEnd() {
+        return end;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public double getPrincipal() {
+        return Money.toDollars(principal);
+    }
+}
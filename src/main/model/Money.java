@@ -0,0 +1,50 @@
+package model;
+
+/*
+ * Fixed-point helpers for money and rates. Amounts are held as long cents and annual
+ * interest rates as int basis points (1/100 of a percent), so interest arithmetic is
+ * exact, allocation-free and has no shared mutable state.
+ */
+
+public class Money {
+    private static final int DAYS_IN_YEAR = 365;
+    private static final int BASIS_POINTS_PER_UNIT = 10000;
+    private static final long INTEREST_DIVISOR = (long) DAYS_IN_YEAR * BASIS_POINTS_PER_UNIT;
+
+    private Money() {
+    }
+
+    // EFFECTS: returns the given amount in dollars as cents, rounded to the nearest cent
+    public static long toCents(double dollars) {
+        return Math.round(dollars * 100);
+    }
+
+    // EFFECTS: returns the given amount in cents as dollars
+    public static double toDollars(long cents) {
+        return cents / 100.0;
+    }
+
+    // EFFECTS: returns the given annual rate in percentage as basis points, rounded to the nearest one
+    public static int percentToBasisPoints(double percent) {
+        return (int) Math.round(percent * 100);
+    }
+
+    // EFFECTS: returns the given annual rate in decimal (0.05 for 5%) as basis points
+    public static int decimalToBasisPoints(double rate) {
+        return (int) Math.round(rate * BASIS_POINTS_PER_UNIT);
+    }
+
+    // EFFECTS: returns the given basis points as an annual rate in decimal
+    public static double basisPointsToDecimal(int basisPoints) {
+        return basisPoints / (double) BASIS_POINTS_PER_UNIT;
+    }
+
+    // EFFECTS: returns the simple interest in cents earned by the given amount in cents at the
+    // given annual rate in basis points over the given days, rounded half up to the nearest cent
+    public static long interest(int basisPoints, int days, long amountCents) {
+        long perYear = amountCents * basisPoints;
+        long whole = Math.floorDiv(perYear, INTEREST_DIVISOR);
+        long remainder = Math.floorMod(perYear, INTEREST_DIVISOR);
+        return whole * days + Math.floorDiv(remainder * days + INTEREST_DIVISOR / 2, INTEREST_DIVISOR);
+    }
+}
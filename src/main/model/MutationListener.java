@@ -0,0 +1,20 @@
+package model;
+
+/*
+ * Represents a class that is told about every change made to the assets of an account,
+ * after the change has been applied.
+ */
+
+public interface MutationListener {
+    // EFFECTS: records that the given asset was added to the account
+    void assetAdded(Asset asset);
+
+    // EFFECTS: records that the given asset was removed from the account
+    void assetRemoved(Asset asset);
+
+    // EFFECTS: records that the given withdrawal was taken early from the principal of the given asset
+    void withdrawn(Asset asset, Withdrawal withdrawal);
+
+    // EFFECTS: records that the investment date of the given asset was changed
+    void investDateSet(Asset asset);
+}
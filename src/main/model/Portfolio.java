@@ -0,0 +1,94 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/*
+ * A read-only view of the accounts of many clients taken together, valued as of one date. The
+ * totals of each account and of the whole portfolio are worked out once, when the view is made;
+ * the top assets of the portfolio are picked from the top assets of each account.
+ */
+
+public class Portfolio {
+    private final List<Account> accounts;
+    private final LocalDate date;
+    private final long[] gains; // in cents
+    private final int[] activeAssets;
+    private long totalGain; // in cents
+    private int numAssets;
+    private int numActiveAssets;
+
+    // REQUIRES: every account has been refreshed as of the given date
+    // EFFECTS: creates a view of the given accounts, in the given order, valued as of the given date
+    public Portfolio(List<Account> accounts, LocalDate date) {
+        this.accounts = Collections.unmodifiableList(new ArrayList<>(accounts));
+        this.date = date;
+        this.gains = new long[accounts.size()];
+        this.activeAssets = new int[accounts.size()];
+        for (int i = 0; i < accounts.size(); i++) {
+            Account ac = accounts.get(i);
+            gains[i] = ac.book.sumTotalGain();
+            activeAssets[i] = ac.numActiveAssets();
+            totalGain += gains[i];
+            numAssets += ac.numAssets();
+            numActiveAssets += activeAssets[i];
+        }
+    }
+
+    // EFFECTS: returns the accounts in the portfolio
+    public List<Account> getAccounts() {
+        return accounts;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    // EFFECTS: returns the number of accounts in the portfolio
+    public int numAccounts() {
+        return accounts.size();
+    }
+
+    // EFFECTS: returns the number of assets presently in all the accounts
+    public int numAssets() {
+        return numAssets;
+    }
+
+    // EFFECTS: returns the number of active assets in all the accounts
+    public int numActiveAssets() {
+        return numActiveAssets;
+    }
+
+    // REQUIRES: 0 <= index < numAccounts()
+    // EFFECTS: returns the number of active assets in the account at the given index
+    public int numActiveAssets(int index) {
+        return activeAssets[index];
+    }
+
+    // EFFECTS: returns the total interest gain of all the accounts
+    public double getTotalGain() {
+        return Money.toDollars(totalGain);
+    }
+
+    // REQUIRES: 0 <= index < numAccounts()
+    // EFFECTS: returns the total interest gain of the account at the given index
+    public double getTotalGain(int index) {
+        return Money.toDollars(gains[index]);
+    }
+
+    // REQUIRES: k >= 0
+    // EFFECTS: returns the top k assets presently in any of the accounts by the given metric, from
+    //    highest to lowest; among equals, assets of an earlier account rank higher, and within one
+    //    account the later added asset ranks higher
+    public List<Asset> topK(int k, RankingMetric metric) {
+        List<Asset> candidates = new ArrayList<>();
+        for (Account ac : accounts) {
+            candidates.addAll(ac.topK(k, metric));
+        }
+        candidates.sort(Comparator.comparingLong((Asset a) -> a.getBook().metricOf(a.getSlot(), metric)).reversed());
+        return Collections.unmodifiableList(new ArrayList<>(candidates.subList(0, Math.min(k, candidates.size()))));
+    }
+}
@@ -0,0 +1,12 @@
+package model;
+
+/*
+ * The measures that assets in an account can be ranked by.
+ */
+
+public enum RankingMetric {
+    TOTAL_GAIN,
+    INTEREST_RATE,
+    PRINCIPAL,
+    POTENTIAL_LOSS
+}
@@ -0,0 +1,65 @@
+package model;
+
+import java.util.Arrays;
+
+/*
+ * A set of long keys kept in ascending order in one primitive array, so that an index of many
+ * slots holds no boxed keys. A range is found by binary search and read by position; adding or
+ * removing a key shifts the keys after it, and a set of many keys is built by sorting them once.
+ */
+
+class SortedKeys {
+    private long[] keys;
+    private int size;
+
+    // REQUIRES: the first size keys are distinct
+    // MODIFIES: keys
+    // EFFECTS: creates the set of the first size of the given keys, sorting them in place
+    SortedKeys(long[] keys, int size) {
+        Arrays.sort(keys, 0, size);
+        this.keys = keys;
+        this.size = size;
+    }
+
+    // EFFECTS: returns the number of keys
+    int size() {
+        return size;
+    }
+
+    // REQUIRES: 0 <= i < size()
+    // EFFECTS: returns the i-th smallest key
+    long get(int i) {
+        return keys[i];
+    }
+
+    // EFFECTS: returns the position of the first key at or above the given key, or size() if there is none
+    int ceiling(long key) {
+        int i = Arrays.binarySearch(keys, 0, size, key);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds the given key if it is not in the set
+    void add(long key) {
+        int i = Arrays.binarySearch(keys, 0, size, key);
+        if (i < 0) {
+            i = -i - 1;
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, Math.max(16, size * 2));
+            }
+            System.arraycopy(keys, i, keys, i + 1, size - i);
+            keys[i] = key;
+            size++;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: removes the given key if it is in the set
+    void remove(long key) {
+        int i = Arrays.binarySearch(keys, 0, size, key);
+        if (i >= 0) {
+            System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+            size--;
+        }
+    }
+}
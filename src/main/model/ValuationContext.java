@@ -0,0 +1,47 @@
+package model;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/*
+ * The as-of date that a valuation pass is performed on. The date is read from the clock
+ * once, when the context is created, so every asset valued with the same context sees
+ * the same "today" even if the pass straddles midnight.
+ */
+
+public class ValuationContext {
+    private final Clock clock;
+    private final LocalDate date;
+    private final long epochDay;
+
+    // EFFECTS: creates a context dated today according to the given clock
+    public ValuationContext(Clock clock) {
+        this.clock = clock;
+        this.date = LocalDate.now(clock);
+        this.epochDay = date.toEpochDay();
+    }
+
+    // EFFECTS: returns a context dated today according to the system clock
+    public static ValuationContext now() {
+        return new ValuationContext(Clock.systemDefaultZone());
+    }
+
+    // EFFECTS: returns a context dated on the given date, backed by a clock fixed at its start
+    public static ValuationContext asOf(LocalDate date) {
+        ZoneId zone = ZoneId.systemDefault();
+        return new ValuationContext(Clock.fixed(date.atStartOfDay(zone).toInstant(), zone));
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public long getEpochDay() {
+        return epochDay;
+    }
+}
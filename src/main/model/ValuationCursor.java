@@ -0,0 +1,112 @@
+package model;
+
+/*
+ * A cursor over the valuation of every asset of an account, the assets presently in the account
+ * first and then the removed ones, each in the order of its list. The values are read straight
+ * from the columns of the book as of its last refresh, so moving over the rows creates no assets,
+ * not even for slots loaded lazily, and the cursor can be reset to go over the rows again.
+ */
+
+public class ValuationCursor {
+    private final AssetBook book;
+    private final AssetList account;
+    private final AssetList removed;
+    private int row = -1;
+    private int slot = -1;
+
+    // EFFECTS: creates a cursor before the first of the given assets and removed assets of the given book
+    ValuationCursor(AssetBook book, AssetList account, AssetList removed) {
+        this.book = book;
+        this.account = account;
+        this.removed = removed;
+    }
+
+    // EFFECTS: returns the number of rows
+    public int size() {
+        return account.size() + removed.size();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: moves to the next row and returns true, or returns false if there is none
+    public boolean next() {
+        if (row + 1 >= size()) {
+            return false;
+        }
+        row++;
+        slot = row < account.size() ? account.slotAt(row) : removed.slotAt(row - account.size());
+        return true;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: moves the cursor back before the first row
+    public void reset() {
+        row = -1;
+        slot = -1;
+    }
+
+    // REQUIRES: the last call to next() returned true
+    // EFFECTS: returns the name of the asset of the row
+    public String getName() {
+        return book.nameOf(slot);
+    }
+
+    // REQUIRES: the last call to next() returned true
+    // EFFECTS: returns true if the asset of the row has been removed from the account
+    public boolean isRemoved() {
+        return row >= account.size();
+    }
+
+    // REQUIRES: the last call to next() returned true
+    // EFFECTS: returns true if the asset of the row is active
+    public boolean isActive() {
+        return book.active[slot];
+    }
+
+    // REQUIRES: the last call to next() returned true
+    // EFFECTS: returns the principal in cents of the asset of the row
+    public long getPrincipalCents() {
+        return book.principal[slot];
+    }
+
+    // REQUIRES: the last call to next() returned true
+    // EFFECTS: returns the annual interest rate in basis points of the asset of the row
+    public int getInterestBasisPoints() {
+        return book.interestRate[slot];
+    }
+
+    // REQUIRES: the last call to next() returned true
+    // EFFECTS: returns the term to maturity in days of the asset of the row
+    public int getTermToMaturity() {
+        return book.termToMaturity[slot];
+    }
+
+    // REQUIRES: the last call to next() returned true
+    // EFFECTS: returns the investment date as an epoch day of the asset of the row
+    public long getInvestEpochDay() {
+        return book.investDay[slot];
+    }
+
+    // REQUIRES: the last call to next() returned true
+    // EFFECTS: returns the maturity date as an epoch day of the asset of the row, as last calculated
+    public long getMaturityEpochDay() {
+        return book.maturityDay[slot];
+    }
+
+    // REQUIRES: the last call to next() returned true
+    // EFFECTS: returns the days the asset of the row has been held
+    public int getDaysHeld() {
+        return book.daysHeld[slot];
+    }
+
+    // REQUIRES: the last call to next() returned true
+    // EFFECTS: returns the total gain in cents of the asset of the row
+    public long getTotalGainCents() {
+        return book.totalGain[slot];
+    }
+
+    // REQUIRES: the last call to next() returned true
+    // EFFECTS: returns the interest in cents the principal of the asset of the row earns over its whole term
+    public long getFullReturnCents() {
+        return Money.interest(book.interestRate[slot], book.termToMaturity[slot], book.principal[slot]);
+    }
+}
@@ -9,21 +9,43 @@ import java.time.LocalDate;
  */
 
 public class Withdrawal implements Writeable {
-    private double amount;
+    private long amount; // in cents
     private LocalDate date;
+    private Asset owner;
 
     // REQUIRES: amount <= asset.getPrincipal(), 2 decimal places;
     // EFFECTS: creates a withdrawal instance with the given amount and today's date
     public Withdrawal(double amount) {
-        this.amount = amount;
-        this.date = LocalDate.now();
+        this(amount, LocalDate.now());
     }
 
+    // REQUIRES: amount <= asset.getPrincipal(), 2 decimal places;
+    // EFFECTS: creates a withdrawal instance with the given amount and date
+    public Withdrawal(double amount, LocalDate date) {
+        this.amount = Money.toCents(amount);
+        this.date = date;
+    }
+
+    // MODIFIES: this, owner
+    // EFFECTS: sets the date of the withdrawal; updates the withdrawal interest of the owning asset
     public void setDate(int month, int day, int year) {
         this.date = LocalDate.of(year, month, day);
+        if (owner != null) {
+            owner.recalculateWithdrawalInterest();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sets the asset this withdrawal was made from
+    void setOwner(Asset owner) {
+        this.owner = owner;
     }
 
     public double getAmount() {
+        return Money.toDollars(amount);
+    }
+
+    public long getAmountCents() {
         return amount;
     }
 
@@ -35,7 +57,7 @@ public class Withdrawal implements Writeable {
     public JSONObject toJson() {
         JSONObject jsonObject = new JSONObject();
         jsonObject.put("date", String.valueOf(date));
-        jsonObject.put("amount", amount);
+        jsonObject.put("amount", getAmount());
         return jsonObject;
     }
 }
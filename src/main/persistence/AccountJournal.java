@@ -0,0 +1,471 @@
+package persistence;
+
+/*
+ * An append-only binary journal of the changes made to an account, kept in a memory-mapped file
+ * beside the snapshot of the account. Each change costs one small record written at the end of
+ * the mapping instead of a rewrite of the whole snapshot. The mapping is forced to disk every
+ * flushInterval records, so a crash loses at most the records written since the last flush.
+ * Every saveInterval records, and on request, the records are sealed into a segment beside the
+ * snapshot and the journal starts over, so a save costs as much as the changes since the last
+ * one; once compactionThreshold segments have piled up they are merged into the snapshot in the
+ * background. The flushes and saves due by interval run on the daemon writer thread of the
+ * journal, so the thread changing the account never waits on the disk. A checkpoint writes the
+ * whole account to the snapshot instead. Recover reads the snapshot and replays the segments and
+ * then the records written after them.
+ * A save may run on another thread while the account is changed: it copies the records out under
+ * the lock of the journal and writes the segment without holding it. Records written meanwhile
+ * stay in the journal for the next save; those already saved are skipped by their sequence number.
+ * A snapshot whose file name ends in ".bin" is written in the binary snapshot format; a binary
+ * snapshot is recovered from a memory mapping, so its assets are only created when first used.
+ * Each snapshot is written to a new generation file beside the snapshot file rather than over the
+ * one that may still be mapped, as SegmentStore describes.
+ * One ending in ".gz" or ".zz" is written as JSON compressed with gzip or deflate.
+ *
+ * The file starts with a magic number and a version. Each record is an int payload length,
+ * an int CRC32 of the payload, and the payload: a long sequence number, a byte record type and
+ * the fields of that type. A zero length ends the journal; a record with a bad checksum is
+ * the torn end of the last write and ends the journal too.
+ */
+
+import model.Account;
+import model.Asset;
+import model.MutationListener;
+import model.Withdrawal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+public class AccountJournal implements MutationListener {
+    public static final int DEFAULT_FLUSH_INTERVAL = 64;
+    public static final int DEFAULT_SAVE_INTERVAL = 4096;
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 8;
+    static final int MAGIC = 0x57414C4A;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int RECORD_HEADER_SIZE = 8;
+    private static final int INITIAL_MAPPING_SIZE = 1 << 20;
+    private static final long WRITER_SHUTDOWN_SECONDS = 60;
+
+    static final byte NEW_ACCOUNT = 1;
+    static final byte ADD = 2;
+    static final byte REMOVE = 3;
+    static final byte WITHDRAW = 4;
+    static final byte SET_INVEST_DATE = 5;
+    static final byte RECORD_WITHDRAWAL = 6;
+
+    private final Path journalFile;
+    private final SegmentStore store;
+    private final CRC32 crc = new CRC32();
+    private final Object saveLock = new Object();
+    private final AtomicBoolean savePending = new AtomicBoolean();
+    private final AtomicInteger saveFailures = new AtomicInteger();
+    private ExecutorService writer;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private ByteBuffer record = ByteBuffer.allocate(256);
+    private int position;
+    private int sealed = HEADER_SIZE;
+    private long seq;
+    private int generation;
+    private long pendingSeq;
+    private int pendingEnd;
+    private int pendingGeneration;
+    private int unflushed;
+    private int sinceSave;
+    private int flushInterval = DEFAULT_FLUSH_INTERVAL;
+    private int saveInterval = DEFAULT_SAVE_INTERVAL;
+    private int compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+    private Account account;
+
+    // EFFECTS: constructs a journal kept in the given file for the account snapshot in the given file
+    public AccountJournal(String journalFile, String snapshot) {
+        this.journalFile = Paths.get(journalFile);
+        this.store = new SegmentStore(snapshot);
+    }
+
+    // REQUIRES: flushInterval > 0, saveInterval > 0
+    // MODIFIES: this
+    // EFFECTS: sets how many records are written between forcing the journal to disk and
+    // between saves
+    public void setIntervals(int flushInterval, int saveInterval) {
+        this.flushInterval = flushInterval;
+        this.saveInterval = saveInterval;
+    }
+
+    // REQUIRES: compactionThreshold > 0
+    // MODIFIES: this
+    // EFFECTS: sets how many segments a save leaves before they are merged into the snapshot
+    public void setCompactionThreshold(int compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: opens the journal file, creating it if needed, and finds the end of its records;
+    // throws IOException if the file cannot be opened or is not a journal
+    public void open() throws IOException {
+        channel = FileChannel.open(journalFile, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean fresh = channel.size() == 0;
+        map(Math.max(INITIAL_MAPPING_SIZE, channel.size()));
+        if (fresh) {
+            buffer.putInt(0, MAGIC).putInt(4, VERSION);
+        } else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not an account journal: " + journalFile);
+        }
+        scan();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: maps the first size bytes of the journal file, growing the file if needed
+    private void map(long size) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: sets the end of the journal to the end of its last whole record
+    private void scan() {
+        position = HEADER_SIZE;
+        sealed = HEADER_SIZE;
+        int next = JournalReplay.nextRecord(buffer, position, crc);
+        while (next > 0) {
+            seq = buffer.getLong(position + RECORD_HEADER_SIZE);
+            position = next;
+            next = JournalReplay.nextRecord(buffer, position, crc);
+        }
+    }
+
+    // EFFECTS: if there is no snapshot yet but there is one in the given file, kept by an earlier
+    // version in another format, converts it with the segments saved after it into the snapshot once
+    // and returns true, so that recovery carries on from it; otherwise returns false. Throws
+    // IOException if the earlier snapshot cannot be read or the snapshot cannot be written
+    public boolean upgradeFrom(String previousSnapshot) throws IOException {
+        return store.upgradeFrom(previousSnapshot);
+    }
+
+    // REQUIRES: the journal is open
+    // MODIFIES: this
+    // EFFECTS: reads the account from the snapshot, or creates an empty one with the given name if
+    // there is no snapshot, replays the segments and the journal onto it and journals its later changes;
+    // throws IOException if the snapshot or a segment cannot be read or a record names an unknown asset
+    public Account recover(String name) throws IOException {
+        JournalReplay replay = store.load(name);
+        replay.replayAll(buffer, HEADER_SIZE);
+        account = replay.getAccount();
+        seq = Math.max(seq, replay.getLastSeq());
+        account.setMutationListener(this);
+        return account;
+    }
+
+    // REQUIRES: the journal is open
+    // MODIFIES: this
+    // EFFECTS: journals the given account from scratch, so that recovery starts from it instead of
+    // the snapshot and segments, and journals its later changes; throws IOException if the sequence number
+    // of the last record saved cannot be read
+    public void start(Account ac) throws IOException {
+        account = ac;
+        seq = Math.max(seq, store.lastSeq());
+        begin(NEW_ACCOUNT);
+        putString(ac.getName());
+        commit();
+        for (Asset a : ac.getAccount()) {
+            assetAdded(a);
+        }
+        for (Asset a : ac.getAssetsRemoved()) {
+            assetAdded(a);
+            assetRemoved(a);
+        }
+        ac.setMutationListener(this);
+    }
+
+    @Override
+    public void assetAdded(Asset asset) {
+        begin(ADD);
+        putString(asset.getName());
+        record.putInt(asset.getTermToMaturity());
+        record.putInt(asset.getInterestBasisPoints());
+        record.putLong(asset.getPrincipalCents());
+        record.putLong(asset.getInvestDate().toEpochDay());
+        commit();
+        for (Withdrawal w : asset.getWithdrawList()) {
+            journalWithdrawal(RECORD_WITHDRAWAL, asset, w);
+        }
+    }
+
+    @Override
+    public void assetRemoved(Asset asset) {
+        begin(REMOVE);
+        putString(asset.getName());
+        commit();
+    }
+
+    @Override
+    public void withdrawn(Asset asset, Withdrawal withdrawal) {
+        journalWithdrawal(WITHDRAW, asset, withdrawal);
+    }
+
+    @Override
+    public void investDateSet(Asset asset) {
+        begin(SET_INVEST_DATE);
+        putString(asset.getName());
+        record.putLong(asset.getInvestDate().toEpochDay());
+        commit();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: journals a withdrawal record of the given type
+    private void journalWithdrawal(byte type, Asset asset, Withdrawal withdrawal) {
+        begin(type);
+        putString(asset.getName());
+        record.putLong(withdrawal.getAmountCents());
+        record.putLong(withdrawal.getDate().toEpochDay());
+        commit();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: starts a record of the given type with the next sequence number
+    private void begin(byte type) {
+        record.clear();
+        record.putLong(seq + 1);
+        record.put(type);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds the given string to the record being built
+    private void putString(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (record.remaining() < bytes.length + 64) {
+            ByteBuffer bigger = ByteBuffer.allocate(record.capacity() + bytes.length + 64);
+            record = bigger.put(record.flip());
+        }
+        record.putInt(bytes.length).put(bytes);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends the record being built to the journal; the length is written last so that a
+    // torn write is never mistaken for a record. Saves the records on the writer thread when the save
+    // interval is reached
+    private void commit() {
+        if (append() >= saveInterval) {
+            saveInBackground();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: appends the record being built to the journal, forcing it to disk on the writer thread when
+    // the flush interval is reached, and returns the number of records written since the last save
+    private synchronized int append() {
+        int length = record.position();
+        int end = position + RECORD_HEADER_SIZE + length;
+        ensureCapacity(end + 4);
+        crc.reset();
+        crc.update(record.array(), 0, length);
+        buffer.putInt(end, 0);
+        buffer.put(position + RECORD_HEADER_SIZE, record.array(), 0, length);
+        buffer.putInt(position + 4, (int) crc.getValue());
+        buffer.putInt(position, length);
+        position = end;
+        seq++;
+        if (++unflushed >= flushInterval) {
+            unflushed = 0;
+            writer().execute(this::flush);
+        }
+        return ++sinceSave;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: remaps the journal with at least the given size if the mapping is smaller
+    private void ensureCapacity(int size) {
+        try {
+            if (size > buffer.capacity()) {
+                buffer.force();
+                map(Math.max(size, 2L * buffer.capacity()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: saves on the writer thread, starting it if needed, unless a save is already waiting to run
+    // there; a failed save is counted and leaves its records in the journal for the next one
+    private void saveInBackground() {
+        if (savePending.compareAndSet(false, true)) {
+            writer().execute(() -> {
+                savePending.set(false);
+                try {
+                    save();
+                } catch (IOException | UncheckedIOException e) {
+                    saveFailures.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the writer, starting its daemon thread if it is not running
+    private synchronized ExecutorService writer() {
+        if (writer == null) {
+            writer = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "journal-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return writer;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: lets the flushes and saves waiting on the writer thread finish and stops it
+    private void stopWriter() {
+        ExecutorService stopping;
+        synchronized (this) {
+            stopping = writer;
+            writer = null;
+        }
+        if (stopping != null) {
+            stopping.shutdown();
+            try {
+                stopping.awaitTermination(WRITER_SHUTDOWN_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: forces the records written so far to disk, without holding the lock of the journal while
+    // the disk is written, so records can be appended meanwhile
+    public void flush() {
+        MappedByteBuffer mapped;
+        synchronized (this) {
+            mapped = buffer;
+            unflushed = 0;
+        }
+        mapped.force();
+    }
+
+    // REQUIRES: the journal is open and has recovered or started an account
+    // MODIFIES: this
+    // EFFECTS: seals the records written since the last save into a new segment and drops them from the
+    // journal, waiting for a save in progress on another thread first; starts merging the segments into
+    // the snapshot in the background once there are compactionThreshold of them. Throws IOException
+    // if the segment cannot be written
+    public void save() throws IOException {
+        synchronized (saveLock) {
+            ByteBuffer records = unsavedRecords();
+            if (records != null) {
+                store.writeSegment(records);
+                saved();
+                if (store.segmentCount() >= compactionThreshold) {
+                    store.compactInBackground();
+                }
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns a copy of the records written since the last save followed by a zero length, or
+    // null if there are none, and notes how far they reach
+    private synchronized ByteBuffer unsavedRecords() {
+        if (position == sealed) {
+            return null;
+        }
+        int length = position + 4 - sealed;
+        pendingSeq = seq;
+        pendingEnd = position;
+        pendingGeneration = generation;
+        return ByteBuffer.allocate(length).put(buffer.slice(sealed, length)).flip();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: empties the journal if no record was written since the saved ones were copied, or else
+    // leaves the saved records out of later saves; does nothing if the journal was discarded meanwhile.
+    // The emptied journal is not forced to disk, since replay skips records that were saved
+    private synchronized void saved() {
+        if (generation == pendingGeneration) {
+            sinceSave = (int) (seq - pendingSeq);
+            sealed = pendingEnd;
+            if (seq == pendingSeq) {
+                buffer.putInt(HEADER_SIZE, 0);
+                position = HEADER_SIZE;
+                sealed = HEADER_SIZE;
+            }
+        }
+    }
+
+    // REQUIRES: the journal is open and has recovered or started an account
+    // MODIFIES: this
+    // EFFECTS: writes the account to a new generation of the snapshot, making it current, and empties the
+    // journal and drops the segments; throws IOException if the snapshot cannot be written
+    public void checkpoint() throws IOException {
+        synchronized (saveLock) {
+            store.checkpoint(account, seq);
+            discard();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: merges the segments into the snapshot now; throws IOException if it cannot be written
+    public void compact() throws IOException {
+        store.compact();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: drops the records written since the last save
+    public synchronized void discard() {
+        buffer.putInt(HEADER_SIZE, 0);
+        position = HEADER_SIZE;
+        sealed = HEADER_SIZE;
+        sinceSave = 0;
+        generation++;
+        flush();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: lets the flushes and saves on the writer thread finish, forces the journal to disk, stops
+    // journaling the account, lets a background compaction finish and closes the journal file
+    public void close() throws IOException {
+        stopWriter();
+        flush();
+        store.close();
+        if (account != null) {
+            account.setMutationListener(null);
+        }
+        channel.close();
+    }
+
+    // EFFECTS: returns the name of the file holding the current snapshot, or null if there is none;
+    // throws IOException if it cannot be told
+    public String getSnapshotFile() throws IOException {
+        Path current = store.current();
+        return current == null ? null : current.toString();
+    }
+
+    // EFFECTS: returns the sequence number of the last record written
+    public long getSeq() {
+        return seq;
+    }
+
+    // EFFECTS: returns the number of saves on the writer thread that failed
+    public int getSaveFailures() {
+        return saveFailures.get();
+    }
+
+    // EFFECTS: returns the number of background compactions that failed
+    public int getCompactionFailures() {
+        return store.getCompactionFailures();
+    }
+}
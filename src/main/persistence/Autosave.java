@@ -0,0 +1,91 @@
+package persistence;
+
+/*
+ * Saves the changes journaled for an account on a background thread, so that the thread changing
+ * the account never waits on the disk. Every interval the records journaled since the last save
+ * are copied out of the journal, which only holds its lock for the copy, and sealed into a segment
+ * on the autosave thread: a burst of changes within an interval is written once, and an interval
+ * without changes writes nothing. A segment is written to a temp file, forced to disk and renamed
+ * into place, so a crash never leaves a partly written segment or snapshot behind.
+ */
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class Autosave {
+    public static final long DEFAULT_INTERVAL_MILLIS = 2000;
+    private static final long SHUTDOWN_SECONDS = 60;
+
+    private final AccountJournal journal;
+    private final long intervalMillis;
+    private final AtomicInteger failures = new AtomicInteger();
+    private ScheduledExecutorService saver;
+
+    // EFFECTS: constructs an autosave of the given journal every DEFAULT_INTERVAL_MILLIS
+    public Autosave(AccountJournal journal) {
+        this(journal, DEFAULT_INTERVAL_MILLIS);
+    }
+
+    // REQUIRES: intervalMillis > 0
+    // EFFECTS: constructs an autosave of the given journal every intervalMillis
+    public Autosave(AccountJournal journal, long intervalMillis) {
+        this.journal = journal;
+        this.intervalMillis = intervalMillis;
+    }
+
+    // REQUIRES: the journal has recovered or started an account
+    // MODIFIES: this
+    // EFFECTS: starts saving every interval on the daemon autosave thread, unless already started
+    public synchronized void start() {
+        if (saver == null) {
+            saver = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "autosave");
+                thread.setDaemon(true);
+                return thread;
+            });
+            saver.scheduleWithFixedDelay(this::saveInBackground, intervalMillis, intervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: saves the journal, counting a failure instead of throwing it so that later saves still run;
+    // the records of a failed save stay in the journal for the next one
+    private void saveInBackground() {
+        try {
+            journal.save();
+        } catch (IOException | RuntimeException e) {
+            failures.incrementAndGet();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops saving in the background, after the save in progress if there is one
+    public synchronized void stop() {
+        if (saver != null) {
+            saver.shutdown();
+            try {
+                saver.awaitTermination(SHUTDOWN_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            saver = null;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops saving in the background and saves the changes left on the calling thread;
+    // throws IOException if they cannot be saved
+    public void close() throws IOException {
+        stop();
+        journal.save();
+    }
+
+    // EFFECTS: returns the number of background saves that failed
+    public int getFailureCount() {
+        return failures.get();
+    }
+}
@@ -0,0 +1,260 @@
+package persistence;
+
+/*
+ * A representation of a reader that reads account from a binary snapshot stored in file, in the
+ * format described in SnapshotFormat. Each block is checked against its CRC32C as it is read,
+ * and the numbers of the records are read straight into the fixed-point fields of the assets,
+ * so nothing is parsed from text. An account can also be opened from a memory mapping of the
+ * file, creating its assets only as they are used.
+ */
+
+import model.Account;
+import model.AccountLoader;
+import model.Asset;
+import model.Money;
+import model.Withdrawal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+
+public class BinaryReader {
+    private String source;
+    private long journalSeq;
+    private ReadableByteChannel channel;
+    private ByteBuffer frame;
+    private ByteBuffer block;
+    private ByteBuffer payload;
+    private int blockSize;
+    private int count;
+
+    // EFFECTS: constructs reader to read from source file
+    public BinaryReader(String source) {
+        this.source = source;
+    }
+
+    // EFFECTS: returns true if the given file starts like a binary snapshot;
+    // throws IOException if the file cannot be read
+    public static boolean isSnapshot(String file) throws IOException {
+        try (ReadableByteChannel channel = Files.newByteChannel(Paths.get(file))) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            int n = 0;
+            while (magic.hasRemaining() && n >= 0) {
+                n = channel.read(magic);
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == SnapshotFormat.MAGIC;
+        }
+    }
+
+    // EFFECTS: reads account from file and returns it;
+    // throws IOException if an error occurs reading data from file
+    public Account read() throws IOException {
+        try (ReadableByteChannel channel = Files.newByteChannel(Paths.get(source))) {
+            return read(channel);
+        }
+    }
+
+    // EFFECTS: reads account from the binary snapshot in the given channel and returns it;
+    // throws IOException if an error occurs reading the channel or the snapshot is malformed
+    public Account read(ReadableByteChannel channel) throws IOException {
+        this.channel = channel;
+        String name = readHeader();
+        block = ByteBuffer.allocate(blockSize);
+        payload = ByteBuffer.allocate(blockSize + SnapshotFormat.RECORD_SIZE).flip();
+        return readAssets(name, count);
+    }
+
+    // EFFECTS: maps the file into memory and returns the account in it, reading the numeric fields of
+    // its assets from the mapping and creating each asset from the mapping only when it is first used;
+    // throws IOException if an error occurs reading the file or the snapshot is malformed, and
+    // UncheckedIOException if a block found corrupt only when an asset is created
+    public Account map() throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(Paths.get(source))) {
+            channel = fileChannel;
+            String name = readHeader();
+            if (fileChannel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large to map: " + source);
+            }
+            MappedByteBuffer buffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
+            Account ac = new Account(name);
+            ac.lazyLoad(new MappedSnapshot(buffer, (int) fileChannel.position(), blockSize, count));
+            return ac;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // EFFECTS: returns the sequence number of the last journal record included in the account
+    // read last, or 0 if it was not written with one
+    public long getJournalSeq() {
+        return journalSeq;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads and checks the header and returns the user name in it
+    private String readHeader() throws IOException {
+        frame = ByteBuffer.allocate(SnapshotFormat.FRAME_SIZE);
+        ByteBuffer header = readFully(ByteBuffer.allocate(SnapshotFormat.HEADER_SIZE));
+        if (header.getInt(0) != SnapshotFormat.MAGIC) {
+            throw new IOException("Not an account snapshot");
+        } else if (header.getInt(4) != SnapshotFormat.VERSION) {
+            throw new IOException("Unsupported snapshot version " + header.getInt(4));
+        }
+        blockSize = header.getInt(8);
+        count = header.getInt(12);
+        int nameLength = header.getInt(24);
+        if (blockSize <= 0 || blockSize > SnapshotFormat.MAX_BLOCK_SIZE || count < 0 || nameLength < 0) {
+            throw new IOException("Malformed snapshot header");
+        }
+        checkFits(nameLength);
+        journalSeq = header.getLong(16);
+        return readName(header, nameLength);
+    }
+
+    // EFFECTS: throws IOException if the channel is a file too short to hold the name of the given length
+    // and the number of assets in the header, before anything is allocated for them
+    private void checkFits(int nameLength) throws IOException {
+        if (channel instanceof SeekableByteChannel) {
+            SeekableByteChannel file = (SeekableByteChannel) channel;
+            long remaining = file.size() - file.position() - nameLength - 4;
+            if (remaining < 0 || (long) count * SnapshotFormat.MIN_ASSET_SIZE > remaining) {
+                throw new IOException("Snapshot header claims more than the file holds");
+            }
+        }
+    }
+
+    // EFFECTS: reads the user name at the end of the header and checks the header against its checksum
+    private String readName(ByteBuffer fixed, int nameLength) throws IOException {
+        ByteBuffer rest = readFully(ByteBuffer.allocate(nameLength + 4));
+        ByteBuffer header = ByteBuffer.allocate(SnapshotFormat.HEADER_SIZE + nameLength)
+                .put(fixed.rewind()).put(rest.slice(0, nameLength)).flip();
+        if (SnapshotFormat.checksum(header) != rest.getInt(nameLength)) {
+            throw new IOException("Corrupt snapshot header");
+        }
+        return new String(rest.array(), 0, nameLength, StandardCharsets.UTF_8);
+    }
+
+    // EFFECTS: reads the records and then the variable section of the given number of assets
+    // and returns the account holding them
+    private Account readAssets(String name, int count) throws IOException {
+        Records records = readRecords(count);
+        Account ac = new Account(name);
+        AccountLoader loader = ac.loader(count);
+        for (int i = 0; i < count; i++) {
+            Asset asset = loader.add(readString(), records.term[i], records.rate[i], records.principal[i],
+                    records.investDay[i], records.status[i] == SnapshotFormat.REMOVED);
+            readWithdrawals(asset);
+        }
+        loader.finish();
+        return ac;
+    }
+
+    // EFFECTS: reads the given number of fixed-width records
+    private Records readRecords(int count) throws IOException {
+        Records records = new Records(count);
+        for (int i = 0; i < count; i++) {
+            require(SnapshotFormat.RECORD_SIZE);
+            records.principal[i] = payload.getLong();
+            records.rate[i] = payload.getInt();
+            records.term[i] = payload.getInt();
+            records.investDay[i] = payload.getInt();
+            records.status[i] = payload.get();
+            payload.position(payload.position() + 11);
+        }
+        return records;
+    }
+
+    // MODIFIES: asset
+    // EFFECTS: reads the withdrawals of an entry and adds them to the given asset
+    private void readWithdrawals(Asset asset) throws IOException {
+        require(4);
+        int n = payload.getInt();
+        if (n < 0) {
+            throw new IOException("Malformed withdrawal count " + n);
+        }
+        for (int i = 0; i < n; i++) {
+            require(SnapshotFormat.WITHDRAWAL_SIZE);
+            long cents = payload.getLong();
+            asset.addWithdrawal(new Withdrawal(Money.toDollars(cents), LocalDate.ofEpochDay(payload.getInt())));
+        }
+    }
+
+    // EFFECTS: reads a length and that many bytes of UTF-8 from the payload and returns the string
+    private String readString() throws IOException {
+        require(4);
+        int length = payload.getInt();
+        if (length < 0) {
+            throw new IOException("Malformed name length " + length);
+        }
+        byte[] bytes = new byte[length];
+        int read = 0;
+        while (read < length) {
+            require(1);
+            int n = Math.min(length - read, payload.remaining());
+            payload.get(bytes, read, n);
+            read += n;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads blocks until at least n bytes of payload are buffered
+    private void require(int n) throws IOException {
+        while (payload.remaining() < n) {
+            readBlock();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the next block, checks it against its checksum and appends its payload to the
+    // buffered payload; throws IOException if the snapshot ends or the block is corrupt
+    private void readBlock() throws IOException {
+        readFully(frame.clear());
+        int length = frame.getInt(0);
+        if (length <= 0 || length > block.capacity()) {
+            throw new IOException("Malformed snapshot block length " + length);
+        }
+        readFully(block.clear().limit(length));
+        if (SnapshotFormat.checksum(block) != frame.getInt(4)) {
+            throw new IOException("Corrupt snapshot block");
+        }
+        payload.compact().put(block).flip();
+    }
+
+    // EFFECTS: fills the remaining space of the buffer from the channel and returns it flipped;
+    // throws IOException if the channel ends first
+    private ByteBuffer readFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Truncated snapshot");
+            }
+        }
+        return buffer.flip();
+    }
+
+    // Represents the fixed-width records of a snapshot, read before the names they need
+    private static class Records {
+        private final long[] principal;
+        private final int[] rate;
+        private final int[] term;
+        private final int[] investDay;
+        private final byte[] status;
+
+        // EFFECTS: constructs room for the given number of records
+        Records(int count) {
+            principal = new long[count];
+            rate = new int[count];
+            term = new int[count];
+            investDay = new int[count];
+            status = new byte[count];
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package persistence;
+
+/*
+ * A representation of a writer that writes account to file in the binary snapshot format
+ * described in SnapshotFormat. Amounts, rates and dates are written as the fixed-point numbers
+ * the account holds, so nothing is formatted as text, and the file is written block by block
+ * through one buffer. The assets are read through the account's source, so writing an account
+ * that was loaded lazily does not create its assets.
+ */
+
+import model.Account;
+import model.AssetSource;
+import model.Event;
+import model.EventLog;
+
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+public class BinaryWriter {
+    private final ByteBuffer block = ByteBuffer.allocate(SnapshotFormat.FRAME_SIZE + SnapshotFormat.BLOCK_SIZE);
+    private final ByteBuffer scratch = ByteBuffer.allocate(SnapshotFormat.RECORD_SIZE);
+    private WritableByteChannel channel;
+    private String destination;
+
+    // EFFECTS: constructs writer to write to destination file
+    public BinaryWriter(String destination) {
+        this.destination = destination;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: opens writer; throws FileNotFoundException if destination file cannot
+    // be opened for writing
+    public void open() throws FileNotFoundException {
+        open(new FileOutputStream(destination).getChannel());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: opens writer onto the given channel instead of the destination file
+    public void open(WritableByteChannel channel) {
+        this.channel = channel;
+        block.clear().position(SnapshotFormat.FRAME_SIZE);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes binary snapshot of account to file;
+    // throws IOException if the file cannot be written
+    public void write(Account ac) throws IOException {
+        write(ac, 0);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes binary snapshot of account to file, tagged with the sequence number
+    // of the last journal record that the account includes; throws IOException if the file cannot be written
+    public void write(Account ac, long journalSeq) throws IOException {
+        AssetSource assets = ac.asSource();
+        writeHeader(ac.getName(), assets.size(), journalSeq);
+        writeRecords(assets);
+        writeEntries(assets);
+        EventLog.getInstance().logEvent(new Event(Event.Type.CHANGES_SAVED, null));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes out the last block and closes writer
+    public void close() throws IOException {
+        try {
+            writeBlock();
+        } finally {
+            channel.close();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the header of the snapshot
+    private void writeHeader(String name, int count, long journalSeq) throws IOException {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer header = ByteBuffer.allocate(SnapshotFormat.HEADER_SIZE + bytes.length + 4);
+        header.putInt(SnapshotFormat.MAGIC).putInt(SnapshotFormat.VERSION).putInt(SnapshotFormat.BLOCK_SIZE)
+                .putInt(count).putLong(journalSeq).putInt(bytes.length).put(bytes);
+        header.putInt(SnapshotFormat.checksum(header.duplicate().flip()));
+        writeFully(header.flip());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes a record for each of the given assets with its status, their entries
+    // following one another from the start of the variable section
+    private void writeRecords(AssetSource assets) throws IOException {
+        long offset = 0;
+        for (int i = 0; i < assets.size(); i++) {
+            byte status = assets.isRemoved(i) ? SnapshotFormat.REMOVED : SnapshotFormat.CURRENT;
+            scratch.clear();
+            scratch.putLong(assets.getPrincipalCents(i)).putInt(assets.getInterestBasisPoints(i))
+                    .putInt(assets.getTermToMaturity(i)).putInt((int) assets.getInvestEpochDay(i))
+                    .put(status).put((byte) 0).putShort((short) 0).putLong(offset);
+            put(scratch.flip());
+            int nameLength = assets.getName(i).getBytes(StandardCharsets.UTF_8).length;
+            offset += SnapshotFormat.entrySize(nameLength, assets.getWithdrawalCount(i));
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the entry in the variable section of each of the given assets
+    private void writeEntries(AssetSource assets) throws IOException {
+        for (int i = 0; i < assets.size(); i++) {
+            byte[] bytes = assets.getName(i).getBytes(StandardCharsets.UTF_8);
+            put(scratch.clear().putInt(bytes.length).flip());
+            put(ByteBuffer.wrap(bytes));
+            put(scratch.clear().putInt(assets.getWithdrawalCount(i)).flip());
+            for (int k = 0; k < assets.getWithdrawalCount(i); k++) {
+                put(scratch.clear().putLong(assets.getWithdrawalCents(i, k))
+                        .putInt((int) assets.getWithdrawalEpochDay(i, k)).flip());
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds the remaining bytes of src to the payload, writing out each block that fills up
+    private void put(ByteBuffer src) throws IOException {
+        while (src.hasRemaining()) {
+            if (!block.hasRemaining()) {
+                writeBlock();
+            }
+            int n = Math.min(src.remaining(), block.remaining());
+            block.put(block.position(), src, src.position(), n);
+            block.position(block.position() + n);
+            src.position(src.position() + n);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: frames the buffered payload as a block and writes it out, if there is any
+    private void writeBlock() throws IOException {
+        int length = block.position() - SnapshotFormat.FRAME_SIZE;
+        if (length > 0) {
+            block.flip();
+            block.putInt(0, length).putInt(4, SnapshotFormat.checksum(block.slice(SnapshotFormat.FRAME_SIZE, length)));
+            writeFully(block);
+        }
+        block.clear().position(SnapshotFormat.FRAME_SIZE);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the remaining bytes of the buffer to the channel
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
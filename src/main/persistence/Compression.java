@@ -0,0 +1,130 @@
+package persistence;
+
+/*
+ * The compression of an account file: none, gzip or deflate, each at a level from
+ * Deflater.BEST_SPEED to Deflater.BEST_COMPRESSION. Files are compressed and decompressed as
+ * streams, so neither side holds the whole file in memory. A compressed file is recognised on
+ * reading by its first two bytes: the gzip magic number 0x1F 0x8B, or the zlib header that
+ * starts a deflate stream, whose first byte names the deflate method and whose two bytes are a
+ * multiple of 31. Neither can start a JSON text, so an uncompressed file is read as it is.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+public final class Compression {
+    public static final Compression NONE = new Compression(Method.NONE, Deflater.NO_COMPRESSION);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int GZIP_MAGIC = 0x1F8B;
+
+    private enum Method { NONE, GZIP, DEFLATE }
+
+    private final Method method;
+    private final int level;
+
+    private Compression(Method method, int level) {
+        this.method = method;
+        this.level = level;
+    }
+
+    // EFFECTS: returns gzip compression at the default level
+    public static Compression gzip() {
+        return gzip(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    // REQUIRES: level is Deflater.DEFAULT_COMPRESSION or in 0..9
+    // EFFECTS: returns gzip compression at the given level
+    public static Compression gzip(int level) {
+        return new Compression(Method.GZIP, level);
+    }
+
+    // REQUIRES: level is Deflater.DEFAULT_COMPRESSION or in 0..9
+    // EFFECTS: returns deflate compression in a zlib stream at the given level
+    public static Compression deflate(int level) {
+        return new Compression(Method.DEFLATE, level);
+    }
+
+    // EFFECTS: returns the compression named by the extension of the given file name: gzip for ".gz",
+    // deflate at the default level for ".zz" and none otherwise
+    public static Compression forFile(String file) {
+        if (file.endsWith(".gz")) {
+            return gzip();
+        } else if (file.endsWith(".zz")) {
+            return deflate(Deflater.DEFAULT_COMPRESSION);
+        }
+        return NONE;
+    }
+
+    // EFFECTS: returns a channel writing to the given file through this compression, creating or
+    // truncating the file; closing the channel finishes the compressed stream and closes the file
+    WritableByteChannel create(String file) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        if (method == Method.NONE) {
+            return out.getChannel();
+        }
+        return Channels.newChannel(compress(out));
+    }
+
+    // EFFECTS: returns a stream compressing onto the given stream at the level of this compression
+    private OutputStream compress(OutputStream out) throws IOException {
+        if (method == Method.GZIP) {
+            return new GZIPOutputStream(out, BUFFER_SIZE) {
+                {
+                    def.setLevel(level);
+                }
+            };
+        }
+        return new DeflaterOutputStream(out, new Deflater(level), BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                super.close();
+                def.end();
+            }
+        };
+    }
+
+    // EFFECTS: returns a channel reading the given file, decompressing it if it starts with the magic
+    // number of gzip or the header of a deflate stream; throws IOException if the file cannot be opened
+    static ReadableByteChannel open(Path file) throws IOException {
+        SeekableByteChannel channel = Files.newByteChannel(file);
+        try {
+            ByteBuffer head = ByteBuffer.allocate(2);
+            int n = 0;
+            while (head.hasRemaining() && n >= 0) {
+                n = channel.read(head);
+            }
+            channel.position(0);
+            int header = head.hasRemaining() ? -1 : Short.toUnsignedInt(head.getShort(0));
+            if (header == GZIP_MAGIC) {
+                return Channels.newChannel(new GZIPInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+            } else if (isDeflateHeader(header)) {
+                InputStream in = new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE);
+                return Channels.newChannel(new InflaterInputStream(in));
+            }
+            return channel;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // EFFECTS: returns true if the given first two bytes of a file are a zlib header for deflate
+    private static boolean isDeflateHeader(int header) {
+        return header >= 0 && (header >> 8 & 0x0F) == 8 && header % 31 == 0;
+    }
+}
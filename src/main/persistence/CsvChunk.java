@@ -0,0 +1,312 @@
+package persistence;
+
+/*
+ * A chunk of whole lines of an asset CSV file, parsed on its own so that the chunks of a file can
+ * be parsed on several threads at once. Fields are read straight from the bytes: numbers, amounts
+ * and dates are converted without making a String of them, and only names and rejected rows become
+ * Strings. Line numbers are counted from the start of the chunk.
+ *
+ * Each line is one of
+ *     asset,<name>,<term in days>,<interest rate in percent>,<principal>,<investment date>
+ *     withdrawal,<asset name>,<amount>,<date>
+ * with amounts and rates of at most 2 decimal places and dates as yyyy-mm-dd. A name may be quoted,
+ * with a quote inside it doubled. The principal of an asset is what is left after its withdrawals.
+ * Blank lines are skipped, and so is a first line of the file starting with "kind".
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+class CsvChunk {
+    private static final byte[] ASSET = "asset".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] WITHDRAWAL = "withdrawal".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEADER = "kind".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_INT_DIGITS = 9;
+    private static final int MAX_AMOUNT_DIGITS = 15;
+
+    private final byte[] data;
+    private final int length;
+    private final boolean first;
+    private int pos;
+    private int lineEnd;
+    int lines;
+    final List<Row<PendingAsset>> assets = new ArrayList<>();
+    final List<Row<PendingWithdrawal>> withdrawals = new ArrayList<>();
+    final List<ImportReport.Reject> rejects = new ArrayList<>();
+
+    // Represents a parsed value together with the line of the chunk it was read from and its bounds
+    static class Row<T> {
+        final int line;
+        final int start;
+        final int end;
+        final T value;
+
+        Row(int line, int start, int end, T value) {
+            this.line = line;
+            this.start = start;
+            this.end = end;
+            this.value = value;
+        }
+    }
+
+    // Represents an asset read from a row, before it is checked against the others and created in the account
+    static class PendingAsset {
+        final String name;
+        final int term;
+        final int basisPoints;
+        final long cents;
+        final long investDay;
+
+        PendingAsset(String name, int term, int basisPoints, long cents, long investDay) {
+            this.name = name;
+            this.term = term;
+            this.basisPoints = basisPoints;
+            this.cents = cents;
+            this.investDay = investDay;
+        }
+    }
+
+    // Represents a withdrawal read from a row, before the asset it was made from is looked up
+    static class PendingWithdrawal {
+        final String name;
+        final long cents;
+        final LocalDate date;
+
+        PendingWithdrawal(String name, long cents, LocalDate date) {
+            this.name = name;
+            this.cents = cents;
+            this.date = date;
+        }
+    }
+
+    // Signals a row that cannot be imported, without the cost of a stack trace
+    private static class RowException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        RowException(String reason) {
+            super(reason, null, false, false);
+        }
+    }
+
+    // REQUIRES: the first length bytes of data are whole lines
+    // EFFECTS: constructs a chunk of the first length bytes of data; first is true if the chunk
+    // starts the file
+    CsvChunk(byte[] data, int length, boolean first) {
+        this.data = data;
+        this.length = length;
+        this.first = first;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: parses every line of the chunk into assets, withdrawals and rejected rows, and returns this
+    CsvChunk parse() {
+        int start = 0;
+        while (start < length) {
+            int end = start;
+            while (end < length && data[end] != '\n') {
+                end++;
+            }
+            lines++;
+            lineEnd = end > start && data[end - 1] == '\r' ? end - 1 : end;
+            parseLine(start);
+            start = end + 1;
+        }
+        return this;
+    }
+
+    // EFFECTS: returns the text of the row with the given bounds
+    String text(int start, int end) {
+        return new String(data, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: parses the line from start to lineEnd, or records it as rejected
+    private void parseLine(int start) {
+        pos = start;
+        if (pos == lineEnd || (first && lines == 1 && nextFieldIs(HEADER))) {
+            return;
+        }
+        try {
+            if (nextFieldIs(ASSET)) {
+                assets.add(new Row<>(lines, start, lineEnd, parseAsset()));
+            } else if (nextFieldIs(WITHDRAWAL)) {
+                withdrawals.add(new Row<>(lines, start, lineEnd, parseWithdrawal()));
+            } else {
+                throw new RowException("unknown kind of row");
+            }
+        } catch (RowException e) {
+            rejects.add(new ImportReport.Reject(lines, e.getMessage(), text(start, lineEnd)));
+        }
+    }
+
+    // EFFECTS: returns the asset in the rest of the line; throws RowException if a field is missing
+    // or malformed, or the term, rate or principal is not positive
+    private PendingAsset parseAsset() throws RowException {
+        String name = name();
+        int term = wholeNumber("term");
+        long rate = hundredths("interest rate");
+        long principal = hundredths("principal");
+        LocalDate investDate = date("investment date");
+        if (term <= 0 || rate <= 0 || principal <= 0) {
+            throw new RowException("term, interest rate and principal must be positive");
+        } else if (rate > Integer.MAX_VALUE) {
+            throw new RowException("interest rate is too large");
+        }
+        return new PendingAsset(name, term, (int) rate, principal, investDate.toEpochDay());
+    }
+
+    // EFFECTS: returns the withdrawal in the rest of the line; throws RowException if a field is missing
+    // or malformed, or the amount is not positive
+    private PendingWithdrawal parseWithdrawal() throws RowException {
+        String name = name();
+        long amount = hundredths("amount");
+        LocalDate date = date("date");
+        if (amount <= 0) {
+            throw new RowException("amount must be positive");
+        }
+        return new PendingWithdrawal(name, amount, date);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the next field and its separator and returns true if the field is the given word,
+    // or returns false and consumes nothing
+    private boolean nextFieldIs(byte[] word) {
+        int end = pos + word.length;
+        if (end > lineEnd || (end < lineEnd && data[end] != ',')) {
+            return false;
+        }
+        for (int i = 0; i < word.length; i++) {
+            if (data[pos + i] != word[i]) {
+                return false;
+            }
+        }
+        pos = Math.min(end + 1, lineEnd);
+        return true;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the next field as a name, unquoting it if it is quoted; throws RowException if
+    // it is empty or its quote is not closed
+    private String name() throws RowException {
+        if (pos < lineEnd && data[pos] == '"') {
+            return quotedName();
+        }
+        int start = pos;
+        while (pos < lineEnd && data[pos] != ',') {
+            pos++;
+        }
+        if (pos == start) {
+            throw new RowException("missing name");
+        }
+        String name = text(start, pos);
+        separator();
+        return name;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the quoted field at pos and returns its text with doubled quotes made single
+    private String quotedName() throws RowException {
+        byte[] unquoted = new byte[lineEnd - pos];
+        int n = 0;
+        pos++;
+        while (true) {
+            if (pos >= lineEnd) {
+                throw new RowException("unclosed quote");
+            } else if (data[pos] == '"' && (pos + 1 >= lineEnd || data[pos + 1] != '"')) {
+                break;
+            }
+            pos += data[pos] == '"' ? 1 : 0;
+            unquoted[n++] = data[pos++];
+        }
+        pos++;
+        if (n == 0) {
+            throw new RowException("missing name");
+        }
+        separator();
+        return new String(unquoted, 0, n, StandardCharsets.UTF_8);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the next field as a whole number; throws RowException if it is not one
+    private int wholeNumber(String field) throws RowException {
+        int start = pos;
+        int value = 0;
+        while (pos < lineEnd && isDigit(data[pos]) && pos - start < MAX_INT_DIGITS) {
+            value = value * 10 + (data[pos++] - '0');
+        }
+        if (pos == start) {
+            throw new RowException(field + " is not a whole number");
+        }
+        separator();
+        return value;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the next field as a number of at most 2 decimal places and returns it in hundredths;
+    // throws RowException if it is not one
+    private long hundredths(String field) throws RowException {
+        int start = pos;
+        long value = 0;
+        while (pos < lineEnd && isDigit(data[pos]) && pos - start < MAX_AMOUNT_DIGITS) {
+            value = value * 10 + (data[pos++] - '0');
+        }
+        int decimals = 0;
+        if (pos > start && pos < lineEnd && data[pos] == '.') {
+            pos++;
+            while (pos < lineEnd && isDigit(data[pos]) && decimals < 2) {
+                value = value * 10 + (data[pos++] - '0');
+                decimals++;
+            }
+        }
+        if (pos == start || (pos < lineEnd && data[pos] != ',')) {
+            throw new RowException(field + " is not a number with at most 2 decimal places");
+        }
+        separator();
+        return decimals == 2 ? value : decimals == 1 ? value * 10 : value * 100;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the last field of the line as a date written yyyy-mm-dd; throws RowException if
+    // it is not one or more fields follow
+    private LocalDate date(String field) throws RowException {
+        int start = pos;
+        if (lineEnd - start != 10 || data[start + 4] != '-' || data[start + 7] != '-') {
+            throw new RowException(field + " is not a date written yyyy-mm-dd");
+        }
+        try {
+            pos = start + 10;
+            return LocalDate.of(digits(start, 4), digits(start + 5, 2), digits(start + 8, 2));
+        } catch (DateTimeException e) {
+            throw new RowException(field + " is not a valid date");
+        }
+    }
+
+    // EFFECTS: returns the number written in the n bytes from start; throws RowException if one is not a digit
+    private int digits(int start, int n) throws RowException {
+        int value = 0;
+        for (int i = start; i < start + n; i++) {
+            if (!isDigit(data[i])) {
+                throw new RowException("date is not a date written yyyy-mm-dd");
+            }
+            value = value * 10 + (data[i] - '0');
+        }
+        return value;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the comma after a field; throws RowException if the field is not followed by one
+    private void separator() throws RowException {
+        if (pos >= lineEnd || data[pos] != ',') {
+            throw new RowException(pos >= lineEnd ? "missing field" : "malformed field");
+        }
+        pos++;
+    }
+
+    // EFFECTS: returns true if the given byte is an ASCII digit
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
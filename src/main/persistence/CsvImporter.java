@@ -0,0 +1,198 @@
+package persistence;
+
+/*
+ * Imports assets and their past withdrawals from a CSV file, in the format described in CsvChunk,
+ * into an account. The file is read through its channel in chunks of whole lines, and each chunk
+ * is parsed on a pool of worker threads while the next is read. The parsed rows are then checked in
+ * the order of the file, so that the first of two assets with one name is the one kept, and all the
+ * assets are created straight in the account in one bulk load. A row that cannot be imported is rejected into
+ * the report with its line number and the reason, and the import goes on.
+ */
+
+import model.Account;
+import model.AccountLoader;
+import model.Asset;
+import model.Money;
+import model.Withdrawal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CsvImporter {
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    private final int threads;
+
+    // EFFECTS: constructs an importer parsing on one thread per available core
+    public CsvImporter() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    // REQUIRES: threads > 0
+    // EFFECTS: constructs an importer parsing on the given number of threads
+    public CsvImporter(int threads) {
+        this.threads = threads;
+    }
+
+    // MODIFIES: ac
+    // EFFECTS: adds the assets in the given CSV file, with their withdrawals, to the account and returns
+    // the report of the import; a row is rejected if it is malformed, its term, rate or amount is not
+    // positive, its asset's name is already taken, or its withdrawal names no asset of the file, names
+    // an asset of which a row was rejected for its name, or is dated before its asset was invested.
+    // Throws IOException if the file cannot be read, in which case nothing is added
+    public ImportReport importInto(Account ac, String file) throws IOException {
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "csv-import-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<CsvChunk>> parses = parseChunks(file, pool);
+            List<CsvChunk> chunks = new ArrayList<>();
+            for (Future<CsvChunk> parse : parses) {
+                chunks.add(await(parse));
+            }
+            return load(ac, chunks);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // EFFECTS: reads the given file in chunks of whole lines and starts parsing each on the pool,
+    // returning the parses in the order of the file; a chunk is cut at its last newline once full,
+    // or grown if a line is longer than it
+    private List<Future<CsvChunk>> parseChunks(String file, ExecutorService pool) throws IOException {
+        List<Future<CsvChunk>> parses = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            byte[] data = new byte[CHUNK_SIZE];
+            int length = 0;
+            for (int n = 0; n >= 0; n = channel.read(ByteBuffer.wrap(data, length, data.length - length))) {
+                length += n;
+                int cut = length < data.length ? -1 : afterLastNewline(data, length);
+                if (cut == 0) {
+                    data = Arrays.copyOf(data, data.length * 2);
+                } else if (cut > 0) {
+                    byte[] rest = new byte[Math.max(CHUNK_SIZE, 2 * (length - cut))];
+                    System.arraycopy(data, cut, rest, 0, length - cut);
+                    parses.add(submit(pool, data, cut, parses.isEmpty()));
+                    data = rest;
+                    length -= cut;
+                }
+            }
+            if (length > 0) {
+                parses.add(submit(pool, data, length, parses.isEmpty()));
+            }
+        }
+        return parses;
+    }
+
+    // EFFECTS: returns the position after the last newline in the first length bytes of data, or 0 if
+    // there is none
+    private static int afterLastNewline(byte[] data, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (data[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    // EFFECTS: starts parsing the first length bytes of data on the pool
+    private static Future<CsvChunk> submit(ExecutorService pool, byte[] data, int length, boolean first) {
+        return pool.submit(() -> new CsvChunk(data, length, first).parse());
+    }
+
+    // EFFECTS: waits for the given parse and returns its chunk; throws IOException if it was interrupted
+    private static CsvChunk await(Future<CsvChunk> parse) throws IOException {
+        try {
+            return parse.get();
+        } catch (ExecutionException e) {
+            throw new IOException("Unable to parse CSV: " + e.getCause(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while importing CSV", e);
+        }
+    }
+
+    // MODIFIES: ac
+    // EFFECTS: checks the rows of the given chunks in the order of the file, adds the assets that pass
+    // with their withdrawals to the account and returns the report
+    private ImportReport load(Account ac, List<CsvChunk> chunks) {
+        ImportReport report = new ImportReport();
+        Map<String, Asset> imported = new HashMap<>();
+        Set<String> taken = new HashSet<>();
+        AccountLoader loader = ac.loader(0);
+        long firstLine = 1;
+        for (CsvChunk chunk : chunks) {
+            report.rejectAll(firstLine - 1, chunk.rejects);
+            for (CsvChunk.Row<CsvChunk.PendingAsset> row : chunk.assets) {
+                CsvChunk.PendingAsset a = row.value;
+                if (ac.containsName(a.name) || imported.containsKey(a.name)) {
+                    taken.add(a.name);
+                    report.reject(firstLine - 1 + row.line, "name is already taken", chunk.text(row.start, row.end));
+                } else {
+                    imported.put(a.name, loader.add(a.name, a.term, a.basisPoints, a.cents, a.investDay, false));
+                }
+            }
+            firstLine += chunk.lines;
+        }
+        int withdrawals = addWithdrawals(chunks, imported, taken, report);
+        loader.finish();
+        report.imported(imported.size(), withdrawals);
+        report.sortRejects();
+        return report;
+    }
+
+    // MODIFIES: assets in imported, report
+    // EFFECTS: adds the withdrawals in the given chunks to the imported assets they name, rejecting those
+    // that name none, name one of the taken names or are dated before their asset was invested, and
+    // returns the number added
+    private int addWithdrawals(List<CsvChunk> chunks, Map<String, Asset> imported, Set<String> taken,
+                               ImportReport report) {
+        int added = 0;
+        long firstLine = 1;
+        for (CsvChunk chunk : chunks) {
+            for (CsvChunk.Row<CsvChunk.PendingWithdrawal> row : chunk.withdrawals) {
+                String reason = rejectReason(row.value, imported.get(row.value.name), taken);
+                if (reason != null) {
+                    report.reject(firstLine - 1 + row.line, reason, chunk.text(row.start, row.end));
+                } else {
+                    Asset asset = imported.get(row.value.name);
+                    asset.addWithdrawal(new Withdrawal(Money.toDollars(row.value.cents), row.value.date));
+                    added++;
+                }
+            }
+            firstLine += chunk.lines;
+        }
+        return added;
+    }
+
+    // EFFECTS: returns the reason to reject the given withdrawal from the given asset, which is null if
+    // the file holds no asset of its name, or null if the withdrawal can be added
+    private static String rejectReason(CsvChunk.PendingWithdrawal withdrawal, Asset asset, Set<String> taken) {
+        if (taken.contains(withdrawal.name)) {
+            return "an asset of this name was rejected";
+        } else if (asset == null) {
+            return "no asset of this name in the file";
+        } else if (withdrawal.date.toEpochDay() < asset.getInvestEpochDay()) {
+            return "withdrawal is dated before its asset was invested";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,106 @@
+package persistence;
+
+/*
+ * The outcome of importing assets from a CSV file: how many assets and withdrawals were imported,
+ * and the rows that were rejected, each with its line number and the reason, in the order of
+ * their lines. The rejected rows can be written out as a CSV report of their own.
+ */
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+public class ImportReport {
+    private int assetsImported;
+    private int withdrawalsImported;
+    private final List<Reject> rejects = new ArrayList<>();
+
+    // Represents a rejected row of the imported file
+    public static class Reject {
+        private final long line;
+        private final String reason;
+        private final String row;
+
+        // EFFECTS: creates the rejection of the given row on the given line for the given reason
+        Reject(long line, String reason, String row) {
+            this.line = line;
+            this.reason = reason;
+            this.row = row;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        public String getRow() {
+            return row;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records the given number of assets and withdrawals as imported
+    void imported(int assets, int withdrawals) {
+        assetsImported += assets;
+        withdrawalsImported += withdrawals;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records the given row on the given line as rejected for the given reason
+    void reject(long line, String reason, String row) {
+        rejects.add(new Reject(line, reason, row));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: records the given rejected rows of a chunk, whose lines are numbered from the start of the
+    // chunk, as rejected on their lines of the file, which has the given number of lines before the chunk
+    void rejectAll(long linesBefore, List<Reject> chunkRejects) {
+        for (Reject r : chunkRejects) {
+            reject(linesBefore + r.getLine(), r.getReason(), r.getRow());
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: puts the rejected rows in the order of their lines
+    void sortRejects() {
+        rejects.sort(Comparator.comparingLong(Reject::getLine));
+    }
+
+    public int getAssetsImported() {
+        return assetsImported;
+    }
+
+    public int getWithdrawalsImported() {
+        return withdrawalsImported;
+    }
+
+    // EFFECTS: returns the rejected rows in the order of their lines
+    public List<Reject> getRejects() {
+        return Collections.unmodifiableList(rejects);
+    }
+
+    // EFFECTS: writes the rejected rows to the given file as CSV with the columns line, reason and row;
+    // throws IOException if the file cannot be written
+    public void writeRejects(String file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8)) {
+            writer.write("line,reason,row\n");
+            for (Reject r : rejects) {
+                writer.write(r.line + "," + quote(r.reason) + "," + quote(r.row) + "\n");
+            }
+        }
+    }
+
+    // EFFECTS: returns the given text as a quoted CSV field
+    private static String quote(String text) {
+        return "\"" + text.replace("\"", "\"\"") + "\"";
+    }
+}
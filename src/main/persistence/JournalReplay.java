@@ -0,0 +1,141 @@
+package persistence;
+
+/*
+ * Applies journal records, in the format written by AccountJournal, to an account. Used to replay
+ * the live journal and the sealed journal segments onto the account read from the snapshot.
+ */
+
+import model.Account;
+import model.Asset;
+import model.Money;
+import model.ValuationContext;
+import model.Withdrawal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.zip.CRC32;
+
+class JournalReplay {
+    private final CRC32 crc = new CRC32();
+    private Account account;
+    private long lastSeq;
+
+    // EFFECTS: constructs a replay onto the given account of records after the given sequence number
+    JournalReplay(Account account, long fromSeq) {
+        this.account = account;
+        this.lastSeq = fromSeq;
+    }
+
+    // EFFECTS: returns the account the records have been applied to
+    Account getAccount() {
+        return account;
+    }
+
+    // EFFECTS: returns the sequence number of the last record applied, or the one replay started after
+    long getLastSeq() {
+        return lastSeq;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: applies each whole record from the given position of the buffer on, if its sequence number
+    // is after the last one applied, and returns the position after the last whole record; throws
+    // IOException if a record names an unknown asset
+    int replayAll(ByteBuffer buffer, int from) throws IOException {
+        int pos = from;
+        for (int next = nextRecord(buffer, pos, crc); next > 0; next = nextRecord(buffer, pos, crc)) {
+            ByteBuffer payload = buffer.slice(pos + AccountJournal.RECORD_HEADER_SIZE, buffer.getInt(pos));
+            long seq = payload.getLong();
+            if (seq > lastSeq) {
+                replay(payload);
+                lastSeq = seq;
+            }
+            pos = next;
+        }
+        return pos;
+    }
+
+    // MODIFIES: crc
+    // EFFECTS: returns the position after the whole record at pos in the buffer, or -1 if there is none
+    static int nextRecord(ByteBuffer buffer, int pos, CRC32 crc) {
+        if (pos + AccountJournal.RECORD_HEADER_SIZE > buffer.limit()) {
+            return -1;
+        }
+        int length = buffer.getInt(pos);
+        int end = pos + AccountJournal.RECORD_HEADER_SIZE + length;
+        if (length <= 0 || end > buffer.limit() - 4) {
+            return -1;
+        }
+        crc.reset();
+        crc.update(buffer.slice(pos + AccountJournal.RECORD_HEADER_SIZE, length));
+        return (int) crc.getValue() == buffer.getInt(pos + 4) ? end : -1;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: applies the record in the payload to the account
+    private void replay(ByteBuffer payload) throws IOException {
+        byte type = payload.get();
+        if (type == AccountJournal.NEW_ACCOUNT) {
+            account = new Account(getString(payload));
+        } else if (type == AccountJournal.ADD) {
+            addAsset(payload);
+        } else {
+            replayOnAsset(type, find(getString(payload)), payload);
+        }
+    }
+
+    // MODIFIES: asset
+    // EFFECTS: applies the record of the given type in the payload to the given asset
+    private void replayOnAsset(byte type, Asset asset, ByteBuffer payload) {
+        if (type == AccountJournal.REMOVE) {
+            account.removeAsset(asset);
+        } else if (type == AccountJournal.SET_INVEST_DATE) {
+            LocalDate date = LocalDate.ofEpochDay(payload.getLong());
+            asset.setInvestDate(date.getMonthValue(), date.getDayOfMonth(), date.getYear());
+        } else {
+            double amount = Money.toDollars(payload.getLong());
+            LocalDate date = LocalDate.ofEpochDay(payload.getLong());
+            if (type == AccountJournal.WITHDRAW) {
+                asset.withdrawEarly(amount, ValuationContext.asOf(date));
+            } else {
+                asset.addWithdrawal(new Withdrawal(amount, date));
+            }
+        }
+    }
+
+    // EFFECTS: returns the asset with the given name, looking in the removed assets from the most
+    // recently removed if it is not in the account; throws IOException if there is none
+    private Asset find(String name) throws IOException {
+        Asset asset = account.findByName(name);
+        List<Asset> removed = account.getAssetsRemoved();
+        for (int i = removed.size() - 1; asset == null && i >= 0; i--) {
+            if (removed.get(i).getName().equals(name)) {
+                asset = removed.get(i);
+            }
+        }
+        if (asset == null) {
+            throw new IOException("Journal refers to unknown asset: " + name);
+        }
+        return asset;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds the asset whose name, term, rate, principal and investment date are in the payload
+    // to the account, creating it straight in the account
+    private void addAsset(ByteBuffer payload) {
+        String name = getString(payload);
+        int term = payload.getInt();
+        int rate = payload.getInt();
+        long principal = payload.getLong();
+        account.addNewAsset(name, term, rate, principal, payload.getLong());
+    }
+
+    // EFFECTS: reads a string from the payload
+    private String getString(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.getInt()];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,338 @@
+package persistence;
+
+/*
+ * A pull parser that reads JSON one token at a time from the UTF-8 bytes of a channel.
+ * It holds a fixed-size buffer of input and the text of the current token only, so the
+ * memory it needs does not grow with the size of the document. The caller asks for the
+ * next token and decides what to build from it; values it has no use for are skipped.
+ * Malformed input is reported as an IOException.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+class JsonPullParser {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int NO_BYTE = -2;
+
+    // Represents the kinds of tokens in a JSON document
+    enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, TRUE, FALSE, NULL, END_DOCUMENT
+    }
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer input = ByteBuffer.allocate(BUFFER_SIZE);
+    private int pushedBack = NO_BYTE;
+    private byte[] bytes = new byte[256];
+    private int length;
+    private final StringBuilder text = new StringBuilder();
+    private boolean[] inObject = new boolean[32];
+    private int depth;
+    private boolean expectName;
+    private Token peeked;
+
+    // EFFECTS: constructs a parser reading from the given channel
+    JsonPullParser(ReadableByteChannel channel) {
+        this.channel = channel;
+        input.flip();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the next token without consuming it
+    Token peek() throws IOException {
+        if (peeked == null) {
+            peeked = readToken();
+        }
+        return peeked;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes and returns the next token
+    Token next() throws IOException {
+        Token token = peek();
+        peeked = null;
+        return token;
+    }
+
+    // EFFECTS: returns the text of the last name, string or number read
+    String getText() {
+        return text.toString();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the next token; throws IOException if it is not the expected one
+    void expect(Token expected) throws IOException {
+        Token token = next();
+        if (token != expected) {
+            throw new IOException("Expected " + expected + " but found " + token);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the next name in an object and returns it, or consumes the end of the
+    // object and returns null
+    String nextName() throws IOException {
+        Token token = next();
+        if (token == Token.END_OBJECT) {
+            return null;
+        } else if (token != Token.NAME) {
+            throw new IOException("Expected a name but found " + token);
+        }
+        return getText();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the next value and returns it as a string
+    String nextString() throws IOException {
+        expect(Token.STRING);
+        return getText();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the next value and returns it as a double
+    double nextDouble() throws IOException {
+        expect(Token.NUMBER);
+        try {
+            return Double.parseDouble(getText());
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed number: " + getText());
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the next value and returns it as a long
+    long nextLong() throws IOException {
+        double value = nextDouble();
+        if (value != Math.rint(value)) {
+            throw new IOException("Expected an integer but found " + getText());
+        }
+        return (long) value;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: consumes the next value, including everything nested in it
+    void skipValue() throws IOException {
+        int nesting = 0;
+        do {
+            Token token = next();
+            if (token == Token.BEGIN_OBJECT || token == Token.BEGIN_ARRAY) {
+                nesting++;
+            } else if (token == Token.END_OBJECT || token == Token.END_ARRAY) {
+                nesting--;
+            } else if (token == Token.END_DOCUMENT) {
+                throw new IOException("Unexpected end of document");
+            }
+        } while (nesting > 0);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the next token from the input
+    private Token readToken() throws IOException {
+        int c = readSignificant();
+        switch (c) {
+            case -1:
+                return Token.END_DOCUMENT;
+            case '{':
+                return open(true, Token.BEGIN_OBJECT);
+            case '[':
+                return open(false, Token.BEGIN_ARRAY);
+            case '}':
+                return close(Token.END_OBJECT);
+            case ']':
+                return close(Token.END_ARRAY);
+            case '"':
+                readString();
+                return nameOrString();
+            default:
+                return readScalar(c);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the literal or number starting with the given byte
+    private Token readScalar(int c) throws IOException {
+        if (c == 't') {
+            return literal("rue", Token.TRUE);
+        } else if (c == 'f') {
+            return literal("alse", Token.FALSE);
+        } else if (c == 'n') {
+            return literal("ull", Token.NULL);
+        }
+        readNumber(c);
+        return Token.NUMBER;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: enters an object or array and returns the given token
+    private Token open(boolean object, Token token) {
+        if (depth == inObject.length) {
+            inObject = Arrays.copyOf(inObject, depth * 2);
+        }
+        inObject[depth++] = object;
+        expectName = object;
+        return token;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: leaves the innermost object or array and returns the given token
+    private Token close(Token token) throws IOException {
+        if (depth == 0) {
+            throw new IOException("Unbalanced " + token);
+        }
+        depth--;
+        expectName = false;
+        return token;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns NAME if the string just read is a name in an object, STRING otherwise
+    private Token nameOrString() {
+        if (expectName) {
+            expectName = false;
+            return Token.NAME;
+        }
+        return Token.STRING;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the rest of the given literal and returns the given token
+    private Token literal(String rest, Token token) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            if (read() != rest.charAt(i)) {
+                throw new IOException("Malformed literal, expected " + token);
+            }
+        }
+        return token;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: skips whitespace, colons and commas and returns the next byte; a comma inside an
+    // object means a name comes next
+    private int readSignificant() throws IOException {
+        int c = read();
+        while (c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == ':' || c == ',') {
+            if (c == ',') {
+                expectName = depth > 0 && inObject[depth - 1];
+            }
+            c = read();
+        }
+        return c;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads a number starting with the given byte into the text
+    private void readNumber(int first) throws IOException {
+        text.setLength(0);
+        int c = first;
+        while ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+            text.append((char) c);
+            c = read();
+        }
+        if (text.length() == 0) {
+            throw new IOException("Unexpected character: " + (char) c);
+        }
+        pushedBack = c;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the rest of a string into the text, decoding UTF-8 and escapes
+    private void readString() throws IOException {
+        text.setLength(0);
+        length = 0;
+        for (int c = read(); c != '"'; c = read()) {
+            if (c == -1) {
+                throw new IOException("Unterminated string");
+            } else if (c == '\\') {
+                flushBytes();
+                text.append(readEscape());
+            } else {
+                appendByte(c);
+            }
+        }
+        flushBytes();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the character escaped after a backslash
+    private char readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                return readUnicodeEscape();
+            case '"':
+            case '\\':
+            case '/':
+                return (char) c;
+            default:
+                throw new IOException("Malformed escape");
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the four hex digits of a unicode escape and returns the character they name; throws
+    // IOException if one is not a hex digit or the input ends first
+    private char readUnicodeEscape() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(read(), 16);
+            if (digit < 0) {
+                throw new IOException("Malformed unicode escape");
+            }
+            value = value * 16 + digit;
+        }
+        return (char) value;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds a byte of the string being read
+    private void appendByte(int c) {
+        if (length == bytes.length) {
+            bytes = Arrays.copyOf(bytes, length * 2);
+        }
+        bytes[length++] = (byte) c;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: decodes the bytes added since the last flush and appends them to the text
+    private void flushBytes() {
+        if (length > 0) {
+            text.append(new String(bytes, 0, length, StandardCharsets.UTF_8));
+            length = 0;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the next byte of input, or -1 at the end of the input
+    private int read() throws IOException {
+        if (pushedBack != NO_BYTE) {
+            int c = pushedBack;
+            pushedBack = NO_BYTE;
+            return c;
+        }
+        if (!input.hasRemaining()) {
+            input.clear();
+            int n = channel.read(input);
+            while (n == 0) {
+                n = channel.read(input);
+            }
+            input.flip();
+            if (n < 0) {
+                return -1;
+            }
+        }
+        return input.get() & 0xFF;
+    }
+}
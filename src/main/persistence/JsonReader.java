@@ -3,24 +3,29 @@ package persistence;
 /*
  * A representation of a reader that reads account from JSON data stored in file
  * Code influced by the JsonSerizalizationDemo https://github.students.cs.ubc.ca/CPSC210/JsonSerializationDemo
+ * The file is read as a stream of tokens and each asset is loaded straight into the book of the
+ * account as it is read, so the memory needed beyond the account itself does not grow with the
+ * size of the file. A file compressed
+ * with gzip or deflate is recognised by its first bytes and decompressed as it is read.
  */
 
 import model.Account;
+import model.AccountLoader;
 import model.Asset;
+import model.Money;
 import model.Withdrawal;
-import org.json.JSONArray;
-import org.json.JSONObject;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Stream;
 
 public class JsonReader {
     private String source;
+    private long journalSeq;
 
     // EFFECTS: constructs reader to read from source file
     public JsonReader(String source) {
@@ -30,86 +35,180 @@ public class JsonReader {
     // EFFECTS: reads account from file and returns it;
     // throws IOException if an error occurs reading data from file
     public Account read() throws IOException {
-        String jsonData = readFile(source);
-        JSONObject jsonObject = new JSONObject(jsonData);
-        return parseAccount(jsonObject);
+        try (ReadableByteChannel channel = Compression.open(Paths.get(source))) {
+            return read(channel);
+        }
     }
 
-    // EFFECTS: reads source file as string and returns it
-    private String readFile(String source) throws IOException {
-        StringBuilder contentBuilder = new StringBuilder();
-
-        try (Stream<String> stream = Files.lines(Paths.get(source), StandardCharsets.UTF_8)) {
-            stream.forEach(s -> contentBuilder.append(s));
+    // EFFECTS: reads account from the UTF-8 JSON in the given channel and returns it;
+    // throws IOException if an error occurs reading the channel or the JSON is malformed
+    public Account read(ReadableByteChannel channel) throws IOException {
+        try {
+            return parseAccount(new JsonPullParser(channel));
+        } catch (DateTimeParseException e) {
+            throw new IOException("Malformed date: " + e.getParsedString(), e);
         }
+    }
 
-        return contentBuilder.toString();
+    // EFFECTS: returns the sequence number of the last journal record included in the account
+    // read last, or 0 if it was not written with one
+    public long getJournalSeq() {
+        return journalSeq;
     }
 
-    // EFFECTS: parses account from JSON object and returns it
-    private Account parseAccount(JSONObject jsonObject) {
-        String name = jsonObject.getString("user_name");
-        Account ac = new Account(name);
-        addAccounts(ac, jsonObject);
+    // EFFECTS: parses account from JSON and returns it, loading each asset straight into it as it is read
+    private Account parseAccount(JsonPullParser parser) throws IOException {
+        String name = null;
+        Account ac = new Account("");
+        AccountLoader loader = ac.loader(0);
+        journalSeq = 0;
+        parser.expect(JsonPullParser.Token.BEGIN_OBJECT);
+        for (String key = parser.nextName(); key != null; key = parser.nextName()) {
+            if (key.equals("user_name")) {
+                name = parser.nextString();
+            } else if (key.equals("journal_seq")) {
+                journalSeq = parser.nextLong();
+            } else if (key.equals("accounts")) {
+                addAccounts(parser, loader);
+            } else {
+                parser.skipValue();
+            }
+        }
+        if (name == null) {
+            throw new IOException("Missing user_name");
+        }
+        loader.finish();
+        ac.setName(name);
         return ac;
     }
 
-    // MODIFIES: ac
-    // EFFECTS: parses active and removed accounts from JSON object and adds them to the main account
-    private void addAccounts(Account ac, JSONObject jsonObject) {
-        JSONArray jsonArray = jsonObject.getJSONArray("accounts");
-        for (Object json : jsonArray) {
-            JSONObject nextAccount = (JSONObject) json;
-            String status = nextAccount.getString("status");
-            addAssets(ac, nextAccount, status);
+    // MODIFIES: loader
+    // EFFECTS: parses active and removed accounts from JSON and loads their assets; the assets of an account
+    // whose status comes after them are loaded as active and moved to the removed assets if it is "removed"
+    private void addAccounts(JsonPullParser parser, AccountLoader loader) throws IOException {
+        parser.expect(JsonPullParser.Token.BEGIN_ARRAY);
+        while (parser.peek() != JsonPullParser.Token.END_ARRAY) {
+            String status = null;
+            int beforeStatus = 0;
+            parser.expect(JsonPullParser.Token.BEGIN_OBJECT);
+            for (String key = parser.nextName(); key != null; key = parser.nextName()) {
+                if (key.equals("status")) {
+                    status = parser.nextString();
+                } else if (key.equals("assets") && status == null) {
+                    beforeStatus += addAssets(parser, loader, false);
+                } else if (key.equals("assets")) {
+                    addAssets(parser, loader, status.equals("removed"));
+                } else {
+                    parser.skipValue();
+                }
+            }
+            if (status == null) {
+                throw new IOException("Missing status");
+            } else if (status.equals("removed")) {
+                loader.removeLast(beforeStatus);
+            }
         }
+        parser.expect(JsonPullParser.Token.END_ARRAY);
     }
 
-    // MODIFIES: ac
-    // EFFECTS: parses assets from JSON object and adds it to the account
-    private void addAssets(Account ac, JSONObject jsonObject, String status) {
-        JSONArray jsonArray = jsonObject.getJSONArray("assets");
-        for (Object json : jsonArray) {
-            JSONObject nextAsset = (JSONObject) json;
-            addAsset(ac, nextAsset, status);
+    // MODIFIES: loader
+    // EFFECTS: parses assets from JSON, loads them as removed or active and returns how many there were
+    private int addAssets(JsonPullParser parser, AccountLoader loader, boolean removed) throws IOException {
+        int count = 0;
+        parser.expect(JsonPullParser.Token.BEGIN_ARRAY);
+        while (parser.peek() != JsonPullParser.Token.END_ARRAY) {
+            parseAsset(parser).load(loader, removed);
+            count++;
         }
+        parser.expect(JsonPullParser.Token.END_ARRAY);
+        return count;
     }
 
-    // MODIFIES: ac
-    // EFFECTS: parses asset from JSON object and adds it to the related account (active/removed)
-    private void addAsset(Account ac, JSONObject jsonObject, String status) {
-        String name = jsonObject.getString("name");
-        JSONObject features = jsonObject.getJSONObject("features");
-
-        double interestRate = features.getDouble("interestRate") * 100;
-        int termToMaturity = features.getInt("termToMaturity");
-        double principal = features.getDouble("principal");
-        LocalDate investDate = LocalDate.parse(features.getString("investDate"));
-        Asset asset = new Asset(name, termToMaturity, interestRate, principal);
-        asset.setInvestDate(investDate.getMonthValue(), investDate.getDayOfMonth(), investDate.getYear());
-        addWithdraw(asset, features);
-
-        ac.addAsset(asset);
-
-        if (status.equals("removed")) {
-            ac.removeAsset(asset);
+    // EFFECTS: parses asset from JSON and returns its name and features
+    private Features parseAsset(JsonPullParser parser) throws IOException {
+        String name = null;
+        Features features = null;
+        parser.expect(JsonPullParser.Token.BEGIN_OBJECT);
+        for (String key = parser.nextName(); key != null; key = parser.nextName()) {
+            if (key.equals("name")) {
+                name = parser.nextString();
+            } else if (key.equals("features")) {
+                features = parseFeatures(parser);
+            } else {
+                parser.skipValue();
+            }
+        }
+        if (name == null || features == null) {
+            throw new IOException("Missing name or features of asset");
         }
+        features.name = name;
+        return features;
     }
 
-    // MODIFIES: as
-    // EFFECTS: parses withdrawList from JSON array and adds to the asset
-    private void addWithdraw(Asset as, JSONObject jsonObject) {
-        List<Withdrawal> withdrawList = as.getWithdrawList();
-        JSONArray jsonArray = jsonObject.getJSONArray("withdrawList");
+    // EFFECTS: parses the features of an asset from JSON and returns them
+    private Features parseFeatures(JsonPullParser parser) throws IOException {
+        Features features = new Features();
+        parser.expect(JsonPullParser.Token.BEGIN_OBJECT);
+        for (String key = parser.nextName(); key != null; key = parser.nextName()) {
+            if (key.equals("interestRate")) {
+                features.interestRate = parser.nextDouble() * 100;
+            } else if (key.equals("termToMaturity")) {
+                features.termToMaturity = (int) parser.nextLong();
+            } else if (key.equals("principal")) {
+                features.principal = parser.nextDouble();
+            } else if (key.equals("investDate")) {
+                features.investDate = LocalDate.parse(parser.nextString());
+            } else if (key.equals("withdrawList")) {
+                addWithdraw(parser, features.withdrawList);
+            } else {
+                parser.skipValue();
+            }
+        }
+        return features;
+    }
 
-        for (Object json : jsonArray) {
-            JSONObject nextWithdraw = (JSONObject) json;
-            LocalDate withdrawDate = LocalDate.parse(nextWithdraw.getString("date"));
-            double amount = nextWithdraw.getDouble("amount");
-            Withdrawal withdraw = new Withdrawal(amount);
-            withdraw.setDate(withdrawDate.getMonthValue(), withdrawDate.getDayOfMonth(), withdrawDate.getYear());
+    // MODIFIES: withdrawals
+    // EFFECTS: parses withdrawList from JSON array and adds the withdrawals to the given list
+    private void addWithdraw(JsonPullParser parser, List<Withdrawal> withdrawals) throws IOException {
+        parser.expect(JsonPullParser.Token.BEGIN_ARRAY);
+        while (parser.peek() != JsonPullParser.Token.END_ARRAY) {
+            LocalDate date = null;
+            double amount = 0;
+            parser.expect(JsonPullParser.Token.BEGIN_OBJECT);
+            for (String key = parser.nextName(); key != null; key = parser.nextName()) {
+                if (key.equals("date")) {
+                    date = LocalDate.parse(parser.nextString());
+                } else if (key.equals("amount")) {
+                    amount = parser.nextDouble();
+                } else {
+                    parser.skipValue();
+                }
+            }
+            withdrawals.add(new Withdrawal(amount, date));
+        }
+        parser.expect(JsonPullParser.Token.END_ARRAY);
+    }
 
-            withdrawList.add(withdraw);
+    // Represents the name and features of an asset, read in whichever order they come before it is loaded
+    private static class Features {
+        private String name;
+        private double interestRate;
+        private int termToMaturity;
+        private double principal;
+        private LocalDate investDate;
+        private final List<Withdrawal> withdrawList = new ArrayList<>();
+
+        // MODIFIES: loader
+        // EFFECTS: loads the asset with this name and these features, as removed or active
+        void load(AccountLoader loader, boolean removed) throws IOException {
+            if (investDate == null) {
+                throw new IOException("Missing investDate of asset " + name);
+            }
+            Asset asset = loader.add(name, termToMaturity, Money.percentToBasisPoints(interestRate),
+                    Money.toCents(principal), investDate.toEpochDay(), removed);
+            for (Withdrawal w : withdrawList) {
+                asset.addWithdrawal(w);
+            }
         }
     }
 }
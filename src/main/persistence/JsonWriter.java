@@ -3,47 +3,330 @@ package persistence;
 /*
  * A representation of a writer that writes JSON representation of account to file
  * Code influced by the JsonSerizalizationDemo https://github.students.cs.ubc.ca/CPSC210/JsonSerializationDemo
+ * The account is written in one pass, asset by asset, through a fixed-size buffer onto the file's
+ * channel, without building the JSON tree or string of the whole account first. The output is
+ * indented by default, or compact without any whitespace, and may be compressed as it is written.
  */
 
 import model.Account;
-import org.json.JSONObject;
+import model.Asset;
+import model.Event;
+import model.EventLog;
+import model.Withdrawal;
 
-import java.io.FileNotFoundException;
-import java.io.PrintWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
 
 public class JsonWriter {
     private static final int TAB = 4;
-    private PrintWriter writer;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final boolean compact;
+    private final Compression compression;
+    private WritableByteChannel channel;
     private String destination;
+    private boolean[] hasItems = new boolean[8];
+    private int depth;
+    private boolean afterName;
 
-    // EFFECTS: constructs writer to write to destination file
+    // EFFECTS: constructs writer to write indented JSON to destination file
     public JsonWriter(String destination) {
+        this(destination, false);
+    }
+
+    // EFFECTS: constructs writer to write to destination file, without any whitespace if compact is true
+    public JsonWriter(String destination, boolean compact) {
+        this(destination, compact, Compression.NONE);
+    }
+
+    // EFFECTS: constructs writer to write to destination file through the given compression, without any
+    // whitespace if compact is true
+    public JsonWriter(String destination, boolean compact, Compression compression) {
         this.destination = destination;
+        this.compact = compact;
+        this.compression = compression;
     }
 
     // MODIFIES: this
     // EFFECTS: opens writer; throws FileNotFoundException if destination file cannot
-    // be opened for writing
-    public void open() throws FileNotFoundException {
-        writer = new PrintWriter(destination);
+    // be opened for writing, or IOException if the compressed stream cannot be started
+    public void open() throws IOException {
+        open(compression.create(destination));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: opens writer onto the given channel instead of the destination file
+    public void open(WritableByteChannel channel) {
+        this.channel = channel;
+        buffer.clear();
+        depth = 0;
+        afterName = false;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes JSON representation of account to file;
+    // throws IOException if the file cannot be written
+    public void write(Account ac) throws IOException {
+        writeAccount(ac, null);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes JSON representation of account to file, tagged with the sequence number
+    // of the last journal record that the account includes; throws IOException if the file cannot be written
+    public void write(Account ac, long journalSeq) throws IOException {
+        writeAccount(ac, journalSeq);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes out anything still buffered and closes writer
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the account, and the journal sequence number if it is not null
+    private void writeAccount(Account ac, Long journalSeq) throws IOException {
+        beginObject();
+        name("user_name");
+        string(ac.getName());
+        name("accounts");
+        beginArray();
+        writeAssets("current", ac.getAccount());
+        writeAssets("removed", ac.getAssetsRemoved());
+        endArray();
+        if (journalSeq != null) {
+            name("journal_seq");
+            raw(journalSeq.toString());
+        }
+        endObject();
+        EventLog.getInstance().logEvent(new Event(Event.Type.CHANGES_SAVED, null));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the given assets as an account with the given status
+    private void writeAssets(String status, List<Asset> assets) throws IOException {
+        beginObject();
+        name("status");
+        string(status);
+        name("assets");
+        beginArray();
+        for (Asset a : assets) {
+            writeAsset(a);
+        }
+        endArray();
+        endObject();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the given asset
+    private void writeAsset(Asset a) throws IOException {
+        beginObject();
+        name("name");
+        string(a.getName());
+        name("features");
+        beginObject();
+        name("interestRate");
+        raw(Double.toString(a.getInterestRate()));
+        name("termToMaturity");
+        raw(Integer.toString(a.getTermToMaturity()));
+        name("investDate");
+        string(a.getInvestDate().toString());
+        name("principal");
+        raw(centsToString(a.getPrincipalCents()));
+        name("withdrawList");
+        beginArray();
+        for (Withdrawal w : a.getWithdrawList()) {
+            writeWithdrawal(w);
+        }
+        endArray();
+        endObject();
+        endObject();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the given withdrawal
+    private void writeWithdrawal(Withdrawal w) throws IOException {
+        beginObject();
+        name("date");
+        string(String.valueOf(w.getDate()));
+        name("amount");
+        raw(centsToString(w.getAmountCents()));
+        endObject();
+    }
+
+    // EFFECTS: returns the given amount in cents as an exact decimal number of dollars
+    private static String centsToString(long cents) {
+        return BigDecimal.valueOf(cents, 2).stripTrailingZeros().toPlainString();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: starts an object
+    private void beginObject() throws IOException {
+        beginValue();
+        put('{');
+        push();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: ends the innermost object
+    private void endObject() throws IOException {
+        pop();
+        put('}');
+    }
+
+    // MODIFIES: this
+    // EFFECTS: starts an array
+    private void beginArray() throws IOException {
+        beginValue();
+        put('[');
+        push();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: ends the innermost array
+    private void endArray() throws IOException {
+        pop();
+        put(']');
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the name of the next member of the innermost object
+    private void name(String name) throws IOException {
+        beginValue();
+        quoted(name);
+        put(':');
+        if (!compact) {
+            put(' ');
+        }
+        afterName = true;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes a string value
+    private void string(String value) throws IOException {
+        beginValue();
+        quoted(value);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes a value whose JSON text is given
+    private void raw(String text) throws IOException {
+        beginValue();
+        ascii(text);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the separator and indentation that come before a name, or before a value
+    // that is not the value of a name
+    private void beginValue() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (hasItems[depth - 1]) {
+                put(',');
+            }
+            hasItems[depth - 1] = true;
+            newLine(depth);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: enters an object or array
+    private void push() {
+        if (depth == hasItems.length) {
+            hasItems = Arrays.copyOf(hasItems, depth * 2);
+        }
+        hasItems[depth++] = false;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: leaves the innermost object or array, putting its closing bracket on a new line
+    // if it has any items
+    private void pop() throws IOException {
+        depth--;
+        if (hasItems[depth]) {
+            newLine(depth);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: starts a new line indented to the given depth, unless the output is compact
+    private void newLine(int indent) throws IOException {
+        if (!compact) {
+            put('\n');
+            for (int i = 0; i < indent * TAB; i++) {
+                put(' ');
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the given string in quotes, escaping the characters JSON requires
+    private void quoted(String s) throws IOException {
+        put('"');
+        int start = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                utf8(s.substring(start, i));
+                ascii(c == '"' || c == '\\' ? "\\" + c : String.format("\\u%04x", (int) c));
+                start = i + 1;
+            }
+        }
+        utf8(s.substring(start));
+        put('"');
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the UTF-8 bytes of the given string
+    private void utf8(String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        for (byte b : bytes) {
+            put(b);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the given string, which has only ASCII characters
+    private void ascii(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            put((byte) s.charAt(i));
+        }
     }
 
     // MODIFIES: this
-    // EFFECTS: writes JSON representation of account to file
-    public void write(Account ac) {
-        JSONObject json = ac.toJson();
-        saveToFile(json.toString(TAB));
+    // EFFECTS: writes a byte, writing the buffer to the channel first if it is full
+    private void put(char c) throws IOException {
+        put((byte) c);
     }
 
     // MODIFIES: this
-    // EFFECTS: closes writer
-    public void close() {
-        writer.close();
+    // EFFECTS: writes a byte, writing the buffer to the channel first if it is full
+    private void put(byte b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put(b);
     }
 
     // MODIFIES: this
-    // EFFECTS: writes string to file
-    private void saveToFile(String json) {
-        writer.print(json);
+    // EFFECTS: writes the buffered bytes to the channel
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
     }
 }
@@ -0,0 +1,162 @@
+package persistence;
+
+/*
+ * The assets of a binary snapshot read in place from a memory mapping of the file, in the
+ * format described in SnapshotFormat. Nothing is copied onto the heap until a field is asked
+ * for, and each block is checked against its CRC32C the first time it is read. A block that
+ * fails the check is reported as an UncheckedIOException, since it may only be read long after
+ * the snapshot was opened.
+ */
+
+import model.AssetSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+
+class MappedSnapshot implements AssetSource {
+    private final ByteBuffer buffer;
+    private final int payloadStart;
+    private final int blockSize;
+    private final int count;
+    private final long entriesStart;
+    private final BitSet verified = new BitSet();
+    private final byte[] scratch = new byte[8];
+
+    // EFFECTS: constructs the assets of the snapshot mapped into the given buffer, whose blocks of
+    // the given size start at payloadStart and hold count assets
+    MappedSnapshot(ByteBuffer buffer, int payloadStart, int blockSize, int count) {
+        this.buffer = buffer;
+        this.payloadStart = payloadStart;
+        this.blockSize = blockSize;
+        this.count = count;
+        this.entriesStart = (long) count * SnapshotFormat.RECORD_SIZE;
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public boolean isRemoved(int i) {
+        return buffer.get(position(record(i) + 20, 1)) == SnapshotFormat.REMOVED;
+    }
+
+    @Override
+    public long getPrincipalCents(int i) {
+        return buffer.getLong(position(record(i), 8));
+    }
+
+    @Override
+    public int getInterestBasisPoints(int i) {
+        return buffer.getInt(position(record(i) + 8, 4));
+    }
+
+    @Override
+    public int getTermToMaturity(int i) {
+        return buffer.getInt(position(record(i) + 12, 4));
+    }
+
+    @Override
+    public long getInvestEpochDay(int i) {
+        return buffer.getInt(position(record(i) + 16, 4));
+    }
+
+    @Override
+    public String getName(int i) {
+        long entry = entry(i);
+        byte[] bytes = new byte[getInt(entry)];
+        read(entry + 4, bytes, bytes.length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int getWithdrawalCount(int i) {
+        long entry = entry(i);
+        return getInt(entry + 4 + getInt(entry));
+    }
+
+    @Override
+    public long getWithdrawalCents(int i, int k) {
+        return getLong(withdrawal(i, k));
+    }
+
+    @Override
+    public long getWithdrawalEpochDay(int i, int k) {
+        return getInt(withdrawal(i, k) + 8);
+    }
+
+    // EFFECTS: returns the payload offset of the record of the i-th asset
+    private long record(int i) {
+        return (long) i * SnapshotFormat.RECORD_SIZE;
+    }
+
+    // EFFECTS: returns the payload offset of the entry of the i-th asset in the variable section
+    private long entry(int i) {
+        return entriesStart + buffer.getLong(position(record(i) + 24, 8));
+    }
+
+    // EFFECTS: returns the payload offset of the k-th withdrawal in the entry of the i-th asset
+    private long withdrawal(int i, int k) {
+        long entry = entry(i);
+        return entry + 8 + getInt(entry) + (long) k * SnapshotFormat.WITHDRAWAL_SIZE;
+    }
+
+    // EFFECTS: returns the int at the given payload offset, which may straddle two blocks
+    private int getInt(long offset) {
+        read(offset, scratch, 4);
+        return ByteBuffer.wrap(scratch).getInt();
+    }
+
+    // EFFECTS: returns the long at the given payload offset, which may straddle two blocks
+    private long getLong(long offset) {
+        read(offset, scratch, 8);
+        return ByteBuffer.wrap(scratch).getLong();
+    }
+
+    // MODIFIES: dst
+    // EFFECTS: copies the n bytes of payload from the given offset into dst, block by block
+    private void read(long offset, byte[] dst, int n) {
+        int done = 0;
+        while (done < n) {
+            int chunk = (int) Math.min(n - done, blockSize - (offset + done) % blockSize);
+            buffer.get(position(offset + done, chunk), dst, done, chunk);
+            done += chunk;
+        }
+    }
+
+    // EFFECTS: returns the position in the file of the given payload offset, checking the block
+    // holding it if it has not been checked yet; throws UncheckedIOException if the n bytes from
+    // the offset are not all in that block or the block is corrupt
+    private int position(long offset, int n) {
+        int block = (int) (offset / blockSize);
+        int within = (int) (offset % blockSize);
+        long start = payloadStart + (long) block * (blockSize + SnapshotFormat.FRAME_SIZE);
+        if (!verified.get(block)) {
+            verify(block, start);
+        }
+        if (within + n > buffer.getInt((int) start)) {
+            throw new UncheckedIOException(new IOException("Snapshot payload ends before offset " + offset));
+        }
+        return (int) start + SnapshotFormat.FRAME_SIZE + within;
+    }
+
+    // EFFECTS: checks the block starting at the given position against its checksum
+    private void verify(int block, long start) {
+        if (start + SnapshotFormat.FRAME_SIZE > buffer.capacity()) {
+            throw new UncheckedIOException(new IOException("Truncated snapshot"));
+        }
+        int length = buffer.getInt((int) start);
+        if (length <= 0 || length > blockSize || start + SnapshotFormat.FRAME_SIZE + length > buffer.capacity()) {
+            throw new UncheckedIOException(new IOException("Malformed snapshot block length " + length));
+        }
+        ByteBuffer data = buffer.slice((int) start + SnapshotFormat.FRAME_SIZE, length);
+        if (SnapshotFormat.checksum(data) != buffer.getInt((int) start + 4)) {
+            throw new UncheckedIOException(new IOException("Corrupt snapshot block " + block));
+        }
+        verified.set(block);
+    }
+}
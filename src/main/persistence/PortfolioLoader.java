@@ -0,0 +1,118 @@
+package persistence;
+
+/*
+ * Loads every account file in a directory into one portfolio. The files are read and valued in
+ * parallel on a pool with one thread per core by default, and no more threads than files, so
+ * consolidating many clients takes about as long as the largest of them once there are enough
+ * cores. JSON files, compressed or not, and binary snapshots are read; other files are ignored.
+ */
+
+import model.Account;
+import model.Portfolio;
+import model.ValuationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class PortfolioLoader {
+    private static final List<String> EXTENSIONS = List.of(".json", ".json.gz", ".json.zz", ".bin");
+
+    private final int threads;
+
+    // EFFECTS: constructs a loader with one thread per available core
+    public PortfolioLoader() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    // REQUIRES: threads > 0
+    // EFFECTS: constructs a loader reading at most the given number of files at once
+    public PortfolioLoader(int threads) {
+        this.threads = threads;
+    }
+
+    // EFFECTS: reads the accounts in the account files of the given directory, in the order of their file
+    // names, values them as of the given date and returns them as a portfolio; throws IOException if the
+    // directory cannot be listed or a file cannot be read
+    public Portfolio load(String directory, LocalDate date) throws IOException {
+        List<Path> files = accountFiles(Paths.get(directory));
+        if (files.isEmpty()) {
+            return new Portfolio(new ArrayList<>(), date);
+        }
+        ExecutorService pool = newPool(Math.min(threads, files.size()));
+        try {
+            List<Future<Account>> loads = new ArrayList<>();
+            for (Path file : files) {
+                loads.add(pool.submit(() -> read(file, date)));
+            }
+            List<Account> accounts = new ArrayList<>();
+            for (int i = 0; i < files.size(); i++) {
+                accounts.add(await(loads.get(i), files.get(i)));
+            }
+            return new Portfolio(accounts, date);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // EFFECTS: returns the account files in the given directory in the order of their names
+    private List<Path> accountFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(f -> Files.isRegularFile(f) && isAccountFile(f.getFileName().toString()))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    // EFFECTS: returns true if the given file name has the extension of an account file
+    private boolean isAccountFile(String name) {
+        return EXTENSIONS.stream().anyMatch(name::endsWith);
+    }
+
+    // EFFECTS: returns a pool of the given number of daemon threads
+    private ExecutorService newPool(int size) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(size, r -> {
+            Thread thread = new Thread(r, "portfolio-loader-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // EFFECTS: reads the account in the given file, in whichever format it is written, and values it as
+    // of the given date
+    private static Account read(Path file, LocalDate date) throws IOException {
+        Account ac;
+        if (BinaryReader.isSnapshot(file.toString())) {
+            ac = new BinaryReader(file.toString()).read();
+        } else {
+            ac = new JsonReader(file.toString()).read();
+        }
+        ac.refresh(ValuationContext.asOf(date));
+        return ac;
+    }
+
+    // EFFECTS: waits for the given load of the given file and returns its account; throws IOException
+    // naming the file if the load failed or was interrupted
+    private Account await(Future<Account> load, Path file) throws IOException {
+        try {
+            return load.get();
+        } catch (ExecutionException e) {
+            throw new IOException("Unable to read " + file + ": " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading " + file, e);
+        }
+    }
+}
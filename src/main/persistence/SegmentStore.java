@@ -0,0 +1,403 @@
+package persistence;
+
+/*
+ * The snapshot of an account together with the journal segments saved after it. A save seals the
+ * records journaled since the previous save into a new segment file beside the snapshot, so that
+ * its cost follows the size of the change rather than the size of the account; loading reads the
+ * snapshot and replays the segments in the order they were saved. Compaction merges the snapshot
+ * with the segments into a fresh snapshot and only deletes the merged segments once the snapshot and
+ * the pointer to it are forced to disk, so a crash at any point leaves a snapshot and segments that
+ * load to the same account. Compaction can run on a background thread while the account is used
+ * and saved; it maps the snapshot like any load, and the writer reads the assets from the mapping,
+ * so the assets the segments leave alone are never created.
+ *
+ * Each snapshot is written to a new generation file, named after the snapshot with its number
+ * before the extension, and becomes current once a small pointer file beside the snapshot, named
+ * after it followed by ".current", is atomically replaced to name it. A snapshot is never written
+ * over, since an account read from a binary snapshot keeps it mapped, and a mapped file cannot be
+ * replaced on every system. Older generations are deleted once no account read in this process
+ * still maps them; one that cannot be deleted yet, as when the system has not released a mapping
+ * of it, is left for the next attempt. A snapshot in the file itself, as written by an earlier
+ * version, is read until the first generation is written, and then deleted the same way.
+ *
+ * A segment is named after the snapshot followed by ".seg" and its number, and has the file
+ * format of the journal.
+ */
+
+import model.Account;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+class SegmentStore {
+    private static final String SEGMENT_INFIX = ".seg";
+    private static final String POINTER_SUFFIX = ".current";
+    private static final long COMPACTOR_SHUTDOWN_SECONDS = 60;
+    private static final Map<Account, Path> MAPPED = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final String snapshot;
+    private final Path directory;
+    private final Path original;
+    private final Path pointer;
+    private final String segmentPrefix;
+    private final String generationPrefix;
+    private final String generationSuffix;
+    private final AtomicBoolean compactionPending = new AtomicBoolean();
+    private final AtomicInteger compactionFailures = new AtomicInteger();
+    private ExecutorService compactor;
+    private long nextSegment;
+    private volatile String name;
+
+    // EFFECTS: constructs the store of the snapshot in the given file and its segments
+    SegmentStore(String snapshot) {
+        this.snapshot = snapshot;
+        this.original = Paths.get(snapshot).toAbsolutePath();
+        this.directory = original.getParent();
+        String fileName = original.getFileName().toString();
+        this.pointer = directory.resolve(fileName + POINTER_SUFFIX);
+        this.segmentPrefix = fileName + SEGMENT_INFIX;
+        int dot = fileName.indexOf('.') < 0 ? fileName.length() : fileName.indexOf('.');
+        this.generationPrefix = fileName.substring(0, dot) + ".";
+        this.generationSuffix = fileName.substring(dot);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the account from the snapshot, or creates an empty one with the given name if there
+    // is none, and returns a replay positioned after the records of the snapshot and the segments;
+    // throws IOException if the snapshot or a segment cannot be read
+    synchronized JournalReplay load(String name) throws IOException {
+        this.name = name;
+        JournalReplay replay = load(segments());
+        deleteStale();
+        return replay;
+    }
+
+    // EFFECTS: returns a replay of the given segments onto the account read from the snapshot
+    private JournalReplay load(List<Path> segments) throws IOException {
+        JournalReplay replay = readSnapshot();
+        for (Path segment : segments) {
+            replay.replayAll(readSegment(segment), AccountJournal.HEADER_SIZE);
+        }
+        return replay;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: if there is no snapshot but there is one in the given previous file, writes the account
+    // of the previous snapshot and its segments to the snapshot, tagged with the last record they
+    // include, and returns true; the previous files are left as they are. Otherwise returns false.
+    // Throws IOException if the previous snapshot or a segment of it cannot be read or the snapshot
+    // cannot be written
+    synchronized boolean upgradeFrom(String previous) throws IOException {
+        SegmentStore old = new SegmentStore(previous);
+        if (current() != null || old.current() == null) {
+            return false;
+        }
+        JournalReplay replay = old.load(old.segments());
+        writeSnapshot(replay.getAccount(), replay.getLastSeq());
+        return true;
+    }
+
+    // EFFECTS: returns the sequence number of the last record saved to the snapshot or the segments;
+    // throws IOException if it cannot be read
+    synchronized long lastSeq() throws IOException {
+        List<Path> segments = segments();
+        if (segments.isEmpty()) {
+            return current() != null ? readSnapshot().getLastSeq() : 0;
+        }
+        ByteBuffer buffer = readSegment(segments.get(segments.size() - 1));
+        CRC32 crc = new CRC32();
+        long last = 0;
+        int pos = AccountJournal.HEADER_SIZE;
+        int next = JournalReplay.nextRecord(buffer, pos, crc);
+        while (next > 0) {
+            last = buffer.getLong(pos + AccountJournal.RECORD_HEADER_SIZE);
+            pos = next;
+            next = JournalReplay.nextRecord(buffer, pos, crc);
+        }
+        return last;
+    }
+
+    // EFFECTS: returns the contents of the given segment; throws IOException if it is not a journal segment
+    private ByteBuffer readSegment(Path segment) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+        if (buffer.limit() < AccountJournal.HEADER_SIZE || buffer.getInt(0) != AccountJournal.MAGIC
+                || buffer.getInt(4) != AccountJournal.VERSION) {
+            throw new IOException("Not a journal segment: " + segment);
+        }
+        return buffer;
+    }
+
+    // EFFECTS: returns the file of the current snapshot: the generation the pointer names, or else the
+    // snapshot file itself if an earlier version wrote one, or null if there is no snapshot;
+    // throws IOException if the pointer cannot be read
+    synchronized Path current() throws IOException {
+        if (Files.exists(pointer)) {
+            return directory.resolve(Files.readString(pointer).trim());
+        }
+        return Files.exists(original) ? original : null;
+    }
+
+    // EFFECTS: returns a replay onto the account in the current snapshot, in whichever format it is
+    // written, after the last journal record it includes; an account mapped from a binary snapshot is
+    // remembered as mapping it for as long as the account is reachable
+    private JournalReplay readSnapshot() throws IOException {
+        Path current = current();
+        if (current == null) {
+            return new JournalReplay(new Account(name), 0);
+        } else if (BinaryReader.isSnapshot(current.toString())) {
+            BinaryReader reader = new BinaryReader(current.toString());
+            Account ac = reader.map();
+            MAPPED.put(ac, current);
+            return new JournalReplay(ac, reader.getJournalSeq());
+        }
+        JsonReader reader = new JsonReader(current.toString());
+        Account ac = reader.read();
+        return new JournalReplay(ac, reader.getJournalSeq());
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the given journal records, ending with a zero length, to a new segment after the
+    // existing ones; the segment only appears once it is complete and forced to disk
+    void writeSegment(ByteBuffer records) throws IOException {
+        List<Path> segments = segments();
+        if (!segments.isEmpty()) {
+            nextSegment = Math.max(nextSegment, numberOf(segments.get(segments.size() - 1)) + 1);
+        }
+        Path target = directory.resolve(segmentPrefix + nextSegment++);
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(AccountJournal.HEADER_SIZE);
+            header.putInt(AccountJournal.MAGIC).putInt(AccountJournal.VERSION).flip();
+            while (header.hasRemaining() || records.hasRemaining()) {
+                channel.write(new ByteBuffer[]{header, records});
+            }
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // EFFECTS: returns the number of segments saved since the last compaction
+    int segmentCount() throws IOException {
+        return segments().size();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the given account to a new generation of the snapshot, making it current, and
+    // deletes the segments, all of which it includes, and the stale generations; waits for a compaction
+    // in progress to end first
+    synchronized void checkpoint(Account ac, long seq) throws IOException {
+        List<Path> merged = segments();
+        writeSnapshot(ac, seq);
+        delete(merged);
+        deleteStale();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: merges the snapshot with the segments into a new generation of the snapshot, making it
+    // current, and deletes the merged segments and the stale generations; does nothing if there are
+    // no segments
+    synchronized void compact() throws IOException {
+        List<Path> merged = segments();
+        if (!merged.isEmpty()) {
+            JournalReplay replay = load(merged);
+            writeSnapshot(replay.getAccount(), replay.getLastSeq());
+            delete(merged);
+            deleteStale();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: compacts on the background compactor thread, starting it if needed, unless a compaction
+    // is already waiting to run there; a failed compaction is counted and leaves the files as they were
+    void compactInBackground() {
+        if (compactionPending.compareAndSet(false, true)) {
+            compactor().execute(() -> {
+                compactionPending.set(false);
+                try {
+                    compact();
+                } catch (IOException | UncheckedIOException e) {
+                    compactionFailures.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    // EFFECTS: returns the number of background compactions that failed
+    int getCompactionFailures() {
+        return compactionFailures.get();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: lets a background compaction in progress or waiting to run finish and stops the compactor
+    void close() {
+        if (compactor != null) {
+            compactor.shutdown();
+            try {
+                compactor.awaitTermination(COMPACTOR_SHUTDOWN_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            compactor = null;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the compactor, starting its daemon thread if it is not running
+    private synchronized ExecutorService compactor() {
+        if (compactor == null) {
+            compactor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "segment-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return compactor;
+    }
+
+    // EFFECTS: writes the account tagged with the given sequence number to a new generation of the snapshot
+    // and then points the pointer at it, each forced to disk before it is moved into place, so that the
+    // pointer never names a generation that is not wholly on disk; a snapshot whose file name ends in
+    // ".bin" is written in the binary format and any other in JSON, compressed as its extension names
+    private void writeSnapshot(Account ac, long seq) throws IOException {
+        Path generation = directory.resolve(generationPrefix + nextGeneration() + generationSuffix);
+        if (snapshot.endsWith(".bin")) {
+            BinaryWriter writer = new BinaryWriter(generation.toString());
+            writer.open();
+            writer.write(ac, seq);
+            writer.close();
+        } else {
+            JsonWriter writer = new JsonWriter(generation.toString(), false, Compression.forFile(snapshot));
+            writer.open();
+            writer.write(ac, seq);
+            writer.close();
+        }
+        force(generation);
+        Path temp = directory.resolve(pointer.getFileName() + ".tmp");
+        Files.writeString(temp, generation.getFileName().toString());
+        force(temp);
+        Files.move(temp, pointer, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // EFFECTS: forces the contents of the given file, as written and closed, to disk
+    private static void force(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    // EFFECTS: deletes the given segments
+    private void delete(List<Path> segments) throws IOException {
+        for (Path segment : segments) {
+            Files.deleteIfExists(segment);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: deletes every generation but the current one, and the snapshot file of an earlier version
+    // once a generation has replaced it, unless an account read in this process still maps it; a file
+    // the system does not let go of yet is left for the next call
+    private void deleteStale() throws IOException {
+        Path current = current();
+        Set<Path> mapped;
+        synchronized (MAPPED) {
+            mapped = new HashSet<>(MAPPED.values());
+        }
+        List<Path> stale = generations();
+        if (Files.exists(pointer)) {
+            stale.add(original);
+        }
+        for (Path file : stale) {
+            if (!file.equals(current) && !mapped.contains(file)) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    // still held by the system, so it is deleted by a later call
+                }
+            }
+        }
+    }
+
+    // EFFECTS: returns the number of the next generation of the snapshot, after every one there is
+    private long nextGeneration() throws IOException {
+        List<Path> generations = generations();
+        return generations.isEmpty() ? 1 : generationOf(generations.get(generations.size() - 1)) + 1;
+    }
+
+    // EFFECTS: returns the generations of the snapshot in the order they were written
+    private List<Path> generations() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(this::isGeneration)
+                    .sorted(Comparator.comparingLong(this::generationOf))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    // EFFECTS: returns true if the given file is a generation of the snapshot
+    private boolean isGeneration(Path file) {
+        String fileName = file.getFileName().toString();
+        int end = fileName.length() - generationSuffix.length();
+        return fileName.startsWith(generationPrefix) && fileName.endsWith(generationSuffix)
+                && end > generationPrefix.length()
+                && fileName.substring(generationPrefix.length(), end).chars().allMatch(Character::isDigit);
+    }
+
+    // REQUIRES: isGeneration(generation)
+    // EFFECTS: returns the number of the given generation
+    private long generationOf(Path generation) {
+        String fileName = generation.getFileName().toString();
+        return Long.parseLong(fileName.substring(generationPrefix.length(), fileName.length()
+                - generationSuffix.length()));
+    }
+
+    // EFFECTS: returns the segments of the snapshot in the order they were saved
+    private List<Path> segments() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(this::isSegment)
+                    .sorted(Comparator.comparingLong(this::numberOf))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    // EFFECTS: returns true if the given file is a segment of the snapshot
+    private boolean isSegment(Path file) {
+        String fileName = file.getFileName().toString();
+        return fileName.startsWith(segmentPrefix) && fileName.length() > segmentPrefix.length()
+                && fileName.substring(segmentPrefix.length()).chars().allMatch(Character::isDigit);
+    }
+
+    // REQUIRES: isSegment(segment)
+    // EFFECTS: returns the number of the given segment
+    private long numberOf(Path segment) {
+        return Long.parseLong(segment.getFileName().toString().substring(segmentPrefix.length()));
+    }
+}
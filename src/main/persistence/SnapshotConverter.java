@@ -0,0 +1,58 @@
+package persistence;
+
+/*
+ * Converts account files between the JSON format and the binary snapshot format, keeping the
+ * journal sequence number they are tagged with. Run it with the source and destination files;
+ * the direction follows from the format of the source. JSON is compressed or decompressed on the
+ * way as well: a compressed source is recognised by its first bytes, and a JSON destination whose
+ * name ends in ".gz" or ".zz" is compressed with gzip or deflate.
+ */
+
+import model.Account;
+
+import java.io.IOException;
+
+public class SnapshotConverter {
+    private SnapshotConverter() {
+    }
+
+    // EFFECTS: converts the given file between the JSON and binary formats, in the direction
+    // given by the format of the source
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: SnapshotConverter <source> <destination>");
+            return;
+        }
+        if (BinaryReader.isSnapshot(args[0])) {
+            toJson(args[0], args[1]);
+        } else {
+            toBinary(args[0], args[1]);
+        }
+    }
+
+    // EFFECTS: writes the account in the given JSON file to the given binary snapshot file;
+    // throws IOException if either file cannot be read or written
+    public static void toBinary(String jsonFile, String binaryFile) throws IOException {
+        JsonReader reader = new JsonReader(jsonFile);
+        Account ac = reader.read();
+        BinaryWriter writer = new BinaryWriter(binaryFile);
+        writer.open();
+        writer.write(ac, reader.getJournalSeq());
+        writer.close();
+    }
+
+    // EFFECTS: writes the account in the given binary snapshot file to the given JSON file;
+    // throws IOException if either file cannot be read or written
+    public static void toJson(String binaryFile, String jsonFile) throws IOException {
+        BinaryReader reader = new BinaryReader(binaryFile);
+        Account ac = reader.read();
+        JsonWriter writer = new JsonWriter(jsonFile, false, Compression.forFile(jsonFile));
+        writer.open();
+        if (reader.getJournalSeq() != 0) {
+            writer.write(ac, reader.getJournalSeq());
+        } else {
+            writer.write(ac);
+        }
+        writer.close();
+    }
+}
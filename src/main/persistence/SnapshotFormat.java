@@ -0,0 +1,53 @@
+package persistence;
+
+/*
+ * The layout of a binary account snapshot, shared by BinaryWriter and BinaryReader.
+ *
+ * The file starts with a header: int magic, int version, int block size, int asset count,
+ * long journal sequence number, int length and UTF-8 bytes of the user name, and an int
+ * CRC32C of the header. The rest of the file is a payload cut into blocks; each block is an
+ * int payload length, an int CRC32C of the payload and the payload itself. Every block but
+ * the last holds exactly the block size, so the block holding any payload offset is known
+ * without reading the blocks before it.
+ *
+ * The payload starts with one fixed-width record per asset, current assets first: long
+ * principal in cents, int rate in basis points, int term in days, int investment epoch day,
+ * byte status, three bytes of padding and long offset of the asset's entry in the variable
+ * section. The variable section follows, with one entry per asset in the same order: int
+ * length and UTF-8 bytes of the name, int number of withdrawals, and for each withdrawal a
+ * long amount in cents and an int epoch day. All numbers are big-endian.
+ */
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
+
+final class SnapshotFormat {
+    static final int MAGIC = 0x57414C53;
+    static final int VERSION = 1;
+    static final int BLOCK_SIZE = 64 * 1024;
+    static final int MAX_BLOCK_SIZE = 16 * 1024 * 1024;
+    static final int HEADER_SIZE = 28;
+    static final int FRAME_SIZE = 8;
+    static final int RECORD_SIZE = 32;
+    static final int WITHDRAWAL_SIZE = 12;
+    static final int MIN_ASSET_SIZE = RECORD_SIZE + 8; // a record and an entry with no name or withdrawals
+    static final byte CURRENT = 0;
+    static final byte REMOVED = 1;
+
+    private SnapshotFormat() {
+    }
+
+    // EFFECTS: returns the CRC32C of the bytes between the position and the limit of the buffer,
+    // leaving the buffer unchanged
+    static int checksum(ByteBuffer buffer) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate());
+        return (int) crc.getValue();
+    }
+
+    // EFFECTS: returns the size in the variable section of an entry with the given name length
+    // and number of withdrawals
+    static long entrySize(int nameLength, int withdrawals) {
+        return 4L + nameLength + 4 + (long) withdrawals * WITHDRAWAL_SIZE;
+    }
+}
@@ -0,0 +1,345 @@
+package persistence;
+
+/*
+ * Exports a refreshed valuation of every asset of an account, the assets presently in the account
+ * first and then the removed ones, for analysis outside the application. Each row holds the name,
+ * the status (active, inactive or removed), the principal, the interest rate in percent, the term in
+ * days, the investment and maturity dates, the days held, the total gain and the full return.
+ *
+ * The rows are written as CSV, with amounts and rates to 2 decimal places and dates as yyyy-mm-dd,
+ * or as a columnar file. The columnar file starts with a header: int magic, int version, int row
+ * count, int column count and long epoch day of the valuation. One block per column follows, in the
+ * order of Column: int length and ASCII bytes of the column name, byte width of a value (1, 4 or 8,
+ * or 0 for the name column), long length of the data and the data, one big-endian value per row.
+ * The status is 0 for active, 1 for inactive and 2 for removed, amounts are in cents, rates in basis
+ * points and dates in epoch days; the name column holds an int length and UTF-8 bytes per row.
+ *
+ * The values are read from the columns of the account, so no asset is created, and every file is
+ * written through one buffer of a fixed size whatever the number of rows. A file is written under a
+ * temporary name, forced to disk and renamed over the destination once complete, so an export that
+ * fails, or a crash, leaves the previous file, if any, as it was.
+ */
+
+import model.Account;
+import model.ValuationContext;
+import model.ValuationCursor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Locale;
+
+public class ValuationExporter {
+    public static final int MAGIC = 0x57434F4C;
+    public static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_FIELD_SIZE = 32;
+    private static final byte[] CSV_HEADER = ("name,status,principal,interest_rate,term,invest_date,maturity_date,"
+            + "days_held,total_gain,full_return\n").getBytes(StandardCharsets.US_ASCII);
+    private static final byte[][] STATUS_NAMES = {bytes("active"), bytes("inactive"), bytes("removed")};
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final String destination;
+    private WritableByteChannel channel;
+
+    // The columns of the columnar file, in the order they are written, with the width of their values
+    private enum Column {
+        NAME(0), STATUS(1), PRINCIPAL(8), INTEREST_RATE(4), TERM(4), INVEST_DATE(4), MATURITY_DATE(4),
+        DAYS_HELD(4), TOTAL_GAIN(8), FULL_RETURN(8);
+
+        private final int width;
+
+        Column(int width) {
+            this.width = width;
+        }
+    }
+
+    // EFFECTS: constructs an exporter writing to the destination file
+    public ValuationExporter(String destination) {
+        this.destination = destination;
+    }
+
+    // MODIFIES: ac
+    // EFFECTS: refreshes the account as of the context date, writes the valuation of each of its assets
+    // to the destination file as CSV, compressed as named by the extension of the file, and returns the
+    // number of rows written; the file is written under a temporary name and then renamed, so it is
+    // replaced whole or not at all; throws IOException if the file cannot be written
+    public int exportCsv(Account ac, ValuationContext context) throws IOException {
+        ac.refresh(context);
+        ValuationCursor rows = ac.valuations();
+        Path temp = Paths.get(destination + ".tmp");
+        try {
+            writeCsv(temp, rows);
+            replaceDestination(temp);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return rows.size();
+    }
+
+    // MODIFIES: ac
+    // EFFECTS: refreshes the account as of the context date, writes the valuation of each of its assets
+    // to the destination file as a columnar file and returns the number of rows written; the file is
+    // written under a temporary name and then renamed, so it is replaced whole or not at all; throws
+    // IOException if the file cannot be written
+    public int exportColumnar(Account ac, ValuationContext context) throws IOException {
+        ac.refresh(context);
+        ValuationCursor rows = ac.valuations();
+        Path temp = Paths.get(destination + ".tmp");
+        try {
+            writeColumnar(temp, rows, context.getEpochDay());
+            replaceDestination(temp);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return rows.size();
+    }
+
+    // MODIFIES: this, rows
+    // EFFECTS: writes the rows to the given file as CSV, compressed as named by the destination file, and
+    // forces it to disk once closed, since a compressed stream is only complete once it is closed
+    private void writeCsv(Path file, ValuationCursor rows) throws IOException {
+        try (WritableByteChannel out = Compression.forFile(destination).create(file.toString())) {
+            channel = out;
+            buffer.clear();
+            put(CSV_HEADER);
+            while (rows.next()) {
+                writeCsvRow(rows);
+            }
+            flush();
+        }
+        try (FileChannel written = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            written.force(true);
+        }
+    }
+
+    // MODIFIES: this, rows
+    // EFFECTS: writes the rows valued on the given epoch day to the given file as a columnar file
+    private void writeColumnar(Path file, ValuationCursor rows, long epochDay) throws IOException {
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel = out;
+            buffer.clear();
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(rows.size()).putInt(Column.values().length)
+                    .putLong(epochDay);
+            for (Column column : Column.values()) {
+                writeColumn(out, column, rows);
+            }
+            out.force(true);
+        }
+    }
+
+    // EFFECTS: moves the given fully written file, forced to disk, over the destination file in one step
+    private void replaceDestination(Path written) throws IOException {
+        Files.move(written, Paths.get(destination), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // MODIFIES: this, rows
+    // EFFECTS: writes the block of the given column, going over the rows again, and fills in the length
+    // of its data once it is written
+    private void writeColumn(FileChannel out, Column column, ValuationCursor rows) throws IOException {
+        byte[] name = bytes(column.name().toLowerCase(Locale.ROOT));
+        room(name.length + MAX_FIELD_SIZE);
+        buffer.putInt(name.length).put(name).put((byte) column.width);
+        flush();
+        long lengthAt = out.position();
+        buffer.putLong(0);
+        rows.reset();
+        while (rows.next()) {
+            if (column == Column.NAME) {
+                byte[] text = rows.getName().getBytes(StandardCharsets.UTF_8);
+                room(4);
+                buffer.putInt(text.length);
+                put(text);
+            } else {
+                putValue(column, valueOf(column, rows));
+            }
+        }
+        flush();
+        out.write(ByteBuffer.allocate(8).putLong(0, out.position() - lengthAt - 8), lengthAt);
+    }
+
+    // EFFECTS: returns the value of the given fixed-width column for the row of the cursor
+    private static long valueOf(Column column, ValuationCursor row) {
+        switch (column) {
+            case STATUS:
+                return row.isRemoved() ? 2 : row.isActive() ? 0 : 1;
+            case PRINCIPAL:
+                return row.getPrincipalCents();
+            case INTEREST_RATE:
+                return row.getInterestBasisPoints();
+            case TERM:
+                return row.getTermToMaturity();
+            case INVEST_DATE:
+                return row.getInvestEpochDay();
+            case MATURITY_DATE:
+                return row.getMaturityEpochDay();
+            case DAYS_HELD:
+                return row.getDaysHeld();
+            case TOTAL_GAIN:
+                return row.getTotalGainCents();
+            default:
+                return row.getFullReturnCents();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds the given value to the buffer in the width of the given column
+    private void putValue(Column column, long value) throws IOException {
+        room(column.width);
+        if (column.width == 1) {
+            buffer.put((byte) value);
+        } else if (column.width == 4) {
+            buffer.putInt((int) value);
+        } else {
+            buffer.putLong(value);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds the row of the cursor to the buffer as a line of CSV
+    private void writeCsvRow(ValuationCursor row) throws IOException {
+        writeName(row.getName());
+        put(STATUS_NAMES[row.isRemoved() ? 2 : row.isActive() ? 0 : 1]);
+        room(8 * MAX_FIELD_SIZE);
+        buffer.put((byte) ',');
+        putHundredths(row.getPrincipalCents());
+        buffer.put((byte) ',');
+        putHundredths(row.getInterestBasisPoints());
+        buffer.put((byte) ',');
+        putNumber(row.getTermToMaturity());
+        buffer.put((byte) ',');
+        putDate(row.getInvestEpochDay());
+        buffer.put((byte) ',');
+        putDate(row.getMaturityEpochDay());
+        buffer.put((byte) ',');
+        putNumber(row.getDaysHeld());
+        buffer.put((byte) ',');
+        putHundredths(row.getTotalGainCents());
+        buffer.put((byte) ',');
+        putHundredths(row.getFullReturnCents());
+        buffer.put((byte) '\n');
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds the given name and its separator to the buffer as a CSV field, quoted with the quotes
+    // inside it doubled if it holds a comma, a quote or a line break
+    private void writeName(String name) throws IOException {
+        byte[] text = name.getBytes(StandardCharsets.UTF_8);
+        if (name.indexOf(',') < 0 && name.indexOf('"') < 0 && name.indexOf('\n') < 0 && name.indexOf('\r') < 0) {
+            put(text);
+        } else {
+            room(1);
+            buffer.put((byte) '"');
+            for (byte b : text) {
+                room(2);
+                buffer.put(b);
+                if (b == '"') {
+                    buffer.put(b);
+                }
+            }
+            room(1);
+            buffer.put((byte) '"');
+        }
+        room(1);
+        buffer.put((byte) ',');
+    }
+
+    // REQUIRES: the buffer has room for the number
+    // MODIFIES: this
+    // EFFECTS: adds the given number of hundredths to the buffer as a decimal with 2 decimal places
+    private void putHundredths(long hundredths) {
+        if (hundredths < 0) {
+            buffer.put((byte) '-');
+        }
+        long abs = Math.abs(hundredths);
+        putNumber(abs / 100);
+        buffer.put((byte) '.').put((byte) ('0' + abs / 10 % 10)).put((byte) ('0' + abs % 10));
+    }
+
+    // REQUIRES: the buffer has room for the date
+    // MODIFIES: this
+    // EFFECTS: adds the given epoch day to the buffer as a date written yyyy-mm-dd
+    private void putDate(long epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        putDigits(date.getYear(), 4);
+        buffer.put((byte) '-');
+        putDigits(date.getMonthValue(), 2);
+        buffer.put((byte) '-');
+        putDigits(date.getDayOfMonth(), 2);
+    }
+
+    // REQUIRES: value >= 0, the buffer has room for the number
+    // MODIFIES: this
+    // EFFECTS: adds the given number to the buffer, padded with zeros to the given number of digits
+    private void putDigits(long value, int digits) {
+        int start = buffer.position();
+        long rest = value;
+        int n = 0;
+        do {
+            buffer.put((byte) ('0' + rest % 10));
+            rest /= 10;
+            n++;
+        } while (rest > 0 || n < digits);
+        for (int i = start, j = buffer.position() - 1; i < j; i++, j--) {
+            byte b = buffer.get(i);
+            buffer.put(i, buffer.get(j)).put(j, b);
+        }
+    }
+
+    // REQUIRES: the buffer has room for the number
+    // MODIFIES: this
+    // EFFECTS: adds the given whole number to the buffer
+    private void putNumber(long value) {
+        if (value < 0) {
+            buffer.put((byte) '-');
+        }
+        putDigits(Math.abs(value), 1);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds the given bytes to the buffer, writing it out each time it fills up
+    private void put(byte[] bytes) throws IOException {
+        int done = 0;
+        while (done < bytes.length) {
+            room(1);
+            int n = Math.min(bytes.length - done, buffer.remaining());
+            buffer.put(bytes, done, n);
+            done += n;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes out the buffer if it has less than the given number of bytes of room left
+    private void room(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes out the bytes in the buffer and empties it
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // EFFECTS: returns the ASCII bytes of the given text
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -2,21 +2,32 @@ package ui;
 
 import model.Account;
 import model.Asset;
-import persistence.JsonWriter;
-import persistence.JsonReader;
+import model.Event;
+import model.EventIndex;
+import model.Portfolio;
+import model.RankingMetric;
+import model.ValuationContext;
+import persistence.AccountJournal;
+import persistence.CsvImporter;
+import persistence.ImportReport;
+import persistence.PortfolioLoader;
+import persistence.ValuationExporter;
 
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
 
 public class WalesApp {
+    private static final String SNAPSHOT_STORE = "./data/account.bin";
     private static final String JSON_STORE = "./data/account.json";
+    private static final String JOURNAL_STORE = "./data/account.journal";
     private Account account;
     private Scanner input;
-    private JsonWriter jsonWriter;
-    private JsonReader jsonReader;
+    private AccountJournal journal;
+    private boolean journaling;
 
     // EFFECTS: runs the Wales application
     public WalesApp() {
@@ -39,31 +50,46 @@ public class WalesApp {
 
             if (command.equals("q")) {
                 keepGoing = false;
-            } else if (command.equals("as")) {
-                commandOnAsset();
-            } else if (command.equals("ac")) {
-                displayAccountSummary();
-            } else if (command.equals("s")) {
-                saveAccount();
-            } else if (command.equals("l")) {
-                loadAccount();
+            } else {
+                processMainCommand(command);
             }
         }
 
+        closeJournal();
         System.out.println("\nThank you for using Wales Asset today! Goodbye!");
     }
 
     // MODIFIES: this
-    // EFFECTS: initializes an account with a sample asset
+    // EFFECTS: processes the command from the main menu
+    private void processMainCommand(String command) {
+        if (command.equals("as")) {
+            commandOnAsset();
+        } else if (command.equals("ac")) {
+            displayAccountSummary();
+        } else if (command.equals("s")) {
+            saveAccount();
+        } else if (command.equals("l")) {
+            loadAccount();
+        } else if (command.equals("p")) {
+            displayPortfolio();
+        } else if (command.equals("x")) {
+            exportValuations();
+        } else if (command.equals("h")) {
+            displayHistory();
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: starts indexing the events logged, initializes an account with a sample asset
     private void init() {
+        EventIndex.getInstance();
         account = new Account("My Account");
         Asset assetSample = new Asset("Treasury Bill", 900, 5.09, 1000);
         assetSample.setInvestDate(1, 1, 2023);
         account.addAsset(assetSample);
         input = new Scanner(System.in);
         input.useDelimiter("\n");
-        jsonWriter = new JsonWriter(JSON_STORE);
-        jsonReader = new JsonReader(JSON_STORE);
+        journal = new AccountJournal(JOURNAL_STORE, SNAPSHOT_STORE);
     }
 
     // EFFECTS: displays menu of options to user
@@ -73,6 +99,9 @@ public class WalesApp {
         System.out.println("\tac -> access my account summary");
         System.out.println("\ts -> save account to file");
         System.out.println("\tl -> load account from file");
+        System.out.println("\tp -> consolidate the accounts in a directory");
+        System.out.println("\tx -> export the valuation of every asset to a file");
+        System.out.println("\th -> show the history of an asset");
         System.out.println("\tq -> quit");
     }
 
@@ -114,6 +143,7 @@ public class WalesApp {
         System.out.println("\tasset name -> manage this asset");
         System.out.println("\tadd -> add a new asset to your account");
         System.out.println("\tremove -> remove an inactive/empty asset");
+        System.out.println("\timport -> import assets and withdrawals from a CSV file");
         System.out.println("\tback -> go back to the parent menu");
     }
 
@@ -123,6 +153,8 @@ public class WalesApp {
             addAssetToAccount();
         } else if (command.equals("remove")) {
             removeAssetFromAccount();
+        } else if (command.equals("import")) {
+            importAssets();
         } else {
             manageAsset(command);
         }
@@ -177,12 +209,7 @@ public class WalesApp {
 
     // EFFECTS: returns false if the asset name has been used
     private boolean validName(String name) {
-        for (Asset a : account.getAccount()) {
-            if (name.equals(a.getName())) {
-                return false;
-            }
-        }
-        return true;
+        return !account.containsName(name);
     }
 
     // MODIFIES: this
@@ -190,34 +217,53 @@ public class WalesApp {
     private void removeAssetFromAccount() {
         System.out.print("\nPlease enter the name of the asset that you want to remove: ");
         String name = input.next();
-        for (Asset a : account.getAccount()) {
-            if (name.equals(a.getName())) {
-                a.refreshStatus();
-                if (a.getActivatedStatus()) {
-                    System.out.println("Invalid removal! This asset is active and has non-zero principal.");
-                } else {
-                    account.removeAsset(a);
-                    System.out.println("Successfully removed!");
-                }
-                return;
+        Asset a = account.findByName(name);
+        if (a == null) {
+            System.out.println("Asset not found!");
+            return;
+        }
+        a.refreshStatus(account.newValuationContext());
+        if (a.getActivatedStatus()) {
+            System.out.println("Invalid removal! This asset is active and has non-zero principal.");
+        } else {
+            account.removeByName(name);
+            System.out.println("Successfully removed!");
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: imports the assets and withdrawals in a CSV file into the account, and writes the rows
+    // that were rejected next to the file
+    private void importAssets() {
+        System.out.print("\nPlease enter the CSV file to import: ");
+        String file = input.next();
+        try {
+            ImportReport report = new CsvImporter().importInto(account, file);
+            System.out.println("Imported " + report.getAssetsImported() + " asset(s) and "
+                    + report.getWithdrawalsImported() + " withdrawal(s)");
+            if (!report.getRejects().isEmpty()) {
+                String rejects = file + ".rejects.csv";
+                report.writeRejects(rejects);
+                System.out.println(report.getRejects().size() + " row(s) were rejected, see " + rejects);
             }
+        } catch (IOException e) {
+            System.out.println("Unable to import from file: " + file + " (" + e.getMessage() + ")");
         }
-        System.out.println("Asset not found!");
     }
 
     // MODIFIES: this
     // EFFECTS: displays information and the option of withdrawal of an asset
     private void manageAsset(String name) {
-        for (Asset a : account.getAccount()) {
-            if (name.equals(a.getName())) {
-                a.refreshTotalGain();
-                a.refreshStatus();
-                displayAssetInformation(a);
-                displayWithdrawal(a);
-                return;
-            }
+        Asset a = account.findByName(name);
+        if (a == null) {
+            System.out.println("Asset not found! Please try again.");
+            return;
         }
-        System.out.println("Asset not found! Please try again.");
+        ValuationContext context = account.newValuationContext();
+        a.refreshTotalGain(context);
+        a.refreshStatus(context);
+        displayAssetInformation(a);
+        displayWithdrawal(a);
     }
 
     // EFFECTS: displays information for the asset
@@ -263,7 +309,8 @@ public class WalesApp {
     // EFFECTS: Prompts the amount that the user may lose by withdrawing the given amount,
     // proceeds to withdrawal if applied
     private void withdrawAsset(Asset a, double amount) {
-        double potentialLoss = a.calculatePotentialLoss(amount);
+        ValuationContext context = account.newValuationContext();
+        double potentialLoss = a.calculatePotentialLoss(amount, context);
         System.out.println("You'll lose " + potentialLoss
                 + " of interest earned if you withdraw before the end of your maturity period."
                 + " Your maturity date is on " + a.getMaturityDate() + ".");
@@ -272,7 +319,7 @@ public class WalesApp {
         System.out.println("\tn -> no");
         String command = input.next();
         if (command.equals("y")) {
-            a.withdrawEarly(amount);
+            a.withdrawEarly(amount, context);
             System.out.println("The current principal in your asset is " + a.getPrincipal());
         }
     }
@@ -280,8 +327,9 @@ public class WalesApp {
     // MODIFIES: this
     // EFFECTS: displays account summary and the option to access the removed assets
     private void displayAccountSummary() {
-        account.refresh();
-        LocalDate today = LocalDate.now();
+        ValuationContext context = account.newValuationContext();
+        account.refresh(context);
+        LocalDate today = context.getDate();
         int numAssets = account.numAssets();
         int numActiveAssets = account.numActiveAssets();
         double wealth = account.getTotalGain();
@@ -296,6 +344,64 @@ public class WalesApp {
         reviewRemovedAssets();
     }
 
+    // EFFECTS: loads the accounts in a directory of account files and displays the summary of each
+    // and of all of them together
+    private void displayPortfolio() {
+        System.out.print("\nPlease enter the directory of the account files: ");
+        String directory = input.next();
+        try {
+            Portfolio portfolio = new PortfolioLoader().load(directory, LocalDate.now());
+            System.out.println("\nOn " + portfolio.getDate() + ",");
+            for (int i = 0; i < portfolio.numAccounts(); i++) {
+                System.out.println("\t" + portfolio.getAccounts().get(i).getName() + ": "
+                        + portfolio.numActiveAssets(i) + " active asset(s), accumulated wealth "
+                        + portfolio.getTotalGain(i));
+            }
+            List<String> top3assets = new ArrayList<>();
+            for (Asset a : portfolio.topK(3, RankingMetric.TOTAL_GAIN)) {
+                top3assets.add(a.getName());
+            }
+            System.out.println("The " + portfolio.numAccounts() + " account(s) possess " + portfolio.numActiveAssets()
+                    + " active asset(s) out of " + portfolio.numAssets() + " total asset(s)");
+            System.out.println("Their accumulated wealth is: " + portfolio.getTotalGain());
+            System.out.println("Their top 3 assets are: " + top3assets);
+        } catch (IOException e) {
+            System.out.println("Unable to read from directory: " + directory + " (" + e.getMessage() + ")");
+        }
+    }
+
+    // EFFECTS: displays every event logged about the named asset since the application started, oldest first
+    private void displayHistory() {
+        System.out.print("\nPlease enter the name of the asset: ");
+        String name = input.next();
+        EventIndex.Cursor cursor = EventIndex.getInstance().scanAsset(name, null, Instant.MIN, Instant.MAX);
+        int count = 0;
+        for (List<Event> page = cursor.next(100); !page.isEmpty(); page = cursor.next(100)) {
+            for (Event e : page) {
+                System.out.println("\t" + e.getDate() + " " + e.getDescription());
+            }
+            count += page.size();
+        }
+        System.out.println(count + " event(s) about " + name + " since the application started");
+    }
+
+    // MODIFIES: this
+    // EFFECTS: exports the valuation of every asset as of today to a file, in the columnar format if
+    // its name ends with ".col" and as CSV otherwise
+    private void exportValuations() {
+        System.out.print("\nPlease enter the file to export to (.csv, .csv.gz or .col): ");
+        String file = input.next();
+        try {
+            ValuationExporter exporter = new ValuationExporter(file);
+            ValuationContext today = account.newValuationContext();
+            int rows = file.endsWith(".col") ? exporter.exportColumnar(account, today)
+                    : exporter.exportCsv(account, today);
+            System.out.println("Exported the valuation of " + rows + " asset(s) to " + file);
+        } catch (IOException e) {
+            System.out.println("Unable to write to file: " + file + " (" + e.getMessage() + ")");
+        }
+    }
+
     // EFFECTS: displays the list of names of the removed assets
     private void reviewRemovedAssets() {
         System.out.println("\nYou may select from: ");
@@ -314,26 +420,56 @@ public class WalesApp {
         }
     }
 
-    // EFFECTS: saves the account to file
+    // EFFECTS: saves the account to file; journals its later changes
     public void saveAccount() {
         try {
-            jsonWriter.open();
-            jsonWriter.write(this.account);
-            jsonWriter.close();
-            System.out.println("Saved " + account.getName() + " to " + JSON_STORE);
-        } catch (FileNotFoundException e) {
-            System.out.println("Unable to write to file: " + JSON_STORE);
+            if (!journaling) {
+                openJournal();
+                journal.start(account);
+            }
+            journal.save();
+            System.out.println("Saved " + account.getName() + " to " + SNAPSHOT_STORE);
+        } catch (IOException e) {
+            System.out.println("Unable to write to file: " + SNAPSHOT_STORE);
         }
     }
 
     // MODIFIES: this
-    // EFFECTS: loads account from file
+    // EFFECTS: loads account from file, dropping unsaved changes to the present account but replaying
+    // the changes journaled by an earlier run that ended without saving; journals later changes
     private void loadAccount() {
         try {
-            account = jsonReader.read();
-            System.out.println("Loaded " + account.getName() + " from " + JSON_STORE);
+            if (journaling) {
+                journal.discard();
+            } else {
+                openJournal();
+            }
+            account = journal.recover(account.getName());
+            System.out.println("Loaded " + account.getName() + " from " + SNAPSHOT_STORE);
         } catch (IOException e) {
-            System.out.println("Unable to read from file: " + JSON_STORE);
+            System.out.println("Unable to read from file: " + SNAPSHOT_STORE);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: opens the journal, converting the JSON account file of an earlier version into the
+    // snapshot if there is no snapshot yet
+    private void openJournal() throws IOException {
+        journal.open();
+        journal.upgradeFrom(JSON_STORE);
+        journaling = true;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: drops the changes journaled since the account was last saved and closes the journal
+    private void closeJournal() {
+        if (journaling) {
+            try {
+                journal.discard();
+                journal.close();
+            } catch (IOException e) {
+                System.out.println("Unable to close file: " + JOURNAL_STORE);
+            }
         }
     }
 }
@@ -1,10 +1,11 @@
 package ui;
 
 import model.Account;
+import model.EventIndex;
 import model.EventLog;
 import model.Event;
-import persistence.JsonReader;
-import persistence.JsonWriter;
+import persistence.AccountJournal;
+import persistence.Autosave;
 import ui.tabs.AccountTab;
 import ui.tabs.AddNewAssetTab;
 import ui.tabs.AssetTab;
@@ -14,7 +15,6 @@ import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.*;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 
 // Represents the Graphical User Interface (GUI) of the application
@@ -23,7 +23,9 @@ public class WalesUI extends JFrame {
     private static final int ASSET_TAB_INDEX = 0;
     private static final int ADD_NEW_ASSET_TAB_INDEX = 1;
     private static final int ACCOUNT_TAB_INDEX = 2;
+    private static final String SNAPSHOT_STORE = "./data/account.bin";
     private static final String JSON_STORE = "./data/account.json";
+    private static final String JOURNAL_STORE = "./data/account.journal";
 
     private JFrame initialMenu;
     private JTabbedPane sidebar;
@@ -32,31 +34,49 @@ public class WalesUI extends JFrame {
     private Tab accountTab;
 
     private Account account;
-    private JsonWriter jsonWriter;
-    private JsonReader jsonReader;
+    private AccountJournal journal;
+    private Autosave autosave;
 
-    // EFFECTS: constructs the console with a designated data repository, displays the initial menu
+    // EFFECTS: constructs the console with a designated data repository, starts indexing the events logged,
+    // displays the initial menu
     private WalesUI() {
         super("Wales Asset");
+        EventIndex.getInstance();
         account = new Account("My Account");
-        jsonReader = new JsonReader(JSON_STORE);
-        jsonWriter = new JsonWriter(JSON_STORE);
+        journal = new AccountJournal(JOURNAL_STORE, SNAPSHOT_STORE);
+        autosave = new Autosave(journal);
         initialMenu = new InitialMenu();
     }
 
     // MODIFIES: this
-    // EFFECTS: loads account from file
+    // EFFECTS: loads account from file, replaying the changes journaled since it was last saved, after
+    // converting the JSON account file of an earlier version if there is no snapshot yet; journals
+    // later changes
     private void loadAccount() {
         try {
-            account = jsonReader.read();
+            journal.open();
+            journal.upgradeFrom(JSON_STORE);
+            account = journal.recover(account.getName());
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
     // MODIFIES: this
-    // EFFECTS: displays the main page
+    // EFFECTS: journals the new account and its later changes in place of the account in file
+    private void startAccount() {
+        try {
+            journal.open();
+            journal.start(account);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: displays the main page and starts saving changes in the background
     private void mainPage() {
+        autosave.start();
         setSize(new Dimension(600, 420));
         setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
         setResizable(false);
@@ -72,34 +92,73 @@ public class WalesUI extends JFrame {
     }
 
     // MODIFIES: this
-    // EFFECTS: shows the option of saving data to file when close the window
+    // EFFECTS: shows the option of saving the changes not yet saved in the background to file when close
+    // the window; the changes saved in the background are kept either way
     private void saveWhenExit() {
         addWindowListener(new WindowAdapter() {
             public void windowClosing(WindowEvent evt) {
 
                 int confirmed = JOptionPane.showConfirmDialog(null,
-                        "Do you want to save your change to the data?", 
+                        "Changes are saved every few seconds. Do you want to save the latest changes too?",
                         "Exit Program Message Box", JOptionPane.YES_NO_CANCEL_OPTION);
 
                 if (confirmed == JOptionPane.YES_OPTION) {
-                    try {
-                        jsonWriter.open();
-                        jsonWriter.write(account);
-                        jsonWriter.close();
-                        printLog(EventLog.getInstance());
-                        System.exit(0);
-                    } catch (FileNotFoundException e) {
-                        System.out.println("Unable to write to file: " + JSON_STORE);
-                    }
+                    exitInBackground(true);
                 } else if (confirmed == JOptionPane.NO_OPTION) {
-                    printLog(EventLog.getInstance());
-                    System.out.println("Changes not saved.");
-                    System.exit(0);
+                    exitInBackground(false);
                 }
             }
         });
     }
 
+    // MODIFIES: this
+    // EFFECTS: hides the window, shows the progress of closing and closes on a background thread, so that
+    // the event thread never waits on the files however long the last save and compaction take
+    private void exitInBackground(boolean save) {
+        setVisible(false);
+        showClosing(save);
+        new Thread(() -> exit(save), "wales-shutdown").start();
+    }
+
+    // EFFECTS: shows a small window telling the user the application is closing until it exits
+    private void showClosing(boolean save) {
+        JFrame closing = new JFrame("Wales Asset");
+        closing.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+        closing.setResizable(false);
+        closing.setLayout(new GridLayout(2, 1));
+        closing.add(new JLabel(save ? "Saving changes..." : "Closing...", JLabel.CENTER));
+        JProgressBar progress = new JProgressBar();
+        progress.setIndeterminate(true);
+        closing.add(progress);
+        closing.setSize(250, 90);
+        closing.setLocationRelativeTo(null);
+        closing.setVisible(true);
+    }
+
+    // EFFECTS: stops saving in the background, saves the changes made since the last background save or
+    // drops them, prints the events logged and exits; exits with a failure status, after saying so, if
+    // the files cannot be written
+    private void exit(boolean save) {
+        try {
+            if (save) {
+                autosave.close();
+            } else {
+                autosave.stop();
+                journal.discard();
+            }
+            journal.close();
+        } catch (IOException e) {
+            System.out.println("Unable to write to file: " + SNAPSHOT_STORE);
+            System.exit(1);
+        }
+        printLog(EventLog.getInstance());
+        EventLog.getInstance().closeSpillFile();
+        if (!save) {
+            System.out.println("Changes made since the last automatic save not saved.");
+        }
+        System.exit(0);
+    }
+
     // EFFECTS: prints all the events logged
     private void printLog(EventLog el) {
         for (Event next : el) {
@@ -188,6 +247,8 @@ public class WalesUI extends JFrame {
             initialMenu.dispose();
             if (e.getActionCommand().equals("load")) {
                 loadAccount();
+            } else {
+                startAccount();
             }
             mainPage();
         }
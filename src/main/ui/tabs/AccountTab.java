@@ -1,6 +1,9 @@
 package ui.tabs;
 
 import model.Account;
+import model.Event;
+import model.EventBus;
+import model.EventSubscriber;
 import ui.tabs.components.HistogramPanel;
 
 import javax.imageio.ImageIO;
@@ -12,10 +15,12 @@ import java.awt.event.KeyEvent;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 
-// Represents the account tab where user can see the account information and asset performance summary
+// Represents the account tab where user can see the account information and asset performance summary;
+// it updates itself when assets are added to or removed from the account
 
-public class AccountTab extends Tab implements ActionListener {
+public class AccountTab extends Tab implements ActionListener, EventSubscriber {
     private static final int IMAGE_WIDTH = 100;
     private static final int IMAGE_HEIGHT = 100;
     private JPanel refreshPanel;
@@ -44,6 +49,7 @@ public class AccountTab extends Tab implements ActionListener {
         initBottomPanel();
 
         placePanels();
+        EventBus.getInstance().subscribe(this);
     }
 
     // MODIFIES: this
@@ -185,4 +191,15 @@ public class AccountTab extends Tab implements ActionListener {
             updateBar();
         }
     }
+
+    // EFFECTS: schedules an update of the summary panel and the bars if the events change the assets
+    @Override
+    public void onEvents(List<Event> events) {
+        if (changesAssets(events)) {
+            scheduleUpdate(() -> {
+                updateSummaryPanel();
+                updateBar();
+            });
+        }
+    }
 }
@@ -228,10 +228,16 @@ public class AddNewAssetTab extends Tab
     }
 
     // MODIFIES: this
-    // EFFECTS: adds the asset to the account when button clicked
+    // EFFECTS: adds the asset to the account when button clicked;
+    // shows an error instead if an asset with the same name is already in the account
     @Override
     public void actionPerformed(ActionEvent e) {
         if (addButtonString.equals(e.getActionCommand())) {
+            if (account.containsName(name)) {
+                JOptionPane.showMessageDialog(this, "An asset named " + name + " already exists.",
+                        "Invalid Name", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
             Asset newAsset = new Asset(name, termToMaturity, rate, principal);
             account.addAsset(newAsset);
         }
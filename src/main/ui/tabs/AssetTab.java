@@ -2,6 +2,10 @@ package ui.tabs;
 
 import model.Account;
 import model.Asset;
+import model.Event;
+import model.EventBus;
+import model.EventSubscriber;
+import model.ValuationContext;
 
 import javax.swing.*;
 import javax.swing.event.ListSelectionEvent;
@@ -10,18 +14,22 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
+import java.util.List;
 
-// Represents the Asset Tab which displays all assets in the account
+// Represents the Asset Tab which displays all assets in the account;
+// it updates its list when assets are added to or removed from the account elsewhere.
+// The list reads the names of the assets it shows from the account, so an asset loaded lazily
+// is only created when it is selected
 
 public class AssetTab extends Tab
-        implements ActionListener, ListSelectionListener {
+        implements ActionListener, ListSelectionListener, EventSubscriber {
 
     private static final String removeString = "Remove";
     private JSplitPane splitPane;
     private JPanel leftPanel;
     private JPanel rightPanel;
     private JList list;
-    private DefaultListModel listModel;
+    private AssetNameModel listModel;
     private JScrollPane listScrollPane;
     private JButton refreshButton;
     private JButton removeButton;
@@ -37,6 +45,7 @@ public class AssetTab extends Tab
         initRightPanel(infoLabel);
 
         placePanels();
+        EventBus.getInstance().subscribe(this);
     }
 
     // MODIFIES: this
@@ -94,7 +103,7 @@ public class AssetTab extends Tab
     // MODIFIES: this
     // EFFECTS: sets up the scrolling pane with a list of asset name on it
     private void initScrollPane() {
-        listModel = new DefaultListModel();
+        listModel = new AssetNameModel();
         list = new JList(listModel);
         list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         list.addListSelectionListener(this);
@@ -111,11 +120,8 @@ public class AssetTab extends Tab
     private void updateList() {
         account.refresh();
 
-        listModel.removeAllElements();
-        for (Asset asset : account.getAccount()) {
-            listModel.addElement(asset.getName());
-        }
-        list.setSelectedIndex(listModel.size() - 1);
+        listModel.update();
+        list.setSelectedIndex(listModel.getSize() - 1);
     }
 
     // MODIFIES: this
@@ -149,8 +155,8 @@ public class AssetTab extends Tab
     public void actionPerformed(ActionEvent e) {
         if (removeString.equals(e.getActionCommand())) {
             int index = list.getSelectedIndex();
-            listModel.remove(index);
             account.removeAsset(account.getAccount().get(index));
+            listModel.update();
 
             int size = listModel.getSize();
 
@@ -199,8 +205,9 @@ public class AssetTab extends Tab
 
     // EFFECTS: renders the information label
     private void updateInfoLabel(Asset a) {
-        a.refreshTotalGain();
-        a.refreshStatus();
+        ValuationContext context = account.newValuationContext();
+        a.refreshTotalGain(context);
+        a.refreshStatus(context);
 
         String assetInfo = getInfoString(a);
         infoLabel.setText(assetInfo);
@@ -221,4 +228,48 @@ public class AssetTab extends Tab
                 + "</ul>\n";
         return assetInfo;
     }
+
+    // EFFECTS: schedules an update of the list if the events add, remove or load assets; the list is
+    // updated even if the number of assets is unchanged, since an add and a remove leave it the same
+    @Override
+    public void onEvents(List<Event> events) {
+        if (changesAssets(events)) {
+            scheduleUpdate(() -> {
+                updateList();
+                removeButton.setEnabled(listModel.getSize() > 0);
+            });
+        }
+    }
+
+    // Represents the names of the assets presently in the account, read from the account as they are shown
+    private class AssetNameModel extends AbstractListModel<String> {
+        private static final long serialVersionUID = 1L;
+
+        private int size;
+
+        @Override
+        public int getSize() {
+            return size;
+        }
+
+        @Override
+        public String getElementAt(int index) {
+            return account.nameAt(index);
+        }
+
+        // MODIFIES: this
+        // EFFECTS: tells the list that the assets in the account may have changed
+        void update() {
+            int oldSize = size;
+            size = account.numAssets();
+            if (oldSize > size) {
+                fireIntervalRemoved(this, size, oldSize - 1);
+            } else if (size > oldSize) {
+                fireIntervalAdded(this, oldSize, size - 1);
+            }
+            if (size > 0) {
+                fireContentsChanged(this, 0, size - 1);
+            }
+        }
+    }
 }
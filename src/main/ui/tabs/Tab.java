@@ -1,19 +1,47 @@
 package ui.tabs;
 
 import model.Account;
+import model.Event;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 // Represents an abstract tab that can be extended by other tabs and access the user's account
 
 public abstract class Tab extends JPanel {
 
     protected Account account;
+    private final AtomicBoolean updatePending = new AtomicBoolean();
 
     // EFFECTS: creates a new tab with the given account
     public Tab(Account account) {
         super(new BorderLayout());
         this.account = account;
     }
+
+    // EFFECTS: returns true if any of the given events adds assets to or removes one from the account
+    protected static boolean changesAssets(List<Event> events) {
+        for (Event e : events) {
+            Event.Type type = e.getType();
+            if (type == Event.Type.ASSET_ADDED || type == Event.Type.ASSET_REMOVED
+                    || type == Event.Type.ASSETS_LOADED) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: runs the given update on the Swing thread; calls made before a scheduled update runs
+    // are coalesced into it
+    protected void scheduleUpdate(Runnable update) {
+        if (updatePending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(() -> {
+                updatePending.set(false);
+                update.run();
+            });
+        }
+    }
 }
@@ -2,6 +2,7 @@ package ui.tabs.components;
 
 import model.Account;
 import model.Asset;
+import model.RankingMetric;
 
 import java.awt.*;
 import java.util.Arrays;
@@ -15,7 +16,8 @@ import javax.swing.border.*;
 // Represents a histogram panel with a bar graph
 
 public class HistogramPanel extends JPanel {
-    private static String title = "Top 3 Assets";
+    private static final int DEFAULT_NUM_BARS = 3;
+    private int numBars;
     private int histogramHeight = 100;
     private int barWidth = 30;
     private int barGap = 7;
@@ -27,11 +29,18 @@ public class HistogramPanel extends JPanel {
 
     private Account account;
 
-    // EFFECTS: creates a histogram panel with bars and labels
+    // EFFECTS: creates a histogram panel with bars and labels for the top 3 assets
     public HistogramPanel(Account account) {
+        this(account, DEFAULT_NUM_BARS);
+    }
+
+    // REQUIRES: numBars > 0
+    // EFFECTS: creates a histogram panel with bars and labels for the given number of top assets
+    public HistogramPanel(Account account, int numBars) {
         this.account = account;
+        this.numBars = numBars;
         setBorder(BorderFactory.createCompoundBorder(
-                BorderFactory.createTitledBorder(title),
+                BorderFactory.createTitledBorder("Top " + numBars + " Assets"),
                 BorderFactory.createEmptyBorder(10,10,10,10)));
         setLayout(new BorderLayout());
 
@@ -142,14 +151,14 @@ public class HistogramPanel extends JPanel {
     }
 
     // MODIFIES: this
-    // EFFECTS: adds the top 3 assets to the bar graph with their names as labels and total gains as heights
+    // EFFECTS: adds the top assets to the bar graph with their names as labels and total gains as heights
     public void addAssetBar() {
         repaint();
-        List<Asset> top3assets = account.top3Assets();
+        List<Asset> topAssets = account.topK(numBars, RankingMetric.TOTAL_GAIN);
         List<Color> colors = Arrays.asList(new Color[]{Color.BLUE, Color.YELLOW, Color.RED});
-        for (int i = 0; i < top3assets.size(); i++) {
-            Asset next = top3assets.get(i);
-            addHistogramColumn(next.getName(), next.getTotalGain(), colors.get(i));
+        for (int i = 0; i < topAssets.size(); i++) {
+            Asset next = topAssets.get(i);
+            addHistogramColumn(next.getName(), next.getTotalGain(), colors.get(i % colors.size()));
         }
         layoutHistogram();
     }
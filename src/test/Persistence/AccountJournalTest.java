@@ -0,0 +1,379 @@
+package Persistence;
+
+import model.Account;
+import model.Asset;
+import model.ValuationContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import persistence.AccountJournal;
+import persistence.BinaryReader;
+import persistence.JsonReader;
+import persistence.JsonWriter;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountJournalTest extends JsonTest {
+    private static final String JOURNAL = "./data/testJournal.journal";
+    private static final String SNAPSHOT = "./data/testJournalSnapshot.json";
+
+    AccountJournal journal;
+
+    @BeforeEach
+    void runBefore() throws IOException {
+        Files.deleteIfExists(Paths.get(JOURNAL));
+        deleteSnapshots();
+        journal = new AccountJournal(JOURNAL, SNAPSHOT);
+        journal.open();
+    }
+
+    @AfterEach
+    void runAfter() throws IOException {
+        journal.close();
+        Files.deleteIfExists(Paths.get(JOURNAL));
+        deleteSnapshots();
+    }
+
+    // EFFECTS: deletes every snapshot kept by the tests, with its generations, pointer and segments
+    private void deleteSnapshots() throws IOException {
+        for (Path file : files("testJournalSnapshot")) {
+            Files.delete(file);
+        }
+    }
+
+    // EFFECTS: returns the segments saved beside the snapshot
+    private Path[] segments() throws IOException {
+        return files("testJournalSnapshot.json.seg");
+    }
+
+    // EFFECTS: returns the files beside the snapshot whose names start with the given prefix
+    private Path[] files(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(Paths.get(SNAPSHOT).getParent())) {
+            return files.filter(f -> f.getFileName().toString().startsWith(prefix)).toArray(Path[]::new);
+        }
+    }
+
+    // EFFECTS: closes the journal and recovers the account from a freshly opened one
+    private Account reopen() throws IOException {
+        journal.close();
+        journal = new AccountJournal(JOURNAL, SNAPSHOT);
+        journal.open();
+        return journal.recover("My account");
+    }
+
+    @Test
+    void testRecoverNothing() throws IOException {
+        Account ac = journal.recover("My account");
+        assertEquals("My account", ac.getName());
+        assertEquals(0, ac.numAssets());
+    }
+
+    @Test
+    void testReplayMutations() throws IOException {
+        Account ac = journal.recover("My account");
+        Asset a1 = new Asset("bond", 200, 4.8, 2000);
+        Asset a2 = new Asset("forward", 300, 6.88, 3000);
+        a1.setInvestDate(1, 1, 2023);
+        ac.addAsset(a1);
+        ac.addAsset(a2);
+        a1.withdrawEarly(500, ValuationContext.asOf(LocalDate.of(2023, 3, 1)));
+        a2.setInvestDate(2, 1, 2023);
+        a2.withdrawEarly(3000, ValuationContext.asOf(LocalDate.of(2023, 4, 1)));
+        ac.removeAsset(a2);
+
+        Account recovered = reopen();
+        assertEquals("My account", recovered.getName());
+        assertEquals(1, recovered.numAssets());
+        Asset bond = recovered.findByName("bond");
+        checkAsset("bond", 200, 0.048, 1500, LocalDate.of(2023, 1, 1), bond);
+        assertEquals(500, bond.getWithdrawList().get(0).getAmount());
+        assertEquals(LocalDate.of(2023, 3, 1), bond.getWithdrawList().get(0).getDate());
+        Asset forward = recovered.getAssetsRemoved().get(0);
+        checkAsset("forward", 300, 0.0688, 0, LocalDate.of(2023, 2, 1), forward);
+        assertFalse(forward.getActivatedStatus());
+    }
+
+    @Test
+    void testCheckpoint() throws IOException {
+        Account ac = journal.recover("My account");
+        ac.addAsset(new Asset("bond", 200, 4.8, 2000));
+        journal.checkpoint();
+        assertEquals(1, journal.getSeq());
+        ac.addAsset(new Asset("forward", 300, 6.88, 3000));
+
+        JsonReader reader = new JsonReader(journal.getSnapshotFile());
+        assertEquals(1, reader.read().numAssets());
+        assertEquals(1, reader.getJournalSeq());
+
+        Account recovered = reopen();
+        assertEquals(2, recovered.numAssets());
+        assertEquals(2, journal.getSeq());
+    }
+
+    @Test
+    void testPeriodicSave() throws IOException {
+        journal.setIntervals(1, 2);
+        Account ac = journal.recover("My account");
+        ac.addAsset(new Asset("bond", 200, 4.8, 2000));
+        assertEquals(0, segments().length);
+        ac.addAsset(new Asset("forward", 300, 6.88, 3000));
+        journal.close();
+        assertEquals(1, segments().length);
+        assertEquals(0, journal.getSaveFailures());
+        assertNull(journal.getSnapshotFile());
+        assertEquals(2, reopen().numAssets());
+    }
+
+    @Test
+    void testSaveSegments() throws IOException {
+        Account ac = journal.recover("My account");
+        ac.addAsset(new Asset("bond", 200, 4.8, 2000));
+        journal.checkpoint();
+        Asset forward = new Asset("forward", 300, 6.88, 3000);
+        ac.addAsset(forward);
+        journal.save();
+        forward.withdrawEarly(1000, ValuationContext.asOf(LocalDate.of(2023, 4, 1)));
+        ac.removeAsset(ac.findByName("bond"));
+        journal.save();
+        journal.save();
+        assertEquals(2, segments().length);
+        assertEquals(1, new JsonReader(journal.getSnapshotFile()).read().numAssets());
+
+        Account recovered = reopen();
+        assertEquals(1, recovered.numAssets());
+        assertEquals(2000, recovered.findByName("forward").getPrincipal());
+        assertEquals("bond", recovered.getAssetsRemoved().get(0).getName());
+        assertEquals(4, journal.getSeq());
+    }
+
+    @Test
+    void testCompact() throws IOException {
+        Account ac = journal.recover("My account");
+        ac.addAsset(new Asset("bond", 200, 4.8, 2000));
+        journal.save();
+        ac.addAsset(new Asset("forward", 300, 6.88, 3000));
+        journal.save();
+        ac.addAsset(new Asset("future", 500, 7.01, 4000));
+        journal.compact();
+        assertEquals(0, segments().length);
+        JsonReader reader = new JsonReader(journal.getSnapshotFile());
+        assertEquals(2, reader.read().numAssets());
+        assertEquals(2, reader.getJournalSeq());
+        assertEquals(3, reopen().numAssets());
+    }
+
+    @Test
+    void testCompactInBackground() throws IOException {
+        journal.setCompactionThreshold(2);
+        Account ac = journal.recover("My account");
+        ac.addAsset(new Asset("bond", 200, 4.8, 2000));
+        journal.save();
+        assertEquals(1, segments().length);
+        ac.addAsset(new Asset("forward", 300, 6.88, 3000));
+        journal.save();
+        journal.close();
+        assertEquals(0, journal.getCompactionFailures());
+        assertEquals(0, segments().length);
+        assertEquals(2, new JsonReader(journal.getSnapshotFile()).read().numAssets());
+        assertEquals(2, reopen().numAssets());
+    }
+
+    @Test
+    void testStartAfterSavedSegments() throws IOException {
+        Account old = journal.recover("Old");
+        old.addAsset(new Asset("bond", 200, 4.8, 2000));
+        journal.save();
+        journal.close();
+        journal = new AccountJournal(JOURNAL, SNAPSHOT);
+        journal.open();
+        Account ac = new Account("New");
+        ac.addAsset(new Asset("future", 500, 7.01, 4000));
+        journal.start(ac);
+        assertEquals(3, journal.getSeq());
+        journal.save();
+        assertEquals(2, segments().length);
+
+        Account recovered = reopen();
+        assertEquals("New", recovered.getName());
+        assertNull(recovered.findByName("bond"));
+    }
+
+    @Test
+    void testStartNewAccount() throws IOException {
+        Account old = journal.recover("Old");
+        old.addAsset(new Asset("bond", 200, 4.8, 2000));
+        journal.checkpoint();
+
+        Account ac = new Account("New");
+        ac.addAsset(new Asset("future", 500, 7.01, 4000));
+        journal.start(ac);
+        ac.addAsset(new Asset("forward", 300, 6.88, 3000));
+
+        Account recovered = reopen();
+        assertEquals("New", recovered.getName());
+        assertEquals(2, recovered.numAssets());
+        assertNull(recovered.findByName("bond"));
+    }
+
+    @Test
+    void testDiscard() throws IOException {
+        Account ac = journal.recover("My account");
+        ac.addAsset(new Asset("bond", 200, 4.8, 2000));
+        journal.discard();
+        assertEquals(0, reopen().numAssets());
+    }
+
+    @Test
+    void testTornRecordIgnored() throws IOException {
+        Account ac = journal.recover("My account");
+        ac.addAsset(new Asset("bond", 200, 4.8, 2000));
+        ac.addAsset(new Asset("forward", 300, 6.88, 3000));
+        journal.close();
+        try (RandomAccessFile file = new RandomAccessFile(JOURNAL, "rw")) {
+            file.seek(8);
+            long secondRecord = 8 + 8 + file.readInt();
+            file.seek(secondRecord + 8 + 8 + 1 + 4);
+            file.writeByte('X');
+        }
+        journal = new AccountJournal(JOURNAL, SNAPSHOT);
+        journal.open();
+        Account recovered = journal.recover("Recovered");
+        assertEquals(1, recovered.numAssets());
+        assertEquals(1, journal.getSeq());
+    }
+
+    @Test
+    void testGrowsPastMapping() throws IOException {
+        Account ac = journal.recover("My account");
+        Asset a1 = new Asset("bond", 200, 4.8, 2000);
+        ac.addAsset(a1);
+        journal.setIntervals(4096, Integer.MAX_VALUE);
+        for (int i = 0; i < 40000; i++) {
+            a1.setInvestDate(1, 1 + i % 28, 2023);
+        }
+        assertEquals(LocalDate.of(2023, 1, 1 + 39999 % 28), reopen().findByName("bond").getInvestDate());
+    }
+
+    @Test
+    void testNotAJournal() throws IOException {
+        journal.close();
+        Files.write(Paths.get(JOURNAL), new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        journal = new AccountJournal(JOURNAL, SNAPSHOT);
+        try {
+            journal.open();
+            fail("IOException was expected");
+        } catch (IOException e) {
+            // pass
+        }
+        Files.delete(Paths.get(JOURNAL));
+        journal.open();
+    }
+
+    @Test
+    void testCheckpointToBinarySnapshot() throws IOException {
+        journal.close();
+        String binary = "./data/testJournalSnapshot.bin";
+        journal = new AccountJournal(JOURNAL, binary);
+        journal.open();
+        Account ac = journal.recover("My account");
+        ac.addAsset(new Asset("bond", 200, 4.8, 2000));
+        journal.checkpoint();
+        ac.addAsset(new Asset("forward", 300, 6.88, 3000));
+        journal.close();
+
+        journal = new AccountJournal(JOURNAL, binary);
+        journal.open();
+        Account recovered = journal.recover("Other");
+        assertEquals("My account", recovered.getName());
+        assertEquals("bond", recovered.nameAt(0));
+        checkAsset("forward", 300, 0.0688, 3000, LocalDate.now(), recovered.findByName("forward"));
+    }
+
+    @Test
+    void testCheckpointWritesNewGeneration() throws IOException {
+        Account ac = journal.recover("My account");
+        ac.addAsset(new Asset("bond", 200, 4.8, 2000));
+        journal.checkpoint();
+        String first = journal.getSnapshotFile();
+        ac.addAsset(new Asset("forward", 300, 6.88, 3000));
+        journal.checkpoint();
+        String second = journal.getSnapshotFile();
+
+        assertNotEquals(first, second);
+        assertFalse(Files.exists(Paths.get(first)));
+        assertFalse(Files.exists(Paths.get(SNAPSHOT)));
+        assertEquals(2, new JsonReader(second).read().numAssets());
+        assertEquals(2, reopen().numAssets());
+    }
+
+    @Test
+    void testSnapshotFromEarlierVersionReplaced() throws IOException {
+        Account old = new Account("Old");
+        old.addAsset(new Asset("bond", 200, 4.8, 2000));
+        JsonWriter writer = new JsonWriter(SNAPSHOT);
+        writer.open();
+        writer.write(old);
+        writer.close();
+
+        Account ac = reopen();
+        assertEquals(Paths.get(SNAPSHOT).toAbsolutePath().toString(), journal.getSnapshotFile());
+        assertEquals("Old", ac.getName());
+        ac.addAsset(new Asset("forward", 300, 6.88, 3000));
+        journal.checkpoint();
+        assertFalse(Files.exists(Paths.get(SNAPSHOT)));
+        assertEquals(2, reopen().numAssets());
+    }
+
+    @Test
+    void testMappedGenerationKept() throws IOException {
+        journal.close();
+        String binary = "./data/testJournalSnapshot.bin";
+        journal = new AccountJournal(JOURNAL, binary);
+        journal.open();
+        journal.recover("My account").addAsset(new Asset("bond", 200, 4.8, 2000));
+        journal.checkpoint();
+        journal.close();
+
+        journal = new AccountJournal(JOURNAL, binary);
+        journal.open();
+        Account mapped = journal.recover("Other");
+        String first = journal.getSnapshotFile();
+        mapped.addAsset(new Asset("forward", 300, 6.88, 3000));
+        journal.save();
+        journal.compact();
+        assertNotEquals(first, journal.getSnapshotFile());
+        assertTrue(Files.exists(Paths.get(first)));
+        assertEquals("bond", mapped.nameAt(0));
+        assertEquals(2, new BinaryReader(journal.getSnapshotFile()).read().numAssets());
+    }
+
+    @Test
+    void testUpgradeFromJsonSnapshot() throws IOException {
+        Account ac = journal.recover("My account");
+        ac.addAsset(new Asset("bond", 200, 4.8, 2000));
+        journal.checkpoint();
+        ac.addAsset(new Asset("forward", 300, 6.88, 3000));
+        journal.save();
+        ac.addAsset(new Asset("bill", 90, 3, 1000));
+        journal.close();
+
+        String binary = "./data/testJournalSnapshot.bin";
+        journal = new AccountJournal(JOURNAL, binary);
+        journal.open();
+        assertTrue(journal.upgradeFrom(SNAPSHOT));
+        assertTrue(BinaryReader.isSnapshot(journal.getSnapshotFile()));
+        assertFalse(journal.upgradeFrom(SNAPSHOT));
+        Account recovered = journal.recover("Other");
+        assertEquals("My account", recovered.getName());
+        assertEquals(3, recovered.numAssets());
+        assertEquals("bill", recovered.nameAt(2));
+    }
+}
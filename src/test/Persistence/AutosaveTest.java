@@ -0,0 +1,105 @@
+package Persistence;
+
+import model.Account;
+import model.Asset;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import persistence.AccountJournal;
+import persistence.Autosave;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AutosaveTest {
+    private static final String JOURNAL = "./data/testAutosave.journal";
+    private static final String SNAPSHOT = "./data/testAutosaveSnapshot.json";
+    private static final long HOUR_MILLIS = 3600 * 1000;
+
+    AccountJournal journal;
+    Account account;
+
+    @BeforeEach
+    void runBefore() throws IOException {
+        deleteFiles();
+        journal = new AccountJournal(JOURNAL, SNAPSHOT);
+        journal.open();
+        account = journal.recover("My account");
+    }
+
+    @AfterEach
+    void runAfter() throws IOException {
+        journal.close();
+        deleteFiles();
+    }
+
+    // EFFECTS: deletes the journal and the snapshot with its generations, pointer and segments
+    private void deleteFiles() throws IOException {
+        Files.deleteIfExists(Paths.get(JOURNAL));
+        try (Stream<Path> files = Files.list(Paths.get(SNAPSHOT).getParent())) {
+            for (Path file : files.filter(f -> f.getFileName().toString().startsWith("testAutosaveSnapshot"))
+                    .toArray(Path[]::new)) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    // EFFECTS: returns the segments saved beside the snapshot
+    private Path[] segments() throws IOException {
+        try (Stream<Path> files = Files.list(Paths.get(SNAPSHOT).getParent())) {
+            return files.filter(f -> f.getFileName().toString().startsWith("testAutosaveSnapshot.json.seg"))
+                    .toArray(Path[]::new);
+        }
+    }
+
+    // EFFECTS: closes the journal and recovers the account from the snapshot and segments alone
+    private Account recoverSaved() throws IOException {
+        journal.discard();
+        journal.close();
+        journal = new AccountJournal(JOURNAL, SNAPSHOT);
+        journal.open();
+        return journal.recover("Other");
+    }
+
+    @Test
+    void testSavesInBackground() throws IOException, InterruptedException {
+        Autosave autosave = new Autosave(journal, 10);
+        autosave.start();
+        account.addAsset(new Asset("bond", 200, 4.8, 2000));
+        for (int i = 0; i < 500 && segments().length == 0; i++) {
+            Thread.sleep(10);
+        }
+        autosave.stop();
+        assertEquals(1, segments().length);
+        assertEquals(0, autosave.getFailureCount());
+        assertEquals(1, recoverSaved().numAssets());
+    }
+
+    @Test
+    void testBurstSavedOnce() throws IOException {
+        Autosave autosave = new Autosave(journal, HOUR_MILLIS);
+        autosave.start();
+        account.addAsset(new Asset("bond", 200, 4.8, 2000));
+        account.addAsset(new Asset("forward", 300, 6.88, 3000));
+        account.addAsset(new Asset("future", 500, 7.01, 4000));
+        autosave.close();
+        autosave.close();
+        assertEquals(1, segments().length);
+        assertEquals(3, recoverSaved().numAssets());
+    }
+
+    @Test
+    void testStopLeavesChangesUnsaved() throws IOException {
+        Autosave autosave = new Autosave(journal, HOUR_MILLIS);
+        autosave.start();
+        account.addAsset(new Asset("bond", 200, 4.8, 2000));
+        autosave.stop();
+        assertEquals(0, segments().length);
+        assertEquals(0, recoverSaved().numAssets());
+    }
+}
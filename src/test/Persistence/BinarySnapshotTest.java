@@ -0,0 +1,163 @@
+package Persistence;
+
+import model.Account;
+import model.Asset;
+import org.junit.jupiter.api.Test;
+import persistence.BinaryReader;
+import persistence.BinaryWriter;
+import persistence.JsonReader;
+import persistence.SnapshotConverter;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BinarySnapshotTest extends JsonTest {
+    @Test
+    void testWriteReadGeneralAccount() throws IOException {
+        Account ac = new Account("My account");
+        Asset a1 = new Asset("bond", 200, 4.8, 2000);
+        Asset a2 = new Asset("forward", 300, 6.88, 3000);
+        Asset a3 = new Asset("future", 500, 7.01, 4000);
+        a1.withdrawEarly(1000);
+        a1.setInvestDate(10, 22, 2023);
+        a3.withdrawEarly(4000);
+        ac.addAsset(a1);
+        ac.addAsset(a2);
+        ac.addAsset(a3);
+        ac.removeAsset(a3);
+        write(ac, "./data/testBinaryGeneralAccount.bin", 12);
+
+        BinaryReader reader = new BinaryReader("./data/testBinaryGeneralAccount.bin");
+        ac = reader.read();
+        assertEquals(12, reader.getJournalSeq());
+        assertEquals("My account", ac.getName());
+        List<Asset> assets = ac.getAccount();
+        assertEquals(2, assets.size());
+        checkAsset("bond", 200, 0.048, 1000, LocalDate.of(2023, 10, 22), assets.get(0));
+        checkAsset("forward", 300, 0.0688, 3000, LocalDate.now(), assets.get(1));
+        checkAsset("future", 500, 0.0701, 0, LocalDate.now(), ac.getAssetsRemoved().get(0));
+        assertEquals(1000, assets.get(0).getWithdrawList().get(0).getAmount());
+    }
+
+    @Test
+    void testWriteReadManyBlocks() throws IOException {
+        Account ac = new Account("Gro\u00dfes Konto");
+        List<Asset> assets = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            Asset a = new Asset("asset-\u00e9-" + i, 1 + i % 700, 1 + i % 9, 100 + i * 0.01);
+            a.withdrawEarly(0.01 * (i % 3));
+            assets.add(a);
+        }
+        ac.bulkLoad(assets, new ArrayList<>());
+        write(ac, "./data/testBinaryManyBlocks.bin", 0);
+
+        Account read = new BinaryReader("./data/testBinaryManyBlocks.bin").read();
+        assertEquals("Gro\u00dfes Konto", read.getName());
+        assertEquals(5000, read.numAssets());
+        for (int i = 0; i < 5000; i += 997) {
+            Asset a = ac.getAccount().get(i);
+            checkAsset(a.getName(), a.getTermToMaturity(), a.getInterestRate(), a.getPrincipal(),
+                    a.getInvestDate(), read.getAccount().get(i));
+            assertEquals(a.getWithdrawList().size(), read.getAccount().get(i).getWithdrawList().size());
+        }
+    }
+
+    @Test
+    void testReadCorruptBlock() throws IOException {
+        Account ac = new Account("My account");
+        ac.addAsset(new Asset("bond", 200, 4.8, 2000));
+        write(ac, "./data/testBinaryCorrupt.bin", 0);
+        try (RandomAccessFile file = new RandomAccessFile("./data/testBinaryCorrupt.bin", "rw")) {
+            file.seek(file.length() - 1);
+            int last = file.read();
+            file.seek(file.length() - 1);
+            file.write(last ^ 1);
+        }
+        assertThrows(IOException.class, () -> new BinaryReader("./data/testBinaryCorrupt.bin").read());
+    }
+
+    @Test
+    void testReadCountLargerThanFile() throws IOException {
+        Account ac = new Account("My account");
+        ac.addAsset(new Asset("bond", 200, 4.8, 2000));
+        write(ac, "./data/testBinaryHostile.bin", 0);
+        try (RandomAccessFile file = new RandomAccessFile("./data/testBinaryHostile.bin", "rw")) {
+            byte[] header = new byte[28 + "My account".length()];
+            file.readFully(header);
+            ByteBuffer.wrap(header).putInt(12, 200_000_000);
+            CRC32C crc = new CRC32C();
+            crc.update(header);
+            file.seek(0);
+            file.write(header);
+            file.writeInt((int) crc.getValue());
+        }
+        BinaryReader reader = new BinaryReader("./data/testBinaryHostile.bin");
+        assertThrows(IOException.class, reader::read);
+        assertThrows(IOException.class, reader::map);
+    }
+
+    @Test
+    void testReadNotSnapshot() throws IOException {
+        assertFalse(BinaryReader.isSnapshot("./data/testReaderGeneralAccount.json"));
+        assertThrows(IOException.class, () -> new BinaryReader("./data/testReaderGeneralAccount.json").read());
+    }
+
+    @Test
+    void testConvertBothWays() throws IOException {
+        SnapshotConverter.toBinary("./data/testReaderGeneralAccount.json", "./data/testBinaryConverted.bin");
+        assertTrue(BinaryReader.isSnapshot("./data/testBinaryConverted.bin"));
+        SnapshotConverter.toJson("./data/testBinaryConverted.bin", "./data/testBinaryConverted.json");
+
+        Account ac = new JsonReader("./data/testBinaryConverted.json").read();
+        LocalDate expDate = LocalDate.of(2023, 10, 22);
+        checkAsset("bond", 200, 0.048, 1000, expDate, ac.getAccount().get(0));
+        checkAsset("forward", 300, 0.0688, 3000, expDate, ac.getAccount().get(1));
+        checkAsset("future", 500, 0.0701, 0, expDate, ac.getAssetsRemoved().get(0));
+        assertEquals(4000, ac.getAssetsRemoved().get(0).getWithdrawList().get(0).getAmount());
+    }
+
+    @Test
+    void testMapManyBlocks() throws IOException {
+        Account ac = new Account("My account");
+        List<Asset> assets = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            Asset a = new Asset("asset-" + "x".repeat(i % 40) + i, 1 + i % 700, 1 + i % 9, 100 + i);
+            a.withdrawEarly(1 + i % 5);
+            assets.add(a);
+        }
+        ac.bulkLoad(assets.subList(0, 4000), assets.subList(4000, 5000));
+        write(ac, "./data/testBinaryMapped.bin", 3);
+
+        BinaryReader reader = new BinaryReader("./data/testBinaryMapped.bin");
+        Account mapped = reader.map();
+        assertEquals(3, reader.getJournalSeq());
+        assertEquals(4000, mapped.numAssets());
+        ac.refresh();
+        mapped.refresh();
+        assertEquals(ac.getTotalGain(), mapped.getTotalGain());
+        for (int i = 0; i < 4000; i += 331) {
+            assertEquals(ac.nameAt(i), mapped.nameAt(i));
+            Asset a = mapped.getAccount().get(i);
+            checkAsset(ac.nameAt(i), 1 + i % 700, (1 + i % 9) / 100.0, 100 + i - (1 + i % 5), LocalDate.now(), a);
+            assertEquals(1 + i % 5, a.getWithdrawList().get(0).getAmount());
+        }
+        assertEquals(ac.getNamesAssetsRemoved(), mapped.getNamesAssetsRemoved());
+    }
+
+    private void write(Account ac, String file, long journalSeq) throws IOException {
+        BinaryWriter writer = new BinaryWriter(file);
+        writer.open();
+        writer.write(ac, journalSeq);
+        writer.close();
+    }
+}
@@ -0,0 +1,165 @@
+package Persistence;
+
+import model.Account;
+import model.Asset;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import persistence.CsvImporter;
+import persistence.ImportReport;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CsvImporterTest extends JsonTest {
+    private static final String CSV = "./data/testImport.csv";
+    private static final String REJECTS = "./data/testImport.rejects.csv";
+
+    Account ac;
+
+    @BeforeEach
+    void runBefore() throws IOException {
+        ac = new Account("My account");
+        Files.deleteIfExists(Paths.get(CSV));
+        Files.deleteIfExists(Paths.get(REJECTS));
+    }
+
+    @AfterEach
+    void runAfter() throws IOException {
+        Files.deleteIfExists(Paths.get(CSV));
+        Files.deleteIfExists(Paths.get(REJECTS));
+    }
+
+    // EFFECTS: writes the given text to the CSV file
+    private void writeCsv(String text) throws IOException {
+        Files.write(Paths.get(CSV), text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testImportAssetsAndWithdrawals() throws IOException {
+        writeCsv("kind,name,term,rate,principal,date\n"
+                + "withdrawal,bond,500.5,2023-03-01\n"
+                + "asset,bond,200,4.8,1500,2023-01-01\r\n"
+                + "\n"
+                + "asset,\"Bank, \"\"Gold\"\" CD\",365,5.25,10000.05,2022-12-31\n"
+                + "asset,bill,90,3,999.9,2023-02-28");
+        ImportReport report = new CsvImporter(2).importInto(ac, CSV);
+        assertEquals(3, report.getAssetsImported());
+        assertEquals(1, report.getWithdrawalsImported());
+        assertTrue(report.getRejects().isEmpty());
+
+        assertEquals(3, ac.numAssets());
+        Asset bond = ac.findByName("bond");
+        checkAsset("bond", 200, 0.048, 1500, LocalDate.of(2023, 1, 1), bond);
+        assertEquals(500.5, bond.getWithdrawList().get(0).getAmount());
+        assertEquals(LocalDate.of(2023, 3, 1), bond.getWithdrawList().get(0).getDate());
+        checkAsset("Bank, \"Gold\" CD", 365, 0.0525, 10000.05, LocalDate.of(2022, 12, 31),
+                ac.findByName("Bank, \"Gold\" CD"));
+        checkAsset("bill", 90, 0.03, 999.9, LocalDate.of(2023, 2, 28), ac.getAccount().get(2));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: imports a file with one good row followed by a rejected row of each kind
+    private ImportReport importRejectedRows() throws IOException {
+        ac.addAsset(new Asset("taken", 100, 2, 100));
+        writeCsv("asset,bond,200,4.8,1500,2023-01-01\n"
+                + "asset,bond,300,4.8,1500,2023-01-01\n"
+                + "asset,taken,300,4.8,1500,2023-01-01\n"
+                + "asset,zero,0,4.8,1500,2023-01-01\n"
+                + "asset,cents,200,4.8,1500.005,2023-01-01\n"
+                + "asset,date,200,4.8,1500,2023-02-30\n"
+                + "asset,short,200,4.8\n"
+                + "asset,\"open,200,4.8,1500,2023-01-01\n"
+                + "withdrawal,nobody,10,2023-01-01\n"
+                + "deposit,bond,10,2023-01-01\n");
+        return new CsvImporter(3).importInto(ac, CSV);
+    }
+
+    @Test
+    void testRejectedRows() throws IOException {
+        ImportReport report = importRejectedRows();
+        assertEquals(1, report.getAssetsImported());
+        assertEquals(2, ac.numAssets());
+
+        List<ImportReport.Reject> rejects = report.getRejects();
+        assertEquals(9, rejects.size());
+        for (int i = 0; i < rejects.size(); i++) {
+            assertEquals(i + 2, rejects.get(i).getLine());
+        }
+        assertEquals("name is already taken", rejects.get(0).getReason());
+        assertEquals("asset,taken,300,4.8,1500,2023-01-01", rejects.get(1).getRow());
+        assertEquals("investment date is not a valid date", rejects.get(4).getReason());
+        assertEquals("unclosed quote", rejects.get(6).getReason());
+        assertEquals("no asset of this name in the file", rejects.get(7).getReason());
+        assertEquals("unknown kind of row", rejects.get(8).getReason());
+    }
+
+    @Test
+    void testWriteRejects() throws IOException {
+        importRejectedRows().writeRejects(REJECTS);
+        List<String> lines = Files.readAllLines(Paths.get(REJECTS));
+        assertEquals(10, lines.size());
+        assertEquals("line,reason,row", lines.get(0));
+        assertEquals("2,\"name is already taken\",\"asset,bond,300,4.8,1500,2023-01-01\"", lines.get(1));
+        assertEquals("8,\"unclosed quote\",\"asset,\"\"open,200,4.8,1500,2023-01-01\"", lines.get(7));
+    }
+
+    @Test
+    void testRejectedWithdrawals() throws IOException {
+        ac.addAsset(new Asset("taken", 100, 2, 100));
+        writeCsv("asset,bond,200,4.8,1500,2023-01-01\n"
+                + "asset,bond,300,4.8,1500,2023-01-01\n"
+                + "asset,bill,90,3,999.9,2023-02-28\n"
+                + "withdrawal,bond,10,2023-03-01\n"
+                + "withdrawal,taken,10,2023-03-01\n"
+                + "withdrawal,bill,10,2023-02-27\n"
+                + "withdrawal,bill,10,2023-02-28\n");
+        ImportReport report = new CsvImporter(2).importInto(ac, CSV);
+        assertEquals(2, report.getAssetsImported());
+        assertEquals(1, report.getWithdrawalsImported());
+
+        List<ImportReport.Reject> rejects = report.getRejects();
+        assertEquals(4, rejects.size());
+        assertEquals("name is already taken", rejects.get(0).getReason());
+        assertEquals(4, rejects.get(1).getLine());
+        assertEquals("an asset of this name was rejected", rejects.get(1).getReason());
+        assertEquals("no asset of this name in the file", rejects.get(2).getReason());
+        assertEquals(6, rejects.get(3).getLine());
+        assertEquals("withdrawal is dated before its asset was invested", rejects.get(3).getReason());
+        assertTrue(ac.findByName("bond").getWithdrawList().isEmpty());
+        assertTrue(ac.findByName("taken").getWithdrawList().isEmpty());
+        assertEquals(1, ac.findByName("bill").getWithdrawList().size());
+    }
+
+    @Test
+    void testImportManyChunks() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 60000; i++) {
+            csv.append("asset,asset number ").append(i).append(",365,4.5,").append(1000 + i).append(",2023-01-01\n");
+        }
+        csv.append("asset,bad,365,4.5,-1,2023-01-01\n");
+        csv.append("withdrawal,asset number 59999,1,2023-06-01\n");
+        writeCsv(csv.toString());
+        assertTrue(Files.size(Paths.get(CSV)) > 2 << 20);
+
+        ImportReport report = new CsvImporter(4).importInto(ac, CSV);
+        assertEquals(60000, report.getAssetsImported());
+        assertEquals(1, report.getWithdrawalsImported());
+        assertEquals(60001, report.getRejects().get(0).getLine());
+        assertEquals(60000, ac.numAssets());
+        assertEquals("asset number 31234", ac.getAccount().get(31234).getName());
+        assertEquals(1, ac.findByName("asset number 59999").getWithdrawList().size());
+    }
+
+    @Test
+    void testImportMissingFile() {
+        assertThrows(IOException.class, () -> new CsvImporter().importInto(ac, CSV));
+        assertEquals(0, ac.numAssets());
+    }
+}
@@ -5,11 +5,17 @@ import model.Asset;
 import org.junit.jupiter.api.Test;
 import persistence.JsonReader;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.fail;
 
 public class JsonReaderTest extends JsonTest {
@@ -58,4 +64,71 @@ public class JsonReaderTest extends JsonTest {
             fail("Couldn't read from file");
         }
     }
+
+    // EFFECTS: returns a channel over the UTF-8 bytes of the given JSON
+    private ReadableByteChannel channelOf(String json) {
+        InputStream in = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+        return Channels.newChannel(in);
+    }
+
+    @Test
+    void testReaderChannelAnyKeyOrder() throws IOException {
+        String json = "{\"journal_seq\":7,\"extra\":[{\"a\":[1,true,null]}],\"accounts\":[{\"status\":\"removed\","
+                + "\"assets\":[{\"name\":\"caf\\u00e9 \\\"bond\\\"\",\"features\":{\"termToMaturity\":200,"
+                + "\"principal\":1.5e3,\"interestRate\":0.048,\"investDate\":\"2023-10-22\","
+                + "\"withdrawList\":[{\"amount\":500,\"date\":\"2023-11-01\"}]}}]}],\"user_name\":\"Zo\u00eb\"}";
+        JsonReader reader = new JsonReader("unused");
+        Account ac = reader.read(channelOf(json));
+        assertEquals("Zo\u00eb", ac.getName());
+        assertEquals(7, reader.getJournalSeq());
+        assertEquals(0, ac.numAssets());
+        Asset a = ac.getAssetsRemoved().get(0);
+        checkAsset("caf\u00e9 \"bond\"", 200, 0.048, 1500, LocalDate.of(2023, 10, 22), a);
+        assertEquals(500, a.getWithdrawList().get(0).getAmount());
+    }
+
+    @Test
+    void testReaderStatusAfterAssets() throws IOException {
+        String bond = "{\"name\":\"bond\",\"features\":{\"interestRate\":0.05,\"principal\":%s,"
+                + "\"withdrawList\":[],\"investDate\":\"2023-01-01\",\"termToMaturity\":30}}";
+        String json = "{\"accounts\":[{\"assets\":[" + String.format(bond, 100) + "],\"status\":\"current\"},"
+                + "{\"assets\":[" + String.format(bond, 0) + "],\"status\":\"removed\"}],\"user_name\":\"x\"}";
+        Account ac = new JsonReader("unused").read(channelOf(json));
+        assertEquals(1, ac.numAssets());
+        assertEquals(List.of("bond"), ac.getNamesAssetsRemoved());
+        assertSame(ac.getAccount().get(0), ac.findByName("bond"));
+        assertEquals(100, ac.findByName("bond").getPrincipal());
+        assertEquals(LocalDate.of(2023, 1, 31), ac.getAssetsRemoved().get(0).getMaturityDate());
+    }
+
+    @Test
+    void testReaderMalformed() {
+        String[] inputs = {"", "{\"user_name\": ", "{\"accounts\": []}", "{\"user_name\": tru}",
+                "{\"user_name\": \"x\", \"accounts\": [{\"assets\": []}]}", "{\"user_name\": \"unterminated}",
+                "{\"user_name\": \"\\u00zz\"}", "{\"user_name\": \"\\u00"};
+        for (String input : inputs) {
+            try {
+                new JsonReader("unused").read(channelOf(input));
+                fail("IOException expected for " + input);
+            } catch (IOException e) {
+                // pass
+            }
+        }
+    }
+
+    @Test
+    void testReaderLargeStream() throws IOException {
+        int numAssets = 20000;
+        String asset = "{\"name\":\"a\",\"features\":{\"interestRate\":0.05,\"principal\":100,\"withdrawList\":[],"
+                + "\"investDate\":\"2023-01-01\",\"termToMaturity\":30}}";
+        StringBuilder json = new StringBuilder("{\"user_name\":\"big\",");
+        json.append("\"accounts\":[{\"status\":\"current\",\"assets\":[");
+        for (int i = 0; i < numAssets; i++) {
+            json.append(i == 0 ? "" : ",\n").append(asset);
+        }
+        json.append("]}]}");
+        Account ac = new JsonReader("unused").read(channelOf(json.toString()));
+        assertEquals(numAssets, ac.numAssets());
+        assertEquals(100, ac.getAccount().get(numAssets - 1).getPrincipal());
+    }
 }
@@ -3,14 +3,21 @@ package Persistence;
 import model.Account;
 import model.Asset;
 import org.junit.jupiter.api.Test;
+import persistence.Compression;
 import persistence.JsonReader;
 import persistence.JsonWriter;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.zip.Deflater;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 public class JsonWriterTest extends JsonTest {
@@ -83,4 +90,84 @@ public class JsonWriterTest extends JsonTest {
             fail("Exception should not have been thrown");
         }
     }
+
+    @Test
+    void testWriterCompactAccount() {
+        try {
+            Account ac = new Account("My account");
+            Asset a1 = new Asset("bond", 200, 4.8, 2000.5);
+            a1.withdrawEarly(0.05);
+            ac.addAsset(a1);
+
+            JsonWriter writer = new JsonWriter("./data/testWriterCompactAccount.json", true);
+            writer.open();
+            writer.write(ac, 7);
+            writer.close();
+
+            String json = new String(Files.readAllBytes(Paths.get("./data/testWriterCompactAccount.json")),
+                    StandardCharsets.UTF_8);
+            assertFalse(json.contains("\n") || json.contains(": ") || json.contains(", "));
+            JsonReader reader = new JsonReader("./data/testWriterCompactAccount.json");
+            ac = reader.read();
+            assertEquals(7, reader.getJournalSeq());
+            assertEquals(1, ac.numAssets());
+            checkAsset("bond", 200, 0.048, 2000.45, LocalDate.now(), ac.getAccount().get(0));
+            assertEquals(0.05, ac.getAccount().get(0).getWithdrawList().get(0).getAmount());
+        } catch (IOException e) {
+            fail("Exception should not have been thrown");
+        }
+    }
+
+    @Test
+    void testWriterEscapedNames() {
+        try {
+            Account ac = new Account("My \"quoted\" account\\");
+            ac.addAsset(new Asset("bond\tr\u00e9sum\u00e9\n", 200, 4.8, 2000));
+
+            JsonWriter writer = new JsonWriter("./data/testWriterEscapedNames.json");
+            writer.open();
+            writer.write(ac);
+            writer.close();
+
+            ac = new JsonReader("./data/testWriterEscapedNames.json").read();
+            assertEquals("My \"quoted\" account\\", ac.getName());
+            assertEquals("bond\tr\u00e9sum\u00e9\n", ac.getAccount().get(0).getName());
+        } catch (IOException e) {
+            fail("Exception should not have been thrown");
+        }
+    }
+
+    @Test
+    void testWriterCompressedAccount() throws IOException {
+        Account ac = new Account("My account");
+        for (int i = 0; i < 200; i++) {
+            ac.addAsset(new Asset("bond" + i, 200, 4.8, 2000 + i));
+        }
+        long plain = writeCompressed(ac, "./data/testWriterPlainAccount.json", Compression.NONE);
+        long gzip = writeCompressed(ac, "./data/testWriterGzipAccount.json.gz", Compression.gzip());
+        long deflate = writeCompressed(ac, "./data/testWriterDeflateAccount.json.zz",
+                Compression.deflate(Deflater.BEST_COMPRESSION));
+        assertTrue(gzip * 4 < plain);
+        assertTrue(deflate * 4 < plain);
+
+        byte[] head = Files.readAllBytes(Paths.get("./data/testWriterGzipAccount.json.gz"));
+        assertEquals(0x1F, head[0] & 0xFF);
+        assertEquals(0x8B, head[1] & 0xFF);
+        for (String file : List.of("./data/testWriterGzipAccount.json.gz", "./data/testWriterDeflateAccount.json.zz")) {
+            JsonReader reader = new JsonReader(file);
+            Account read = reader.read();
+            assertEquals(3, reader.getJournalSeq());
+            assertEquals(200, read.numAssets());
+            checkAsset("bond199", 200, 0.048, 2199, LocalDate.now(), read.findByName("bond199"));
+        }
+    }
+
+    // EFFECTS: writes the account to the given file through the given compression and returns the file's size
+    private long writeCompressed(Account ac, String file, Compression compression) throws IOException {
+        JsonWriter writer = new JsonWriter(file, false, compression);
+        writer.open();
+        writer.write(ac, 3);
+        writer.close();
+        return Files.size(Paths.get(file));
+    }
 }
@@ -0,0 +1,115 @@
+package Persistence;
+
+import model.Account;
+import model.Asset;
+import model.Portfolio;
+import model.RankingMetric;
+import model.ValuationContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import persistence.BinaryWriter;
+import persistence.Compression;
+import persistence.JsonWriter;
+import persistence.PortfolioLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PortfolioLoaderTest extends JsonTest {
+    private static final String DIRECTORY = "./data/testPortfolio";
+    private static final LocalDate DATE = LocalDate.now();
+
+    @BeforeEach
+    void runBefore() throws IOException {
+        deleteDirectory();
+        Files.createDirectories(Paths.get(DIRECTORY));
+    }
+
+    @AfterEach
+    void runAfter() throws IOException {
+        deleteDirectory();
+    }
+
+    // EFFECTS: deletes the test directory and the files in it
+    private void deleteDirectory() throws IOException {
+        Path directory = Paths.get(DIRECTORY);
+        if (Files.exists(directory)) {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.toArray(Path[]::new)) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    // EFFECTS: returns an account of the given name with n assets invested on the first day of 2023
+    private Account account(String name, int n) {
+        Account ac = new Account(name);
+        for (int i = 0; i < n; i++) {
+            Asset a = new Asset(name + i, 100 + 100 * i, 4.5, 1000 * (i + 1));
+            a.setInvestDate(1, 1, 2023);
+            ac.addAsset(a);
+        }
+        return ac;
+    }
+
+    // EFFECTS: writes the account as JSON through the given compression to the given file in the directory
+    private void writeJson(Account ac, String file, Compression compression) throws IOException {
+        JsonWriter writer = new JsonWriter(DIRECTORY + "/" + file, false, compression);
+        writer.open();
+        writer.write(ac);
+        writer.close();
+    }
+
+    @Test
+    void testLoadDirectory() throws IOException {
+        Account a = account("Ann", 3);
+        Account b = account("Bob", 2);
+        Account c = account("Cat", 4);
+        writeJson(b, "b.json.gz", Compression.gzip());
+        writeJson(a, "a.json", Compression.NONE);
+        BinaryWriter writer = new BinaryWriter(DIRECTORY + "/c.bin");
+        writer.open();
+        writer.write(c);
+        writer.close();
+        Files.writeString(Paths.get(DIRECTORY, "notes.txt"), "not an account");
+
+        Portfolio portfolio = new PortfolioLoader(2).load(DIRECTORY, DATE);
+        assertEquals(3, portfolio.numAccounts());
+        assertEquals("Ann", portfolio.getAccounts().get(0).getName());
+        assertEquals("Cat", portfolio.getAccounts().get(2).getName());
+        assertEquals(9, portfolio.numAssets());
+        c.refresh(ValuationContext.asOf(DATE));
+        assertEquals(c.getTotalGain(), portfolio.getTotalGain(2));
+        assertEquals(c.numActiveAssets(), portfolio.numActiveAssets(2));
+        assertEquals("Cat3", portfolio.topK(2, RankingMetric.PRINCIPAL).get(0).getName());
+        assertEquals("Ann2", portfolio.topK(2, RankingMetric.PRINCIPAL).get(1).getName());
+    }
+
+    @Test
+    void testLoadEmptyDirectory() throws IOException {
+        Portfolio portfolio = new PortfolioLoader().load(DIRECTORY, DATE);
+        assertEquals(0, portfolio.numAccounts());
+    }
+
+    @Test
+    void testLoadBadFile() throws IOException {
+        writeJson(account("Ann", 1), "a.json", Compression.NONE);
+        Files.writeString(Paths.get(DIRECTORY, "b.json"), "{\"user_name\": ");
+        IOException e = assertThrows(IOException.class, () -> new PortfolioLoader(4).load(DIRECTORY, DATE));
+        assertTrue(e.getMessage().contains("b.json"));
+    }
+
+    @Test
+    void testLoadMissingDirectory() {
+        assertThrows(IOException.class, () -> new PortfolioLoader().load(DIRECTORY + "/missing", DATE));
+    }
+}
@@ -0,0 +1,219 @@
+package Persistence;
+
+import model.Account;
+import model.Asset;
+import model.AssetSource;
+import model.ValuationContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import persistence.ValuationExporter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ValuationExporterTest {
+    private static final String CSV = "./data/testExport.csv";
+    private static final String CSV_GZ = "./data/testExport.csv.gz";
+    private static final String COLUMNAR = "./data/testExport.col";
+    private static final ValuationContext INVESTED = ValuationContext.asOf(LocalDate.of(2023, 1, 1));
+    private static final ValuationContext VALUED = ValuationContext.asOf(LocalDate.of(2023, 3, 1));
+
+    Account ac;
+
+    @BeforeEach
+    void runBefore() {
+        ac = new Account("My account");
+        ac.addAsset(asset("bond", 200, 4.8, 1500));
+        ac.addAsset(asset("Bank, \"Gold\" CD", 365, 5.25, 10000.05));
+        ac.addAsset(asset("bill", 10, 3, 999.9));
+        ac.addAsset(asset("old", 30, 2, 100));
+        ac.removeByName("old");
+    }
+
+    // EFFECTS: returns a new asset invested on 2023-01-01 with its maturity date calculated
+    private Asset asset(String name, int term, double rate, double principal) {
+        Asset a = new Asset(name, term, rate, principal, INVESTED);
+        a.calculateMaturityDate();
+        return a;
+    }
+
+    @AfterEach
+    void runAfter() throws IOException {
+        Files.deleteIfExists(Paths.get(CSV));
+        Files.deleteIfExists(Paths.get(CSV_GZ));
+        Files.deleteIfExists(Paths.get(COLUMNAR));
+    }
+
+    @Test
+    void testExportCsv() throws IOException {
+        assertEquals(4, new ValuationExporter(CSV).exportCsv(ac, VALUED));
+        List<String> lines = Files.readAllLines(Paths.get(CSV));
+        assertEquals(5, lines.size());
+        assertEquals("name,status,principal,interest_rate,term,invest_date,maturity_date,days_held,"
+                + "total_gain,full_return", lines.get(0));
+        assertEquals("bond,active,1500.00,4.80,200,2023-01-01,2023-07-20,59,11.64,39.45", lines.get(1));
+        assertTrue(lines.get(2).startsWith("\"Bank, \"\"Gold\"\" CD\",active,10000.05,5.25,365,"));
+        assertTrue(lines.get(3).startsWith("bill,inactive,999.90,3.00,10,2023-01-01,2023-01-11,59,"));
+        assertTrue(lines.get(4).startsWith("old,removed,100.00,2.00,30,"));
+    }
+
+    @Test
+    void testExportCsvCompressed() throws IOException {
+        new ValuationExporter(CSV_GZ).exportCsv(ac, VALUED);
+        new ValuationExporter(CSV).exportCsv(ac, VALUED);
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(Paths.get(CSV_GZ)))) {
+            assertArrayEquals(Files.readAllBytes(Paths.get(CSV)), in.readAllBytes());
+        }
+    }
+
+    @Test
+    void testExportColumnar() throws IOException {
+        assertEquals(4, new ValuationExporter(COLUMNAR).exportColumnar(ac, VALUED));
+        ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(Paths.get(COLUMNAR)));
+        assertEquals(ValuationExporter.MAGIC, file.getInt());
+        assertEquals(ValuationExporter.VERSION, file.getInt());
+        assertEquals(4, file.getInt());
+        assertEquals(10, file.getInt());
+        assertEquals(VALUED.getEpochDay(), file.getLong());
+        checkNameColumn(file);
+        assertEquals("status", columnName(file));
+        assertEquals(1, file.get());
+        assertEquals(4, file.getLong());
+        assertArrayEquals(new byte[] {0, 0, 1, 2}, new byte[] {file.get(), file.get(), file.get(), file.get()});
+        assertEquals("principal", columnName(file));
+        assertEquals(8, file.get());
+        assertEquals(32, file.getLong());
+        assertEquals(150000, file.getLong());
+    }
+
+    @Test
+    void testExportColumnarManyRows() throws IOException {
+        List<Asset> assets = new ArrayList<>();
+        for (int i = 0; i < 50000; i++) {
+            assets.add(asset("asset number " + i, 365, 4.5, 1000 + i));
+        }
+        ac.bulkLoad(assets, new ArrayList<>());
+        assertEquals(50004, new ValuationExporter(COLUMNAR).exportColumnar(ac, VALUED));
+        ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(Paths.get(COLUMNAR)));
+        file.position(24);
+        for (int column = 0; column < 10; column++) {
+            columnName(file);
+            int width = file.get();
+            long length = file.getLong();
+            if (width > 0) {
+                assertEquals(50004L * width, length);
+            }
+            file.position(file.position() + (int) length);
+        }
+        assertFalse(file.hasRemaining());
+
+        assertEquals(50004, new ValuationExporter(CSV).exportCsv(ac, VALUED));
+        List<String> lines = Files.readAllLines(Paths.get(CSV));
+        assertEquals(50005, lines.size());
+        assertTrue(lines.get(50005 - 1 - 1).startsWith("asset number 49999,active,50999.00,4.50,365,"));
+    }
+
+    @Test
+    void testFailedExportKeepsPreviousFile() throws IOException {
+        new ValuationExporter(CSV).exportCsv(ac, VALUED);
+        new ValuationExporter(COLUMNAR).exportColumnar(ac, VALUED);
+        byte[] csv = Files.readAllBytes(Paths.get(CSV));
+        byte[] columnar = Files.readAllBytes(Paths.get(COLUMNAR));
+        Account corrupt = new Account("Failing");
+        corrupt.lazyLoad(new FailingSource(5000));
+
+        assertThrows(UncheckedIOException.class, () -> new ValuationExporter(CSV).exportCsv(corrupt, VALUED));
+        assertThrows(UncheckedIOException.class,
+                () -> new ValuationExporter(COLUMNAR).exportColumnar(corrupt, VALUED));
+        assertArrayEquals(csv, Files.readAllBytes(Paths.get(CSV)));
+        assertArrayEquals(columnar, Files.readAllBytes(Paths.get(COLUMNAR)));
+        assertFalse(Files.exists(Paths.get(CSV + ".tmp")));
+        assertFalse(Files.exists(Paths.get(COLUMNAR + ".tmp")));
+    }
+
+    // EFFECTS: reads the name column of the columnar export and checks it holds the names of the assets
+    private void checkNameColumn(ByteBuffer file) {
+        assertEquals("name", columnName(file));
+        assertEquals(0, file.get());
+        file.getLong();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            byte[] name = new byte[file.getInt()];
+            file.get(name);
+            names.add(new String(name, StandardCharsets.UTF_8));
+        }
+        assertEquals(List.of("bond", "Bank, \"Gold\" CD", "bill", "old"), names);
+    }
+
+    // EFFECTS: reads the name at the start of a column block
+    private String columnName(ByteBuffer file) {
+        byte[] name = new byte[file.getInt()];
+        file.get(name);
+        return new String(name, StandardCharsets.US_ASCII);
+    }
+
+    // Represents many assets whose last name cannot be read, so that an export of them only fails once
+    // it has written most of its rows
+    private static class FailingSource implements AssetSource {
+        private final int size;
+
+        FailingSource(int size) {
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean isRemoved(int i) {
+            return false;
+        }
+
+        public long getPrincipalCents(int i) {
+            return 100000 + i;
+        }
+
+        public int getInterestBasisPoints(int i) {
+            return 450;
+        }
+
+        public int getTermToMaturity(int i) {
+            return 365;
+        }
+
+        public long getInvestEpochDay(int i) {
+            return INVESTED.getEpochDay();
+        }
+
+        public String getName(int i) {
+            if (i == size - 1) {
+                throw new UncheckedIOException(new IOException("Unreadable name"));
+            }
+            return "asset number " + i;
+        }
+
+        public int getWithdrawalCount(int i) {
+            return 0;
+        }
+
+        public long getWithdrawalCents(int i, int k) {
+            return 0;
+        }
+
+        public long getWithdrawalEpochDay(int i, int k) {
+            return 0;
+        }
+    }
+}
@@ -123,7 +123,7 @@ public class AccountTest {
         testAccount.addAsset(a3);
         testAccount.refresh();
 
-        double expWealth = expGain1 + expGain2 + expGain3;
+        double expWealth = Math.round((expGain1 + expGain2 + expGain3) * 100) / 100.0;
         assertEquals(expWealth, testAccount.getTotalGain());
     }
 
@@ -135,7 +135,7 @@ public class AccountTest {
         testAccount.removeAsset(a1);
         testAccount.refresh();
 
-        double expWealth = expGain1 + expGain2 + expGain3;
+        double expWealth = Math.round((expGain1 + expGain2 + expGain3) * 100) / 100.0;
         assertEquals(expWealth, testAccount.getTotalGain());
     }
 
@@ -202,4 +202,400 @@ public class AccountTest {
         expList.add("asset3");
         assertEquals(expList, testAccount.getTop3AssetsName());
     }
+
+    @Test
+    void testTopKByTotalGain() {
+        testAccount.addAsset(a1);
+        testAccount.addAsset(a2);
+        testAccount.addAsset(a3);
+        testAccount.refresh();
+
+        assertEquals(a2, testAccount.topK(1, RankingMetric.TOTAL_GAIN).get(0));
+        assertEquals(3, testAccount.topK(10, RankingMetric.TOTAL_GAIN).size());
+        assertTrue(testAccount.topK(0, RankingMetric.TOTAL_GAIN).isEmpty());
+    }
+
+    @Test
+    void testTopKIndexFollowsChanges() {
+        testAccount.addAsset(a1);
+        testAccount.addAsset(a3);
+        testAccount.refresh();
+        List<Asset> top = testAccount.topK(2, RankingMetric.TOTAL_GAIN);
+        assertEquals(2, top.size());
+
+        testAccount.addAsset(a2);
+        testAccount.removeAsset(a1);
+        testAccount.refresh();
+        top = testAccount.topK(2, RankingMetric.TOTAL_GAIN);
+        assertEquals(a2, top.get(0));
+        assertEquals(a3, top.get(1));
+    }
+
+    @Test
+    void testTopKByOtherMetrics() {
+        testAccount.addAsset(a1);
+        testAccount.addAsset(a2);
+        testAccount.addAsset(a3);
+        testAccount.addAsset(a4);
+        testAccount.removeAsset(a4);
+
+        List<Asset> byRate = testAccount.topK(2, RankingMetric.INTEREST_RATE);
+        assertEquals(a2, byRate.get(0));
+        assertEquals(a1, byRate.get(1));
+
+        List<Asset> byPrincipal = testAccount.topK(3, RankingMetric.PRINCIPAL);
+        assertEquals(a2, byPrincipal.get(0));
+        assertEquals(a3, byPrincipal.get(1));
+        assertEquals(a1, byPrincipal.get(2));
+
+        assertEquals(3, testAccount.topK(5, RankingMetric.POTENTIAL_LOSS).size());
+    }
+
+    @Test
+    void testTopKTieLaterAddedRanksHigher() {
+        Asset b1 = new Asset("b1", 100, 5, 1000);
+        Asset b2 = new Asset("b2", 100, 5, 1000);
+        testAccount.addAsset(b1);
+        testAccount.addAsset(b2);
+        assertEquals(b2, testAccount.topK(1, RankingMetric.PRINCIPAL).get(0));
+        assertEquals(b2, testAccount.topK(1, RankingMetric.TOTAL_GAIN).get(0));
+    }
+
+    @Test
+    void testFindByName() {
+        testAccount.addAsset(a1);
+        testAccount.addAsset(a2);
+        assertEquals(a2, testAccount.findByName("asset2"));
+        assertNull(testAccount.findByName("asset3"));
+        assertTrue(testAccount.containsName("asset1"));
+        assertFalse(testAccount.containsName("asset3"));
+    }
+
+    @Test
+    void testRemoveByName() {
+        testAccount.addAsset(a1);
+        testAccount.addAsset(a2);
+        assertEquals(a1, testAccount.removeByName("asset1"));
+        assertFalse(testAccount.containsName("asset1"));
+        assertEquals(1, testAccount.numAssets());
+        assertEquals("asset1", testAccount.getNamesAssetsRemoved().get(0));
+        assertNull(testAccount.removeByName("asset1"));
+        assertEquals(1, testAccount.getNamesAssetsRemoved().size());
+    }
+
+    @Test
+    void testRemoveAssetUpdatesNameIndex() {
+        testAccount.addAsset(a1);
+        testAccount.removeAsset(a1);
+        assertNull(testAccount.findByName("asset1"));
+    }
+
+    @Test
+    void testMaturingBetween() {
+        testAccount.addAsset(a1);
+        testAccount.addAsset(a2);
+        testAccount.addAsset(a3);
+        List<Asset> maturing = testAccount.maturingBetween(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31));
+        assertEquals(1, maturing.size());
+        assertEquals(a1, maturing.get(0));
+        maturing = testAccount.maturingBetween(LocalDate.of(2023, 1, 1), today);
+        assertEquals(3, maturing.size());
+        assertEquals(a1, maturing.get(0));
+        assertEquals(a2, maturing.get(1));
+        assertEquals(a3, maturing.get(2));
+    }
+
+    @Test
+    void testMaturityIndexFollowsChanges() {
+        testAccount.addAsset(a1);
+        testAccount.addAsset(a3);
+        testAccount.removeAsset(a1);
+        assertTrue(testAccount.maturingBetween(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31)).isEmpty());
+        a3.setInvestDate(1, 1, 2023);
+        assertEquals(a3, testAccount.maturingBetween(LocalDate.of(2023, 3, 1), LocalDate.of(2023, 4, 30)).get(0));
+    }
+
+    @Test
+    void testMaturityCalendar() {
+        testAccount.addAsset(a1); // matures 2023-06-30
+        testAccount.addAsset(a2); // matures 2024-01-01
+        List<MaturityBucket> buckets = testAccount.maturityCalendar(LocalDate.of(2023, 6, 1), 30, 8);
+        assertEquals(8, buckets.size());
+        assertEquals(LocalDate.of(2023, 6, 1), buckets.get(0).getStart());
+        assertEquals(LocalDate.of(2023, 6, 30), buckets.get(0).getEnd());
+        assertEquals(1, buckets.get(0).getCount());
+        assertEquals(1000, buckets.get(0).getPrincipal());
+        assertEquals(0, buckets.get(1).getCount());
+        assertEquals(1, buckets.get(7).getCount());
+        assertEquals(2000, buckets.get(7).getPrincipal());
+    }
+
+    @Test
+    void testRefreshStatusOnlyNewlyMatured() {
+        Asset b1 = new Asset("b1", 10, 5, 1000);
+        Asset b2 = new Asset("b2", 20, 5, 1000);
+        b1.setInvestDate(1, 1, 2023);
+        b2.setInvestDate(1, 1, 2023);
+        testAccount.addAsset(b1);
+        testAccount.addAsset(b2);
+        testAccount.refreshStatus(ValuationContext.asOf(LocalDate.of(2023, 1, 5)));
+        assertTrue(b1.getActivatedStatus());
+        testAccount.refreshStatus(ValuationContext.asOf(LocalDate.of(2023, 1, 12)));
+        assertFalse(b1.getActivatedStatus());
+        assertTrue(b2.getActivatedStatus());
+        testAccount.refreshStatus(ValuationContext.asOf(LocalDate.of(2023, 1, 22)));
+        assertFalse(b2.getActivatedStatus());
+    }
+
+    @Test
+    void testBulkLoad() {
+        testAccount.addAsset(a4);
+        a3.deActivate();
+        List<Asset> active = new ArrayList<>(List.of(a1, a2));
+        List<Asset> removed = new ArrayList<>(List.of(a3));
+        testAccount.bulkLoad(active, removed);
+
+        assertEquals(List.of(a4, a1, a2), testAccount.getAccount());
+        assertEquals(List.of(a3), testAccount.getAssetsRemoved());
+        assertSame(a1, testAccount.findByName("asset1"));
+        assertNull(testAccount.findByName("asset3"));
+        assertFalse(a3.getActivatedStatus());
+        assertEquals(List.of(a1), testAccount.maturingBetween(LocalDate.of(2023, 6, 30), LocalDate.of(2023, 6, 30)));
+        testAccount.refresh();
+        List<String> top = testAccount.getTopAssetsName(4);
+        assertEquals(3, top.size());
+        assertFalse(top.contains("asset3"));
+    }
+
+    @Test
+    void testBulkLoadLogsOneEvent() {
+        EventIndex index = new EventIndex();
+        index.addAll(EventLog.getInstance());
+        int before = index.size();
+        testAccount.bulkLoad(List.of(a1, a2), List.of(a3));
+        EventIndex after = new EventIndex();
+        after.addAll(EventLog.getInstance());
+        List<Event> loaded = after.last(Event.Type.ASSETS_LOADED, 1);
+        assertEquals("3 assets loaded into account.", loaded.get(0).getDescription());
+        assertTrue(after.size() - before <= 1);
+    }
+
+    @Test
+    void testLoaderMatchesBulkLoad() {
+        a1.withdrawEarly(100, ValuationContext.asOf(LocalDate.of(2023, 2, 1)));
+        Account loaded = new Account("Loaded");
+        AccountLoader loader = loaded.loader(3);
+        for (Asset a : List.of(a1, a2, a3)) {
+            Asset copy = loader.add(a.getName(), a.getTermToMaturity(), a.getInterestBasisPoints(),
+                    a.getPrincipalCents(), a.getInvestEpochDay(), a == a3);
+            for (Withdrawal w : a.getWithdrawList()) {
+                copy.addWithdrawal(new Withdrawal(w.getAmount(), w.getDate()));
+            }
+        }
+        loader.finish();
+        testAccount.bulkLoad(List.of(a1, a2), List.of(a3));
+        testAccount.refresh();
+        loaded.refresh();
+
+        assertEquals(testAccount.getTotalGain(), loaded.getTotalGain());
+        assertEquals(List.of("asset3"), loaded.getNamesAssetsRemoved());
+        Asset loadedAsset1 = loaded.findByName("asset1");
+        assertSame(loadedAsset1, loaded.getAccount().get(0));
+        assertEquals(a1.getMaturityDate(), loadedAsset1.getMaturityDate());
+        assertEquals(100, loadedAsset1.getWithdrawList().get(0).getAmount());
+        assertNull(loaded.findByName("asset3"));
+        assertEquals(List.of(loadedAsset1), loaded.maturingBetween(LocalDate.of(2023, 6, 30),
+                LocalDate.of(2023, 6, 30)));
+    }
+
+    @Test
+    void testAddNewAsset() {
+        Asset bond = testAccount.addNewAsset("bond", 200, 480, 150000, LocalDate.of(2023, 1, 1).toEpochDay());
+        assertSame(bond, testAccount.findByName("bond"));
+        assertEquals(1500, bond.getPrincipal());
+        assertEquals(0.048, bond.getInterestRate());
+        assertEquals(LocalDate.of(2023, 7, 20), bond.getMaturityDate());
+        assertTrue(bond.getActivatedStatus());
+    }
+
+    @Test
+    void testLazyLoadMatchesBulkLoad() {
+        a1.withdrawEarly(100);
+        Account lazy = new Account("Lazy");
+        lazy.lazyLoad(new ListSource(List.of(a1, a2, a3), 2));
+        testAccount.bulkLoad(List.of(a1, a2), List.of(a3));
+        testAccount.refresh();
+        lazy.refresh();
+
+        assertEquals(testAccount.getTotalGain(), lazy.getTotalGain());
+        assertEquals(2, lazy.numAssets());
+        assertEquals("asset2", lazy.nameAt(1));
+        assertEquals(List.of("asset3"), lazy.getNamesAssetsRemoved());
+        Asset lazyAsset1 = lazy.findByName("asset1");
+        assertSame(lazyAsset1, lazy.getAccount().get(0));
+        assertEquals(a1.getPrincipal(), lazyAsset1.getPrincipal());
+        assertEquals(100, lazyAsset1.getWithdrawList().get(0).getAmount());
+        assertEquals(testAccount.getTopAssetsName(3), lazy.getTopAssetsName(3));
+    }
+
+    @Test
+    void testLazyLoadReadsWithdrawalsOnFirstRefresh() {
+        a1.withdrawEarly(100);
+        int[] reads = new int[1];
+        Account lazy = new Account("Lazy");
+        lazy.lazyLoad(new ListSource(List.of(a1, a2, a3), 2) {
+            @Override
+            public int getWithdrawalCount(int i) {
+                reads[0]++;
+                return super.getWithdrawalCount(i);
+            }
+        });
+        assertEquals(0, reads[0]);
+        assertEquals(List.of(), lazy.maturingBetween(LocalDate.of(2000, 1, 1), LocalDate.of(2000, 12, 31)));
+        lazy.refresh();
+        assertTrue(reads[0] > 0);
+        testAccount.bulkLoad(List.of(a1, a2), List.of(a3));
+        testAccount.refresh();
+        assertEquals(testAccount.getTotalGain(), lazy.getTotalGain());
+    }
+
+    @Test
+    void testRemoveOneOfSameNamedAssets() {
+        Asset twin = new Asset("asset1", 90, 3, 500);
+        testAccount.addAsset(a1);
+        testAccount.addAsset(a2);
+        testAccount.addAsset(twin);
+        testAccount.removeAsset(twin);
+        assertSame(a1, testAccount.findByName("asset1"));
+        assertTrue(testAccount.containsName("asset1"));
+
+        Asset other = new Asset("asset1", 60, 2, 700);
+        testAccount.addAsset(other);
+        testAccount.removeAsset(a1);
+        assertSame(other, testAccount.findByName("asset1"));
+        testAccount.removeAsset(other);
+        assertFalse(testAccount.containsName("asset1"));
+        assertNull(testAccount.findByName("asset1"));
+    }
+
+    @Test
+    void testLazyLoadThenMutate() {
+        Account lazy = new Account("Lazy");
+        lazy.lazyLoad(new ListSource(List.of(a1, a2), 2));
+        lazy.addAsset(a4);
+        assertSame(a4, lazy.findByName("asset4"));
+        assertEquals("asset1", lazy.removeByName("asset1").getName());
+        assertNull(lazy.findByName("asset1"));
+        assertEquals("asset2", lazy.nameAt(0));
+        assertEquals("asset4", lazy.nameAt(1));
+        assertEquals(List.of("asset1"), lazy.getNamesAssetsRemoved());
+        assertEquals(1, lazy.getAccount().indexOf(a4));
+    }
+
+    @Test
+    void testValuations() {
+        Account lazy = new Account("Lazy");
+        lazy.lazyLoad(new ListSource(List.of(a1, a2, a3), 2));
+        lazy.addAsset(a4);
+        lazy.refresh(ValuationContext.asOf(LocalDate.of(2023, 3, 1)));
+
+        ValuationCursor rows = lazy.valuations();
+        assertEquals(4, rows.size());
+        List<String> names = new ArrayList<>();
+        while (rows.next()) {
+            names.add(rows.getName());
+            assertEquals(names.size() == 4, rows.isRemoved());
+        }
+        assertEquals(List.of("asset1", "asset2", "asset4", "asset3"), names);
+        assertFalse(rows.next());
+
+        rows.reset();
+        assertTrue(rows.next());
+        assertTrue(rows.isActive());
+        assertEquals(100000, rows.getPrincipalCents());
+        assertEquals(500, rows.getInterestBasisPoints());
+        assertEquals(LocalDate.of(2023, 6, 30).toEpochDay(), rows.getMaturityEpochDay());
+        assertEquals(59, rows.getDaysHeld());
+        assertEquals(Money.interest(500, 59, 100000), rows.getTotalGainCents());
+        assertEquals(Money.interest(500, 180, 100000), rows.getFullReturnCents());
+    }
+
+    @Test
+    void testAsSource() {
+        a1.withdrawEarly(100);
+        Account lazy = new Account("Lazy");
+        lazy.lazyLoad(new ListSource(List.of(a1, a2, a3), 2));
+        a4.withdrawEarly(50);
+        lazy.addAsset(a4);
+
+        AssetSource source = lazy.asSource();
+        assertEquals(4, source.size());
+        assertEquals("asset1", source.getName(0));
+        assertEquals("asset4", source.getName(2));
+        assertEquals("asset3", source.getName(3));
+        assertFalse(source.isRemoved(2));
+        assertTrue(source.isRemoved(3));
+        assertEquals(a2.getPrincipalCents(), source.getPrincipalCents(1));
+        assertEquals(a2.getInterestBasisPoints(), source.getInterestBasisPoints(1));
+        assertEquals(a2.getInvestEpochDay(), source.getInvestEpochDay(1));
+        assertEquals(1, source.getWithdrawalCount(0));
+        assertEquals(10000, source.getWithdrawalCents(0, 0));
+        assertEquals(a1.getWithdrawList().get(0).getDate().toEpochDay(), source.getWithdrawalEpochDay(0, 0));
+        assertEquals(1, source.getWithdrawalCount(2));
+        assertEquals(5000, source.getWithdrawalCents(2, 0));
+        assertEquals(0, source.getWithdrawalCount(1));
+        lazy.removeByName("asset1");
+        assertEquals("asset1", source.getName(3));
+    }
+
+    // Represents assets held in a list, the ones from index numActive on removed
+    private static class ListSource implements AssetSource {
+        private final List<Asset> assets;
+        private final int numActive;
+
+        ListSource(List<Asset> assets, int numActive) {
+            this.assets = assets;
+            this.numActive = numActive;
+        }
+
+        public int size() {
+            return assets.size();
+        }
+
+        public boolean isRemoved(int i) {
+            return i >= numActive;
+        }
+
+        public long getPrincipalCents(int i) {
+            return assets.get(i).getPrincipalCents();
+        }
+
+        public int getInterestBasisPoints(int i) {
+            return assets.get(i).getInterestBasisPoints();
+        }
+
+        public int getTermToMaturity(int i) {
+            return assets.get(i).getTermToMaturity();
+        }
+
+        public long getInvestEpochDay(int i) {
+            return assets.get(i).getInvestEpochDay();
+        }
+
+        public String getName(int i) {
+            return assets.get(i).getName();
+        }
+
+        public int getWithdrawalCount(int i) {
+            return assets.get(i).getWithdrawList().size();
+        }
+
+        public long getWithdrawalCents(int i, int k) {
+            return assets.get(i).getWithdrawList().get(k).getAmountCents();
+        }
+
+        public long getWithdrawalEpochDay(int i, int k) {
+            return assets.get(i).getWithdrawList().get(k).getDate().toEpochDay();
+        }
+    }
 }
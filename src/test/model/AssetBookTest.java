@@ -0,0 +1,156 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AssetBookTest {
+    Account testAccount;
+    Asset a1;
+    Asset a2;
+    LocalDate today;
+
+    @BeforeEach
+    void runBefore() {
+        testAccount = new Account("Cici");
+        today = LocalDate.now();
+        a1 = new Asset("asset1", 180, 5, 1000);
+        a2 = new Asset("asset2", 365, 8, 2000);
+        LocalDate investDate = today.minusDays(30);
+        a1.setInvestDate(investDate.getMonthValue(), investDate.getDayOfMonth(), investDate.getYear());
+        a2.setInvestDate(investDate.getMonthValue(), investDate.getDayOfMonth(), investDate.getYear());
+    }
+
+    @Test
+    void testAddMovesStateIntoBook() {
+        testAccount.addAsset(a1);
+        testAccount.addAsset(a2);
+        AssetBook book = testAccount.book;
+        assertEquals(2, book.size());
+        assertEquals(a1, book.view(0));
+        assertEquals(a2, book.view(1));
+        assertEquals(1000, a1.getPrincipal());
+        assertEquals(0.08, a2.getInterestRate());
+        assertEquals(today.minusDays(30), a2.getInvestDate());
+    }
+
+    @Test
+    void testGrowBeyondCapacity() {
+        AssetBook book = new AssetBook(1);
+        for (int i = 0; i < 5; i++) {
+            Asset a = new Asset("asset" + i, 10, 1, 100 + i);
+            a.moveTo(book);
+        }
+        assertEquals(5, book.size());
+        assertEquals(104, book.view(4).getPrincipal());
+    }
+
+    @Test
+    void testRefreshMatchesAssetRefresh() {
+        Asset single = new Asset("single", 180, 5, 1000);
+        single.setInvestDate(a1.getInvestDate().getMonthValue(), a1.getInvestDate().getDayOfMonth(),
+                a1.getInvestDate().getYear());
+        single.refreshTotalGain();
+
+        testAccount.addAsset(a1);
+        testAccount.refresh();
+        assertEquals(single.getTotalGain(), a1.getTotalGain());
+        assertEquals(30, a1.getDaysHeld());
+    }
+
+    @Test
+    void testRemovedStaysInBook() {
+        testAccount.addAsset(a1);
+        testAccount.addAsset(a2);
+        testAccount.removeAsset(a1);
+        assertEquals(2, testAccount.book.size());
+        assertTrue(testAccount.book.isRemoved(a1.getSlot()));
+        assertFalse(a1.getActivatedStatus());
+        assertEquals(1, testAccount.numActiveAssets());
+    }
+
+    @Test
+    void testRefreshSameDayOnlyTouchesDirty() {
+        testAccount.addAsset(a1);
+        testAccount.addAsset(a2);
+        ValuationContext context = ValuationContext.asOf(today);
+        assertEquals(2, testAccount.book.numDirty());
+        testAccount.refresh(context);
+        assertEquals(0, testAccount.book.numDirty());
+        double gain = a1.getTotalGain();
+
+        a1.withdrawEarly(500, context);
+        assertEquals(1, testAccount.book.numDirty());
+        testAccount.refresh(context);
+        assertEquals(0, testAccount.book.numDirty());
+        assertNotEquals(gain, a1.getTotalGain());
+    }
+
+    @Test
+    void testRefreshNewDayRevaluesAll() {
+        testAccount.addAsset(a1);
+        testAccount.refresh(ValuationContext.asOf(today));
+        assertEquals(30, a1.getDaysHeld());
+        testAccount.refresh(ValuationContext.asOf(today.plusDays(1)));
+        assertEquals(31, a1.getDaysHeld());
+    }
+
+    @Test
+    void testWithdrawalDateChangeMarksDirty() {
+        testAccount.addAsset(a1);
+        ValuationContext context = ValuationContext.asOf(today);
+        a1.withdrawEarly(500, context);
+        testAccount.refresh(context);
+        double gain = a1.getTotalGain();
+        LocalDate earlier = today.minusDays(10);
+        a1.getWithdrawList().get(0).setDate(earlier.getMonthValue(), earlier.getDayOfMonth(), earlier.getYear());
+        assertEquals(1, testAccount.book.numDirty());
+        testAccount.refresh(context);
+        assertTrue(a1.getTotalGain() < gain);
+    }
+
+    @Test
+    void testParallelMatchesSequential() {
+        Account sequential = new Account("sequential");
+        Account parallel = new Account("parallel");
+        parallel.setParallelValuation(true);
+        int n = AssetBook.PARALLEL_THRESHOLD * 3 + 7;
+        for (int i = 0; i < n; i++) {
+            LocalDate investDate = today.minusDays(i % 400);
+            Asset s = new Asset("s" + i, 100 + i % 300, 1 + i % 9, 1000 + i);
+            Asset p = new Asset("p" + i, 100 + i % 300, 1 + i % 9, 1000 + i);
+            s.setInvestDate(investDate.getMonthValue(), investDate.getDayOfMonth(), investDate.getYear());
+            p.setInvestDate(investDate.getMonthValue(), investDate.getDayOfMonth(), investDate.getYear());
+            sequential.addAsset(s);
+            parallel.addAsset(p);
+        }
+        ValuationContext context = ValuationContext.asOf(today);
+        sequential.refresh(context);
+        parallel.refresh(context);
+
+        assertEquals(sequential.getTotalGain(), parallel.getTotalGain());
+        assertEquals(sequential.numActiveAssets(), parallel.numActiveAssets());
+        assertEquals(sequential.getAccount().get(n - 1).getTotalGain(),
+                parallel.getAccount().get(n - 1).getTotalGain());
+        assertEquals(sequential.topK(1, RankingMetric.TOTAL_GAIN).get(0).getTotalGain(),
+                parallel.topK(1, RankingMetric.TOTAL_GAIN).get(0).getTotalGain());
+    }
+
+    @Test
+    void testWithdrawalInterestCached() {
+        ValuationContext context = ValuationContext.asOf(today);
+        a1.withdrawEarly(365, context);
+        long expected = Money.interest(500, 30, 36500);
+        assertEquals(expected, a1.getBook().withdrawalInterest[a1.getSlot()]);
+
+        testAccount.addAsset(a1);
+        assertEquals(expected, testAccount.book.withdrawalInterest[a1.getSlot()]);
+
+        LocalDate investDate = today.minusDays(60);
+        a1.setInvestDate(investDate.getMonthValue(), investDate.getDayOfMonth(), investDate.getYear());
+        assertEquals(Money.interest(500, 60, 36500), testAccount.book.withdrawalInterest[a1.getSlot()]);
+    }
+}
@@ -114,7 +114,7 @@ class AssetTest {
         double withdrawInterest = Math.round(900 * days * 0.05 / 365 * 100) / 100.0;
         int daysHeld = a2.calculateDaysHeld();
         double fullTermInterest = Math.round(100 * daysHeld * 0.05 / 365 * 100) / 100.0;
-        double expTotalGain = withdrawInterest + fullTermInterest;
+        double expTotalGain = Math.round((withdrawInterest + fullTermInterest) * 100) / 100.0;
         a2.refreshTotalGain();
         assertEquals(expTotalGain, a2.getTotalGain());
     }
@@ -130,7 +130,7 @@ class AssetTest {
         double withdrawInterest2 = Math.round(500 * 123 * 0.05 / 365 * 100) / 100.0;
         int daysHeld = a2.calculateDaysHeld();
         double fullTermInterest = Math.round(200 * daysHeld * 0.05 / 365 * 100) / 100.0;
-        double expTotalGain = withdrawInterest1 + withdrawInterest2 + fullTermInterest;
+        double expTotalGain = Math.round((withdrawInterest1 + withdrawInterest2 + fullTermInterest) * 100) / 100.0;
         a2.refreshTotalGain();
         assertEquals(expTotalGain, a2.getTotalGain());
     }
@@ -150,7 +150,7 @@ class AssetTest {
         a1.getWithdrawList().get(0).setDate(m2, d2, y2); //145 days
         double withdrawInterest = Math.round(500 * 145 * 0.05 / 365 * 100) / 100.0;
         double fullTermInterest = Math.round(500 * 180 * 0.05 / 365 * 100) / 100.0;
-        double expTotalGain = withdrawInterest + fullTermInterest;
+        double expTotalGain = Math.round((withdrawInterest + fullTermInterest) * 100) / 100.0;
         a1.refreshTotalGain();
         assertEquals(expTotalGain, a1.getTotalGain());
     }
@@ -169,7 +169,7 @@ class AssetTest {
         a1.getWithdrawList().get(0).setDate(3, 1, 2023); //59 days
         double withdrawInterest = Math.round(500 * 59 * 0.05 / 365 * 100) / 100.0;
         double fullTermInterest = Math.round(500 * 180 * 0.05 / 365 * 100) / 100.0;
-        double expTotalGain = withdrawInterest + fullTermInterest;
+        double expTotalGain = Math.round((withdrawInterest + fullTermInterest) * 100) / 100.0;
         a1.refreshTotalGain();
         assertEquals(expTotalGain, a1.getTotalGain());
     }
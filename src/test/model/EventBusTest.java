@@ -0,0 +1,119 @@
+package model;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventBusTest {
+    EventBus bus;
+    List<Event> received;
+    List<Integer> batchSizes;
+    CountDownLatch latch;
+    EventSubscriber collector;
+
+    @BeforeEach
+    void runBefore() {
+        bus = EventBus.getInstance();
+        received = new ArrayList<>();
+        batchSizes = new ArrayList<>();
+        collector = events -> {
+            synchronized (received) {
+                received.addAll(events);
+                batchSizes.add(events.size());
+            }
+            for (int i = 0; i < events.size(); i++) {
+                latch.countDown();
+            }
+        };
+        bus.subscribe(collector);
+    }
+
+    @AfterEach
+    void runAfter() {
+        bus.unsubscribe(collector);
+    }
+
+    @Test
+    void testSingleton() {
+        assertSame(bus, EventBus.getInstance());
+    }
+
+    @Test
+    void testLoggedEventsDelivered() throws InterruptedException {
+        latch = new CountDownLatch(2);
+        Account account = new Account("My account");
+        Asset asset = new Asset("bond", 200, 4.8, 2000);
+        account.addAsset(asset);
+        account.removeAsset(asset);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        synchronized (received) {
+            assertEquals(Event.Type.ASSET_ADDED, received.get(0).getType());
+            assertEquals(Event.Type.ASSET_REMOVED, received.get(1).getType());
+        }
+    }
+
+    @Test
+    void testBurstIsBatched() throws InterruptedException {
+        latch = new CountDownLatch(5000);
+        for (int i = 0; i < 5000; i++) {
+            bus.publish(new Event("e" + i));
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        synchronized (received) {
+            assertEquals(5000, received.size());
+            assertEquals("e4999", received.get(4999).getDescription());
+            assertTrue(batchSizes.size() < 5000);
+            for (int size : batchSizes) {
+                assertTrue(size <= EventBus.MAX_BATCH);
+            }
+        }
+    }
+
+    @Test
+    void testFailingSubscriberSkipped() throws InterruptedException {
+        EventSubscriber failing = events -> {
+            throw new IllegalStateException();
+        };
+        CountDownLatch after = new CountDownLatch(1);
+        EventSubscriber next = events -> after.countDown();
+        bus.subscribe(failing);
+        bus.subscribe(next);
+        long failures = bus.getFailureCount();
+        latch = new CountDownLatch(1);
+        bus.publish(new Event("e"));
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(after.await(5, TimeUnit.SECONDS));
+        bus.unsubscribe(failing);
+        bus.unsubscribe(next);
+        assertTrue(bus.getFailureCount() > failures);
+    }
+
+    @Test
+    void testSlowSubscriberDoesNotBlockPublisher() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        EventSubscriber slow = events -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        bus.subscribe(slow);
+        latch = new CountDownLatch(100);
+        long start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            bus.publish(new Event("e" + i));
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        bus.unsubscribe(slow);
+        release.countDown();
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+}
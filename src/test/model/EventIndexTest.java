@@ -0,0 +1,161 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventIndexTest {
+    EventIndex index;
+    List<Event> events;
+
+    @BeforeEach
+    void runBefore() {
+        index = new EventIndex();
+        events = new ArrayList<>();
+        events.add(new Event(Event.Type.ASSET_ADDED, "bond"));
+        events.add(new Event(Event.Type.ASSET_ADDED, "future"));
+        events.add(new Event(Event.Type.ASSET_WITHDRAWN, "bond"));
+        events.add(new Event(Event.Type.CHANGES_SAVED, null));
+        events.add(new Event(Event.Type.ASSET_WITHDRAWN, "future"));
+        events.add(new Event(Event.Type.ASSET_WITHDRAWN, "bond"));
+        events.add(new Event(Event.Type.CHANGES_SAVED, null));
+        events.add(new Event("Note"));
+        index.addAll(events);
+    }
+
+    // EFFECTS: returns the instant of the given event, plus the given nanoseconds
+    private Instant instantOf(Event e, long plusNanos) {
+        long nanos = e.getEpochNanos() + plusNanos;
+        return Instant.ofEpochSecond(TimeUnit.NANOSECONDS.toSeconds(nanos), nanos % 1_000_000_000L);
+    }
+
+    @Test
+    void testScanAll() {
+        assertEquals(8, index.size());
+        assertEquals(events, index.scan(Instant.MIN, Instant.MAX).toList());
+    }
+
+    @Test
+    void testScanRange() {
+        List<Event> range = index.scan(instantOf(events.get(2), 0), instantOf(events.get(5), 0)).toList();
+        assertEquals(events.subList(2, 5), range);
+    }
+
+    @Test
+    void testScanType() {
+        List<Event> saves = index.scan(Event.Type.CHANGES_SAVED, Instant.MIN, Instant.MAX).toList();
+        assertEquals(List.of(events.get(3), events.get(6)), saves);
+        assertTrue(index.scan(Event.Type.LOG_CLEARED, Instant.MIN, Instant.MAX).toList().isEmpty());
+    }
+
+    @Test
+    void testScanAsset() {
+        List<Event> withdrawals = index.scanAsset("bond", Event.Type.ASSET_WITHDRAWN,
+                instantOf(events.get(0), 0), instantOf(events.get(7), 0)).toList();
+        assertEquals(List.of(events.get(2), events.get(5)), withdrawals);
+        List<Event> bond = index.scanAsset("bond", null, Instant.MIN, Instant.MAX).toList();
+        assertEquals(3, bond.size());
+        assertTrue(index.scanAsset("swap", null, Instant.MIN, Instant.MAX).toList().isEmpty());
+    }
+
+    @Test
+    void testQueryUnknownKeysThenAdd() {
+        assertTrue(index.scanAsset("swap", null, Instant.MIN, Instant.MAX).toList().isEmpty());
+        assertTrue(index.scanAsset("ghost", null, Instant.MIN, Instant.MAX).toList().isEmpty());
+        Event swap = new Event(Event.Type.ASSET_ADDED, "swap");
+        index.add(swap);
+        assertEquals(List.of(swap), index.scanAsset("swap", null, Instant.MIN, Instant.MAX).toList());
+        assertTrue(index.scanAsset("ghost", null, Instant.MIN, Instant.MAX).toList().isEmpty());
+        assertEquals(9, index.size());
+    }
+
+    @Test
+    void testCursorOnUnknownKeySeesLaterEvents() {
+        EventIndex.Cursor asset = index.scanAsset("swap", null, Instant.MIN, Instant.MAX);
+        EventIndex.Cursor type = index.scan(Event.Type.LOG_CLEARED, Instant.MIN, Instant.MAX);
+        assertTrue(asset.next(10).isEmpty());
+        assertTrue(type.next(10).isEmpty());
+        Event swap = new Event(Event.Type.ASSET_ADDED, "swap");
+        Event cleared = new Event(Event.Type.LOG_CLEARED, null);
+        index.add(swap);
+        index.add(cleared);
+        assertEquals(List.of(swap), asset.next(10));
+        assertEquals(List.of(cleared), type.next(10));
+    }
+
+    @Test
+    void testInstanceSubscribedToBus() throws InterruptedException {
+        EventIndex shared = EventIndex.getInstance();
+        assertSame(shared, EventIndex.getInstance());
+        EventIndex.Cursor cursor = shared.scanAsset("audited", null, Instant.MIN, Instant.MAX);
+        EventLog.getInstance().logEvent(new Event(Event.Type.ASSET_ADDED, "audited"));
+        List<Event> page = cursor.next(10);
+        for (int i = 0; i < 500 && page.isEmpty(); i++) {
+            Thread.sleep(10);
+            page = cursor.next(10);
+        }
+        assertEquals(1, page.size());
+    }
+
+    @Test
+    void testLast() {
+        assertEquals(List.of(events.get(6)), index.last(Event.Type.CHANGES_SAVED, 1));
+        assertEquals(List.of(events.get(3), events.get(6)), index.last(Event.Type.CHANGES_SAVED, 10));
+        assertTrue(index.last(Event.Type.LOG_CLEARED, 3).isEmpty());
+    }
+
+    @Test
+    void testPaging() {
+        EventIndex.Cursor cursor = index.scan(Instant.MIN, Instant.MAX);
+        assertEquals(events.subList(0, 3), cursor.next(3));
+        assertEquals(events.subList(3, 6), cursor.next(3));
+        Event late = new Event("Late");
+        index.add(late);
+        assertEquals(List.of(events.get(6), events.get(7), late), cursor.next(3));
+        assertTrue(cursor.next(3).isEmpty());
+    }
+
+    @Test
+    void testOutOfOrderInsert() {
+        EventIndex other = new EventIndex();
+        for (int i = events.size() - 1; i >= 0; i--) {
+            other.add(events.get(i));
+        }
+        List<Event> scanned = other.scan(Instant.MIN, Instant.MAX).toList();
+        for (int i = 1; i < scanned.size(); i++) {
+            assertTrue(scanned.get(i - 1).getEpochNanos() <= scanned.get(i).getEpochNanos());
+        }
+        assertEquals(events.size(), scanned.size());
+    }
+
+    @Test
+    void testManyEvents() {
+        EventIndex big = new EventIndex();
+        for (int i = 0; i < 200000; i++) {
+            big.add(new Event(Event.Type.ASSET_WITHDRAWN, "asset" + (i % 100)));
+        }
+        EventIndex.Cursor cursor = big.scanAsset("asset7", Event.Type.ASSET_WITHDRAWN, Instant.MIN, Instant.MAX);
+        int count = 0;
+        for (List<Event> page = cursor.next(500); !page.isEmpty(); page = cursor.next(500)) {
+            count += page.size();
+        }
+        assertEquals(2000, count);
+    }
+
+    @Test
+    void testSubscribedToBus() throws InterruptedException {
+        EventBus.getInstance().subscribe(index);
+        EventLog.getInstance().logEvent(new Event(Event.Type.CHANGES_SAVED, null));
+        for (int i = 0; i < 500 && index.size() < 9; i++) {
+            Thread.sleep(10);
+        }
+        EventBus.getInstance().unsubscribe(index);
+        assertEquals(3, index.last(Event.Type.CHANGES_SAVED, 5).size());
+    }
+}
@@ -0,0 +1,147 @@
+package model;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventLogTest {
+    EventLog log;
+
+    @BeforeEach
+    void runBefore() {
+        log = EventLog.getInstance();
+        log.configure(4, EventLog.OverflowPolicy.DROP_OLDEST);
+    }
+
+    @AfterEach
+    void runAfter() {
+        log.configure(EventLog.DEFAULT_CAPACITY, EventLog.OverflowPolicy.DROP_OLDEST);
+    }
+
+    @Test
+    void testSingleton() {
+        assertSame(log, EventLog.getInstance());
+    }
+
+    @Test
+    void testLogAndIterate() {
+        Event e1 = new Event("e1");
+        Event e2 = new Event("e2");
+        log.logEvent(e1);
+        log.logEvent(e2);
+        List<Event> events = new ArrayList<>();
+        for (Event e : log) {
+            events.add(e);
+        }
+        assertEquals(2, events.size());
+        assertEquals(e1, events.get(0));
+        assertEquals(e2, events.get(1));
+    }
+
+    @Test
+    void testDropOldest() {
+        long dropped = log.getDroppedCount();
+        for (int i = 0; i < 6; i++) {
+            log.logEvent(new Event("e" + i));
+        }
+        assertEquals(4, log.size());
+        assertEquals(dropped + 2, log.getDroppedCount());
+        assertEquals("e2", log.iterator().next().getDescription());
+    }
+
+    @Test
+    void testIterateWhileLogging() {
+        for (int i = 0; i < 4; i++) {
+            log.logEvent(new Event("e" + i));
+        }
+        int count = 0;
+        for (Event e : log) {
+            log.logEvent(new Event("more"));
+            count++;
+        }
+        assertTrue(count <= 4);
+    }
+
+    @Test
+    void testDrainAndClear() {
+        log.logEvent(new Event("e1"));
+        log.logEvent(new Event("e2"));
+        List<Event> drained = new ArrayList<>();
+        assertEquals(2, log.drainTo(drained::add));
+        assertEquals("e1", drained.get(0).getDescription());
+        assertEquals(0, log.size());
+
+        log.logEvent(new Event("e3"));
+        log.clear();
+        assertEquals(1, log.size());
+        assertEquals("Event log cleared.", log.iterator().next().getDescription());
+    }
+
+    @Test
+    void testSpillToDisk() throws IOException {
+        Path spill = Paths.get("./data/testEventLog.spill");
+        Files.deleteIfExists(spill);
+        log.setSpillFile(spill);
+        log.configure(4, EventLog.OverflowPolicy.SPILL_TO_DISK);
+        long spilled = log.getSpilledCount();
+        for (int i = 0; i < 5; i++) {
+            log.logEvent(new Event("e" + i));
+        }
+        assertEquals(spilled + 1, log.getSpilledCount());
+        assertTrue(log.flushSpillFile());
+        assertTrue(Files.readString(spill).contains("e0"));
+
+        log.closeSpillFile();
+        log.logEvent(new Event("e5"));
+        log.drainTo(e -> { });
+        String text = Files.readString(spill);
+        assertTrue(text.contains("e0") && text.contains("e1"));
+        log.closeSpillFile();
+        Files.deleteIfExists(spill);
+        log.setSpillFile(Paths.get(EventLog.DEFAULT_SPILL_FILE));
+    }
+
+    @Test
+    void testBlockWaitsForDrain() throws InterruptedException {
+        log.configure(4, EventLog.OverflowPolicy.BLOCK);
+        for (int i = 0; i < 4; i++) {
+            log.logEvent(new Event("e" + i));
+        }
+        Thread producer = new Thread(() -> log.logEvent(new Event("late")));
+        producer.start();
+        producer.join(50);
+        assertTrue(producer.isAlive());
+        log.drainTo(e -> { });
+        producer.join(1000);
+        assertFalse(producer.isAlive());
+        assertEquals("late", log.iterator().next().getDescription());
+    }
+
+    @Test
+    void testConcurrentProducers() throws InterruptedException {
+        log.configure(1 << 12, EventLog.OverflowPolicy.DROP_OLDEST);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    log.logEvent(new Event("e" + i));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(2000, log.size());
+    }
+}
@@ -0,0 +1,57 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventTest {
+    Event e1;
+    Event e2;
+
+    @BeforeEach
+    void runBefore() {
+        e1 = new Event("Sensor open at door");
+        e2 = new Event(Event.Type.ASSET_ADDED, "Bond");
+    }
+
+    @Test
+    void testMessageEvent() {
+        assertEquals(Event.Type.MESSAGE, e1.getType());
+        assertEquals("Sensor open at door", e1.getDescription());
+        assertEquals(e1.getDate().toString() + "\n" + "Sensor open at door", e1.toString());
+    }
+
+    @Test
+    void testTypedEvent() {
+        assertEquals(Event.Type.ASSET_ADDED, e2.getType());
+        assertEquals("Bond added to account.", e2.getDescription());
+        assertEquals("Bond removed from account.", new Event(Event.Type.ASSET_REMOVED, "Bond").getDescription());
+        assertEquals("Event log cleared.", new Event(Event.Type.LOG_CLEARED, null).getDescription());
+    }
+
+    @Test
+    void testTimestamp() {
+        long now = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+        assertTrue(Math.abs(now - e2.getEpochNanos()) < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(new Date(TimeUnit.NANOSECONDS.toMillis(e2.getEpochNanos())), e2.getDate());
+    }
+
+    @Test
+    void testEquals() {
+        assertFalse(e1.equals(null));
+        assertFalse(e1.equals("Sensor open at door"));
+        assertEquals(e1, e1);
+        assertNotEquals(e1, e2);
+        Event message = new Event("Bond added to account.");
+        Event typed = new Event(Event.Type.ASSET_ADDED, "Bond");
+        if (message.getDate().equals(typed.getDate())) {
+            assertEquals(message, typed);
+            assertEquals(message.hashCode(), typed.hashCode());
+        }
+        assertEquals(13 * e2.getDate().hashCode() + e2.getDescription().hashCode(), e2.hashCode());
+    }
+}
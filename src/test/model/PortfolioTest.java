@@ -0,0 +1,80 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PortfolioTest {
+    LocalDate date;
+    Account ac1;
+    Account ac2;
+    Portfolio portfolio;
+
+    @BeforeEach
+    void runBefore() {
+        date = LocalDate.of(2023, 6, 1);
+        ac1 = new Account("Cici");
+        ac1.addAsset(asset("bond", 365, 5, 1000));
+        ac1.addAsset(asset("bill", 30, 3, 5000));
+        ac2 = new Account("Dan");
+        ac2.addAsset(asset("note", 365, 8, 2000));
+        Asset removed = asset("cd", 365, 4, 3000);
+        ac2.addAsset(removed);
+        ac2.removeAsset(removed);
+        ValuationContext context = ValuationContext.asOf(date);
+        ac1.refresh(context);
+        ac2.refresh(context);
+        portfolio = new Portfolio(List.of(ac1, ac2), date);
+    }
+
+    // EFFECTS: returns an asset invested on the first day of 2023
+    private Asset asset(String name, int term, double rate, double principal) {
+        Asset a = new Asset(name, term, rate, principal);
+        a.setInvestDate(1, 1, 2023);
+        return a;
+    }
+
+    @Test
+    void testTotals() {
+        assertEquals(2, portfolio.numAccounts());
+        assertEquals(date, portfolio.getDate());
+        assertEquals(3, portfolio.numAssets());
+        assertEquals(2, portfolio.numActiveAssets());
+        assertEquals(1, portfolio.numActiveAssets(0));
+        assertEquals(ac1.getTotalGain(), portfolio.getTotalGain(0));
+        assertEquals(ac2.getTotalGain(), portfolio.getTotalGain(1));
+        assertEquals(Money.toDollars(Money.toCents(ac1.getTotalGain()) + Money.toCents(ac2.getTotalGain())),
+                portfolio.getTotalGain());
+    }
+
+    @Test
+    void testTopK() {
+        List<String> names = new ArrayList<>();
+        for (Asset a : portfolio.topK(3, RankingMetric.PRINCIPAL)) {
+            names.add(a.getName());
+        }
+        assertEquals(List.of("bill", "note", "bond"), names);
+        assertEquals(3, portfolio.topK(10, RankingMetric.TOTAL_GAIN).size());
+        assertTrue(portfolio.topK(0, RankingMetric.TOTAL_GAIN).isEmpty());
+    }
+
+    @Test
+    void testReadOnly() {
+        assertThrows(UnsupportedOperationException.class, () -> portfolio.getAccounts().add(new Account("Eve")));
+        assertThrows(UnsupportedOperationException.class,
+                () -> portfolio.topK(1, RankingMetric.PRINCIPAL).clear());
+    }
+
+    @Test
+    void testEmpty() {
+        Portfolio empty = new Portfolio(new ArrayList<>(), date);
+        assertEquals(0, empty.numAccounts());
+        assertEquals(0, empty.getTotalGain());
+        assertTrue(empty.topK(3, RankingMetric.TOTAL_GAIN).isEmpty());
+    }
+}
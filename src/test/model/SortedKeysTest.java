@@ -0,0 +1,41 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SortedKeysTest {
+
+    @Test
+    void testBuildSorts() {
+        SortedKeys keys = new SortedKeys(new long[]{30, 10, 20, 99}, 3);
+        assertEquals(3, keys.size());
+        assertEquals(10, keys.get(0));
+        assertEquals(20, keys.get(1));
+        assertEquals(30, keys.get(2));
+    }
+
+    @Test
+    void testAddAndRemove() {
+        SortedKeys keys = new SortedKeys(new long[0], 0);
+        for (long k = 40; k > 0; k -= 2) {
+            keys.add(k);
+        }
+        keys.add(40);
+        assertEquals(20, keys.size());
+        keys.remove(2);
+        keys.remove(3);
+        assertEquals(19, keys.size());
+        assertEquals(4, keys.get(0));
+        assertEquals(40, keys.get(18));
+    }
+
+    @Test
+    void testCeiling() {
+        SortedKeys keys = new SortedKeys(new long[]{10, 20, 30}, 3);
+        assertEquals(0, keys.ceiling(Long.MIN_VALUE));
+        assertEquals(1, keys.ceiling(20));
+        assertEquals(2, keys.ceiling(21));
+        assertEquals(3, keys.ceiling(31));
+    }
+}
@@ -0,0 +1,81 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ValuationContextTest {
+    ValuationContext context;
+    Asset a1;
+
+    @BeforeEach
+    void runBefore() {
+        context = ValuationContext.asOf(LocalDate.of(2023, 6, 30));
+        a1 = new Asset("asset1", 180, 5, 1000, context);
+        a1.setInvestDate(1, 1, 2023);
+    }
+
+    @Test
+    void testAsOf() {
+        assertEquals(LocalDate.of(2023, 6, 30), context.getDate());
+        assertEquals(LocalDate.of(2023, 6, 30).toEpochDay(), context.getEpochDay());
+        assertEquals(LocalDate.of(2023, 6, 30), LocalDate.now(context.getClock()));
+    }
+
+    @Test
+    void testClockReadOnce() {
+        Clock clock = Clock.fixed(LocalDate.of(2023, 3, 1).atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC);
+        ValuationContext fromClock = new ValuationContext(clock);
+        assertEquals(LocalDate.of(2023, 3, 1), fromClock.getDate());
+    }
+
+    @Test
+    void testAssetConstructedAsOf() {
+        Asset a2 = new Asset("asset2", 10, 5, 1000, context);
+        assertEquals(LocalDate.of(2023, 6, 30), a2.getInvestDate());
+        assertEquals(LocalDate.of(2023, 6, 30), a2.getMaturityDate());
+    }
+
+    @Test
+    void testRefreshAsOfNotMature() {
+        a1.refreshStatus(context);
+        a1.refreshTotalGain(context);
+        assertTrue(a1.getActivatedStatus());
+        assertEquals(180, a1.getDaysHeld());
+        assertEquals(Math.round(1000 * 0.05 / 365 * 180 * 100) / 100.0, a1.getTotalGain());
+    }
+
+    @Test
+    void testRefreshAsOfExpired() {
+        ValuationContext later = ValuationContext.asOf(LocalDate.of(2023, 12, 31));
+        a1.refreshStatus(later);
+        a1.refreshTotalGain(later);
+        assertFalse(a1.getActivatedStatus());
+        assertEquals(a1.calculateFullReturn(), a1.getTotalGain());
+    }
+
+    @Test
+    void testWithdrawAndPotentialLossAsOf() {
+        a1.withdrawEarly(400, context);
+        assertEquals(LocalDate.of(2023, 6, 30), a1.getWithdrawList().get(0).getDate());
+        assertEquals(0, a1.calculatePotentialLoss(400, context));
+    }
+
+    @Test
+    void testAccountUsesClock() {
+        Account account = new Account("Cici");
+        account.setClock(context.getClock());
+        account.addAsset(a1);
+        account.refresh();
+        assertEquals(180, a1.getDaysHeld());
+        assertEquals(1, account.numActiveAssets());
+        assertEquals(LocalDate.of(2023, 6, 30), account.newValuationContext().getDate());
+        assertEquals(ZoneId.systemDefault(), account.newValuationContext().getClock().getZone());
+    }
+}